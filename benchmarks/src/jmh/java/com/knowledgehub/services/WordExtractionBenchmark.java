@@ -0,0 +1,111 @@
+package com.knowledgehub.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Text extraction from Word files, the first stage of every upload.
+ * A .docx of the given number of paragraphs is generated for each run (POI cannot write the older .doc format);
+ * real .doc and .docx files can be added with -Pjmh.word.samples=&lt;directory&gt;, and are all extracted
+ * once per invocation of {@link #extractSamples()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WordExtractionBenchmark {
+
+    private static final String SAMPLES_PROPERTY = "benchmark.word.samples";
+
+    @Param({"10", "100", "1000"})
+    public int paragraphs;
+
+    private WordTextExtractor extractor;
+    private Path directory;
+    private Path generated;
+    private final List<Path> samples = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        extractor = new WordTextExtractor(new SimpleMeterRegistry());
+        directory = Files.createTempDirectory("word-extraction-benchmark");
+        generated = directory.resolve("generated.docx");
+        writeDocx(generated, paragraphs);
+
+        String samplesDirectory = System.getProperty(SAMPLES_PROPERTY);
+        if (samplesDirectory != null && !samplesDirectory.isBlank()) {
+            try (Stream<Path> files = Files.list(Paths.get(samplesDirectory))) {
+                files.filter(file -> {
+                    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                    return name.endsWith(".doc") || name.endsWith(".docx");
+                }).sorted().forEach(samples::add);
+            }
+        }
+        if (samples.isEmpty()) {
+            // Without samples this measures the generated file again, so the benchmark still runs
+            samples.add(generated);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public String extractGeneratedDocx() throws IOException {
+        return extractor.extractText(generated, "generated.docx");
+    }
+
+    @Benchmark
+    public int extractSamples() throws IOException {
+        int length = 0;
+        for (Path sample : samples) {
+            length += extractor.extractText(sample, sample.getFileName().toString().toLowerCase(Locale.ROOT)).length();
+        }
+        return length;
+    }
+
+    private static void writeDocx(Path file, int paragraphs) throws IOException {
+        Random random = new Random(42);
+        try (XWPFDocument document = new XWPFDocument(); OutputStream out = Files.newOutputStream(file)) {
+            for (int p = 0; p < paragraphs; p++) {
+                StringBuilder text = new StringBuilder();
+                int sentences = 2 + random.nextInt(4);
+                for (int s = 0; s < sentences; s++) {
+                    text.append("Section ").append(p + 1).append(" sentence ").append(s + 1)
+                        .append(" describes the procedure, its approvals and the figures for quarter ")
+                        .append(1 + random.nextInt(4)).append(". ");
+                }
+                document.createParagraph().createRun().setText(text.toString());
+            }
+            document.write(out);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.knowledgehub.services.embedding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing an embedding API response body into float vectors, for batches of the sizes the batcher sends
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmbeddingResponseParseBenchmark {
+
+    @Param({"1", "16", "128"})
+    public int batchSize;
+
+    @Param({"1536"})
+    public int dimension;
+
+    private OpenAiEmbeddingProvider provider;
+    private String body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        provider = new OpenAiEmbeddingProvider(new RestTemplate(), "unused", 1, 0, 0, false, 0);
+
+        // Same shape as the API's response, entries in reverse order to exercise the index mapping
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder("{\"object\":\"list\",\"data\":[");
+        for (int i = batchSize - 1; i >= 0; i--) {
+            json.append("{\"object\":\"embedding\",\"index\":").append(i).append(",\"embedding\":[");
+            for (int d = 0; d < dimension; d++) {
+                if (d > 0) {
+                    json.append(',');
+                }
+                json.append((float) (random.nextGaussian() * 0.03));
+            }
+            json.append("]}");
+            if (i > 0) {
+                json.append(',');
+            }
+        }
+        json.append("],\"model\":\"text-embedding-3-small\",\"usage\":{\"prompt_tokens\":8,\"total_tokens\":8}}");
+        body = json.toString();
+    }
+
+    @Benchmark
+    public List<float[]> parse() throws IOException {
+        return provider.parseResponse(body, batchSize);
+    }
+}
@@ -0,0 +1,120 @@
+package com.knowledgehub.services.index;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Similarity scoring and top-K search over a synthetic store.
+ * Vectors are drawn around random cluster centres, like embeddings of documents on a handful of topics,
+ * so approximate indexes are measured on data with structure rather than on uniform noise.
+ * Other index kinds can be selected with -p index=hnsw (slow to build at 1M vectors).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VectorSearchBenchmark {
+
+    private static final int CLUSTERS = 64;
+    private static final int QUERIES = 256;
+    private static final int TOP_K = 5;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"256"})
+    public int dimension;
+
+    @Param({"brute-force", "int8", "pq"})
+    public String index;
+
+    private VectorArena arena;
+    private ExactSearchEngine searchEngine;
+    private VectorIndex vectorIndex;
+    private float[][] queries;
+    private int[] slots;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        Random random = new Random(42);
+        float[][] centres = new float[CLUSTERS][];
+        for (int c = 0; c < CLUSTERS; c++) {
+            centres[c] = gaussian(random, null, 1f);
+        }
+
+        arena = new VectorArena();
+        searchEngine = new ExactSearchEngine(0, 20000);
+        vectorIndex = createIndex();
+        slots = new int[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = arena.put(i, gaussian(random, centres[random.nextInt(CLUSTERS)], 0.8f));
+            vectorIndex.add(slots[i]);
+        }
+        queries = new float[QUERIES][];
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = VectorArena.normalize(gaussian(random, centres[random.nextInt(CLUSTERS)], 1f));
+        }
+
+        // Measure the quantized scan, not the exact fallback used while codebooks are trained
+        if (vectorIndex instanceof QuantizedVectorIndex quantized) {
+            while (!quantized.isQuantized()) {
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        searchEngine.close();
+    }
+
+    /**
+     * One query-vector dot product, the unit of work of every exact scan
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public float score() {
+        int i = next++ & Integer.MAX_VALUE; // Stays non-negative when the counter wraps
+        return arena.dot(queries[i & (QUERIES - 1)], slots[i % size]);
+    }
+
+    @Benchmark
+    public SearchHits search() {
+        return vectorIndex.search(queries[next++ & (QUERIES - 1)], TOP_K);
+    }
+
+    private VectorIndex createIndex() {
+        switch (index) {
+            case "brute-force":
+                return new BruteForceVectorIndex(arena, searchEngine);
+            case "int8":
+                return new QuantizedVectorIndex(arena, searchEngine, new ScalarQuantizer(), 0, Runnable::run);
+            case "pq":
+                return new QuantizedVectorIndex(arena, searchEngine, new ProductQuantizer(4, 4096), 0, Runnable::run);
+            case "hnsw":
+                return new HnswVectorIndex(arena, 16, 200, 64, 2000, 0.2, Runnable::run);
+            default:
+                throw new IllegalArgumentException("Unknown index: " + index
+                    + " (expected brute-force, int8, pq or hnsw)");
+        }
+    }
+
+    private float[] gaussian(Random random, float[] centre, float spread) {
+        float[] vector = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            vector[d] = (centre == null ? 0f : centre[d]) + (float) random.nextGaussian() * spread;
+        }
+        return vector;
+    }
+}
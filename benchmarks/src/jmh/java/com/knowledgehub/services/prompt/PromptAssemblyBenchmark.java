@@ -0,0 +1,86 @@
+package com.knowledgehub.services.prompt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembling a search prompt the way AIService does: reserve the template and question, add one instruction
+ * per document type, then pack the retrieved chunks into the token budget and read back each type's section.
+ * Dominated by local token counting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PromptAssemblyBenchmark {
+
+    private static final String[] SECTIONS = {"POLICY", "MANUAL", "REPORT"};
+    private static final String[] WORDS = {
+        "employee", "vacation", "policy", "request", "approval", "manager", "days", "quarter", "revenue",
+        "install", "configure", "server", "report", "figures", "growth", "compliance", "security", "access",
+        "the", "a", "of", "to", "and", "for", "with", "must", "should", "each", "per", "annual"
+    };
+
+    @Param({"5", "20", "50"})
+    public int chunks;
+
+    // Roughly the chunk size the chunker produces, in characters
+    @Param({"1000"})
+    public int chunkLength;
+
+    @Param({"6000"})
+    public int maxTokens;
+
+    private TokenCounter tokenCounter;
+    private String template;
+    private String question;
+    private String[] contents;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokenCounter = new TokenCounter("o200k_base");
+        Random random = new Random(42);
+        template = text(random, 600);
+        question = text(random, 120);
+        contents = new String[chunks];
+        for (int i = 0; i < chunks; i++) {
+            contents[i] = text(random, chunkLength);
+        }
+    }
+
+    @Benchmark
+    public int assemble() {
+        PromptBuilder prompt = new PromptBuilder(tokenCounter, maxTokens)
+            .reserve(template)
+            .reserve(question);
+        for (String section : SECTIONS) {
+            prompt.instruction("Guidance for " + section + " documents: answer from the retrieved content only.");
+        }
+        for (int i = 0; i < contents.length; i++) {
+            prompt.candidate(SECTIONS[i % SECTIONS.length], "- Document " + i + " (part 1):\n",
+                contents[i], contents.length - i);
+        }
+        int length = prompt.instructions().length();
+        for (String section : SECTIONS) {
+            length += String.join("\n\n---\n\n", prompt.section(section)).length();
+        }
+        return length;
+    }
+
+    private static String text(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(12) == 0 ? ". " : " ");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.knowledgehub.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.knowledgehub.services.admission.AdmissionLimiter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Creates the concurrency limiter for questions to the model and puts the {@link AdmissionControlFilter}
+ * in front of /api/ai/ask and /api/ai/ask/stream; status and cache statistics are not limited
+ */
+@Configuration
+public class AdmissionControlConfig {
+
+    @Bean
+    public AdmissionLimiter admissionLimiter(
+            @Value("${app.admission.min-concurrent:2}") int minConcurrent,
+            @Value("${app.admission.max-concurrent:16}") int maxConcurrent,
+            @Value("${app.admission.max-queued:32}") int maxQueued,
+            @Value("${app.admission.max-queued-per-user:8}") int maxQueuedPerUser,
+            @Value("${app.admission.adaptive:true}") boolean adaptive) {
+        return new AdmissionLimiter(minConcurrent, maxConcurrent, maxQueued, maxQueuedPerUser, adaptive);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            AdmissionLimiter admissionLimiter,
+            @Value("${app.admission.enabled:true}") boolean enabled,
+            @Value("${app.admission.max-wait-ms:2000}") long maxWaitMillis,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+            new AdmissionControlFilter(admissionLimiter, maxWaitMillis, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/api/ai/ask", "/api/ai/ask/*");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
@@ -0,0 +1,145 @@
+package com.knowledgehub.config;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.knowledgehub.models.DTO.ErrorResponse;
+import com.knowledgehub.services.admission.AdmissionLimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Admission control for the question endpoints, which hold a request for as long as the model takes.
+ * A request gets a slot from the {@link AdmissionLimiter} before it runs, waiting briefly if none is free,
+ * and is rejected with 429 and a Retry-After header when the limiter is saturated, so a burst of questions
+ * cannot take every server thread and stall the rest of the API.
+ *
+ * Requests are queued per user: the authenticated user if there is one, otherwise the HTTP session,
+ * otherwise the client address. Client-chosen headers such as the role header are not used: every caller
+ * sending the same role would share one fair-share queue, and a caller could rotate values to get several.
+ * A streamed answer keeps its slot until the stream ends.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AdmissionLimiter limiter;
+    private final long maxWaitNanos;
+    private final ObjectMapper objectMapper;
+    private final Counter rejectedRequests;
+
+    /**
+     * @param limiter Limiter shared by the filtered endpoints
+     * @param maxWaitMillis Longest time a request waits for a slot (the wait holds a server thread)
+     * @param objectMapper Writes the rejection body
+     * @param meterRegistry Registry for the rejection counter
+     */
+    public AdmissionControlFilter(AdmissionLimiter limiter, long maxWaitMillis, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+        this.objectMapper = objectMapper;
+        this.rejectedRequests = Counter.builder("knowledgehub.admission.rejected")
+            .description("Questions rejected with 429 because the concurrency limit and queue were full")
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain chain) throws ServletException, IOException {
+        AdmissionLimiter.Permit permit;
+        try {
+            permit = limiter.acquire(userKey(request), maxWaitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            permit = null;
+        }
+        if (permit == null) {
+            reject(response);
+            return;
+        }
+
+        boolean completed = false;
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+            if (request.isAsyncStarted()) {
+                // The response is written later (e.g. a streamed answer); keep the slot until it is done
+                request.getAsyncContext().addListener(new PermitReleasingListener(permit, response));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permit.release(completed && response.getStatus() < 500);
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        rejectedRequests.increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(limiter.getRetryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        ErrorResponse error = new ErrorResponse("Too Many Requests",
+            "The assistant is busy answering other questions, please retry later");
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private static String userKey(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "user:" + principal.getName();
+        }
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            return "session:" + session.getId();
+        }
+        // Behind a proxy this is the client's address only if forwarded headers are trusted (server.forward-headers-strategy)
+        return "address:" + request.getRemoteAddr();
+    }
+
+    private static class PermitReleasingListener implements AsyncListener {
+        private final AdmissionLimiter.Permit permit;
+        private final HttpServletResponse response;
+
+        private PermitReleasingListener(AdmissionLimiter.Permit permit, HttpServletResponse response) {
+            this.permit = permit;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.release(response.getStatus() < 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.release(false);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.release(false);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // The same request continues asynchronously; keep listening
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.knowledgehub.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.knowledgehub.services.embedding.EmbeddingProvider;
+import com.knowledgehub.services.embedding.LocalHashingEmbeddingProvider;
+import com.knowledgehub.services.embedding.OpenAiEmbeddingProvider;
+
+/**
+ * Creates the embedding provider selected by app.embedding.provider
+ * (openai for OpenAI's embedding API, local for in-process feature hashing with no network calls)
+ */
+@Configuration
+public class EmbeddingProviderConfig {
+
+    @Bean
+    public EmbeddingProvider embeddingProvider(
+            @Value("${app.embedding.provider:openai}") String providerType,
+            @Value("${spring.ai.openai.api-key}") String apiKey,
+            @Value("${app.embedding.local.dimensions:512}") int localDimensions,
+            @Value("${app.embedding.local.ngram-size:3}") int localNgramSize,
+            @Value("${app.embedding.http.max-attempts:4}") int maxAttempts,
+            @Value("${app.embedding.http.initial-backoff-ms:250}") long initialBackoffMillis,
+            @Value("${app.embedding.http.max-backoff-ms:8000}") long maxBackoffMillis,
+            @Value("${app.embedding.http.hedging.enabled:false}") boolean hedgingEnabled,
+            @Value("${app.embedding.http.hedging.min-delay-ms:200}") long minHedgeDelayMillis,
+            HttpComponentsClientHttpRequestFactory embeddingRequestFactory) {
+        switch (providerType.trim().toLowerCase()) {
+            case "openai":
+                return new OpenAiEmbeddingProvider(new RestTemplate(embeddingRequestFactory), apiKey,
+                    maxAttempts, initialBackoffMillis, maxBackoffMillis, hedgingEnabled, minHedgeDelayMillis);
+            case "local":
+                return new LocalHashingEmbeddingProvider(localDimensions, localNgramSize);
+            default:
+                throw new IllegalArgumentException("Unknown embedding provider: " + providerType
+                    + " (expected openai or local)");
+        }
+    }
+
+    /**
+     * HTTP client for the embedding API: a pool of keep-alive connections, so requests skip the TCP and TLS
+     * handshakes, with connect and read timeouts. Its own retries are off; the provider retries, on status codes too.
+     * The factory closes the client and its connections on shutdown.
+     */
+    @Bean
+    public HttpComponentsClientHttpRequestFactory embeddingRequestFactory(
+            @Value("${app.embedding.http.max-connections:16}") int maxConnections,
+            @Value("${app.embedding.http.connect-timeout-ms:3000}") long connectTimeoutMillis,
+            @Value("${app.embedding.http.read-timeout-ms:30000}") long readTimeoutMillis,
+            @Value("${app.embedding.http.idle-timeout-seconds:60}") long idleTimeoutSeconds) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            // All requests go to one host
+            .setMaxConnPerRoute(maxConnections)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                // A connection idle for a while is checked before reuse, in case the server closed it
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build())
+            .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                // Waiting for a free pooled connection counts as connecting
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                .build())
+            .evictIdleConnections(TimeValue.ofSeconds(idleTimeoutSeconds))
+            .disableAutomaticRetries()
+            .build();
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+}
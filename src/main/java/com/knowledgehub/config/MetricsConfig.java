@@ -0,0 +1,134 @@
+package com.knowledgehub.config;
+
+import com.knowledgehub.services.DocumentMetadataCache;
+import com.knowledgehub.services.EmbeddingService;
+import com.knowledgehub.services.VectorStoreService;
+import com.knowledgehub.services.admission.AdmissionLimiter;
+import com.knowledgehub.services.embedding.EmbeddingCache;
+import com.knowledgehub.services.embedding.QueryEmbeddingCache;
+import com.knowledgehub.services.ingestion.IngestionPipeline;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gauges for the state that sizes the service: what the vector store holds, how much work is queued
+ * and how close questions are to the concurrency limit, plus hit, miss and eviction counts of the caches
+ * in front of the embedding API and the database (knowledgehub.cache.*, tagged with the cache name).
+ * Latency timers and failure counters are registered by the services that do the work;
+ * everything is exported under /actuator/prometheus on the management port (localhost only by default).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder vectorStoreMetrics(VectorStoreService vectorStoreService) {
+        return registry -> {
+            Gauge.builder("knowledgehub.vector.documents", vectorStoreService, VectorStoreService::size)
+                .description("Documents with embedded chunks in the vector store")
+                .register(registry);
+            Gauge.builder("knowledgehub.vector.chunks", vectorStoreService, VectorStoreService::chunkCount)
+                .description("Embedded chunks in the vector store")
+                .register(registry);
+            Gauge.builder("knowledgehub.vector.memory", vectorStoreService, VectorStoreService::getMemoryFootprintBytes)
+                .description("Approximate heap used by stored embeddings and the index")
+                .baseUnit("bytes")
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder queueMetrics(IngestionPipeline ingestionPipeline, EmbeddingService embeddingService) {
+        return registry -> {
+            for (String stage : ingestionPipeline.getQueueDepths().keySet()) {
+                Gauge.builder("knowledgehub.ingestion.queue.depth", ingestionPipeline,
+                        pipeline -> pipeline.getQueueDepths().getOrDefault(stage, 0))
+                    .description("Jobs waiting in front of an ingestion stage")
+                    .tag("stage", stage)
+                    .register(registry);
+            }
+            Gauge.builder("knowledgehub.ingestion.awaiting-embedding", ingestionPipeline,
+                    IngestionPipeline::getAwaitingEmbeddingCount)
+                .description("Saved documents searchable by keyword only, waiting for their embedding to be retried")
+                .register(registry);
+            Gauge.builder("knowledgehub.embedding.pending", embeddingService, EmbeddingService::getPendingBatchSize)
+                .description("Texts waiting to be sent to the embedding provider in a batch")
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder admissionMetrics(AdmissionLimiter admissionLimiter) {
+        return registry -> {
+            Gauge.builder("knowledgehub.admission.limit", admissionLimiter, AdmissionLimiter::getLimit)
+                .description("Questions allowed to run at the same time")
+                .register(registry);
+            Gauge.builder("knowledgehub.admission.in-flight", admissionLimiter, AdmissionLimiter::getInFlight)
+                .description("Questions running")
+                .register(registry);
+            Gauge.builder("knowledgehub.admission.queued", admissionLimiter, AdmissionLimiter::getQueued)
+                .description("Questions waiting for a slot")
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder cacheMetrics(EmbeddingCache embeddingCache, QueryEmbeddingCache queryEmbeddingCache,
+                                    DocumentMetadataCache documentMetadataCache) {
+        return registry -> {
+            // Document embeddings: memory first, then disk, then the API
+            FunctionCounter.builder("knowledgehub.cache.gets", embeddingCache, EmbeddingCache::getMemoryHits)
+                .description("Cache lookups").tags("cache", "embedding", "result", "hit", "tier", "memory")
+                .register(registry);
+            FunctionCounter.builder("knowledgehub.cache.gets", embeddingCache, EmbeddingCache::getDiskHits)
+                .description("Cache lookups").tags("cache", "embedding", "result", "hit", "tier", "disk")
+                .register(registry);
+            FunctionCounter.builder("knowledgehub.cache.gets", embeddingCache, EmbeddingCache::getMisses)
+                .description("Cache lookups").tags("cache", "embedding", "result", "miss", "tier", "disk")
+                .register(registry);
+            FunctionCounter.builder("knowledgehub.cache.evictions", embeddingCache, EmbeddingCache::getEvictions)
+                .description("Entries evicted to stay within the cache's bounds").tags("cache", "embedding", "tier", "memory")
+                .register(registry);
+            FunctionCounter.builder("knowledgehub.cache.evictions", embeddingCache, EmbeddingCache::getDiskEvictions)
+                .description("Entries evicted to stay within the cache's bounds").tags("cache", "embedding", "tier", "disk")
+                .register(registry);
+            FunctionCounter.builder("knowledgehub.cache.errors", embeddingCache, EmbeddingCache::getDiskErrors)
+                .description("Cache files that could not be read or written").tags("cache", "embedding", "tier", "disk")
+                .register(registry);
+            Gauge.builder("knowledgehub.cache.size", embeddingCache, EmbeddingCache::getMemorySize)
+                .description("Entries in the cache").tags("cache", "embedding", "tier", "memory")
+                .register(registry);
+            Gauge.builder("knowledgehub.cache.size", embeddingCache, EmbeddingCache::getDiskSize)
+                .description("Entries in the cache").tags("cache", "embedding", "tier", "disk")
+                .register(registry);
+
+            FunctionCounter.builder("knowledgehub.cache.gets", queryEmbeddingCache, QueryEmbeddingCache::getHits)
+                .description("Cache lookups").tags("cache", "query-embedding", "result", "hit", "tier", "memory")
+                .register(registry);
+            FunctionCounter.builder("knowledgehub.cache.gets", queryEmbeddingCache, QueryEmbeddingCache::getMisses)
+                .description("Cache lookups").tags("cache", "query-embedding", "result", "miss", "tier", "memory")
+                .register(registry);
+            FunctionCounter.builder("knowledgehub.cache.coalesced", queryEmbeddingCache, QueryEmbeddingCache::getCoalesced)
+                .description("Lookups that joined an identical request already in flight").tags("cache", "query-embedding")
+                .register(registry);
+            FunctionCounter.builder("knowledgehub.cache.evictions", queryEmbeddingCache, QueryEmbeddingCache::getEvictions)
+                .description("Entries evicted to stay within the cache's bounds").tags("cache", "query-embedding", "tier", "memory")
+                .register(registry);
+            Gauge.builder("knowledgehub.cache.size", queryEmbeddingCache, QueryEmbeddingCache::size)
+                .description("Entries in the cache").tags("cache", "query-embedding", "tier", "memory")
+                .register(registry);
+
+            FunctionCounter.builder("knowledgehub.cache.gets", documentMetadataCache, DocumentMetadataCache::getHits)
+                .description("Cache lookups").tags("cache", "document-metadata", "result", "hit", "tier", "memory")
+                .register(registry);
+            FunctionCounter.builder("knowledgehub.cache.gets", documentMetadataCache, DocumentMetadataCache::getMisses)
+                .description("Cache lookups").tags("cache", "document-metadata", "result", "miss", "tier", "memory")
+                .register(registry);
+            Gauge.builder("knowledgehub.cache.size", documentMetadataCache, DocumentMetadataCache::size)
+                .description("Entries in the cache").tags("cache", "document-metadata", "tier", "memory")
+                .register(registry);
+        };
+    }
+}
@@ -22,7 +22,9 @@ public class SecurityInterceptor implements HandlerInterceptor {
                 return false; 
             }
         }
-        if (method.equals("POST") && request.getRequestURI().contains("/api/document/uploadDocument")) {
+        // Single-request and resumable uploads are both limited to admins
+        if ((method.equals("POST") || method.equals("PUT")) && (request.getRequestURI().contains("/api/document/uploadDocument")
+                || request.getRequestURI().contains("/api/document/uploads"))) {
             if (!"ADMIN".equalsIgnoreCase(role)) {
                 response.sendError(HttpServletResponse.SC_FORBIDDEN, "Only ADMIN can perform this action");
                 return false; 
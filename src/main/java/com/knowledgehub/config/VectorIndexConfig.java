@@ -0,0 +1,178 @@
+package com.knowledgehub.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.knowledgehub.services.embedding.EmbeddingProvider;
+import com.knowledgehub.services.index.Bm25Index;
+import com.knowledgehub.services.index.BruteForceVectorIndex;
+import com.knowledgehub.services.index.ExactSearchEngine;
+import com.knowledgehub.services.index.HnswVectorIndex;
+import com.knowledgehub.services.index.PartitionedVectorIndex;
+import com.knowledgehub.services.index.ProductQuantizer;
+import com.knowledgehub.services.index.QuantizedVectorIndex;
+import com.knowledgehub.services.index.ScalarQuantizer;
+import com.knowledgehub.services.index.VectorArena;
+import com.knowledgehub.services.index.VectorIndex;
+import com.knowledgehub.services.index.VectorQuantizer;
+import com.knowledgehub.services.index.VectorSnapshotStore;
+
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Creates the vector arena and the similarity index selected by app.vector.index
+ * (brute-force for exact search, hnsw for approximate nearest-neighbour search), partitioned by document type,
+ * optionally scanning quantized codes (app.vector.quantization) and keeping vectors in a mapped file (app.vector.storage),
+ * plus the on-disk snapshot the vector store is restored from at startup
+ * and the BM25 keyword index kept over the same chunks
+ */
+@Configuration
+public class VectorIndexConfig {
+
+    /**
+     * Full-precision vectors, on the heap or in a memory-mapped scratch file.
+     * Quantized codes are meant to replace the full vectors in memory, so with quantization on the vectors
+     * are mapped (auto) and keeping them on the heap as well is refused.
+     */
+    @Bean
+    public VectorArena vectorArena(
+            @Value("${app.vector.storage:auto}") String storage,
+            @Value("${app.vector.storage.file:vector-storage/vectors.raw}") String storageFile,
+            @Value("${app.vector.quantization:none}") String quantization) {
+        boolean quantized = !"none".equals(quantization.trim().toLowerCase());
+        switch (storage.trim().toLowerCase()) {
+            case "auto":
+                return quantized ? new VectorArena(Paths.get(storageFile)) : new VectorArena();
+            case "heap":
+                if (quantized) {
+                    throw new IllegalArgumentException("Vector quantization requires app.vector.storage=mapped"
+                        + " (or auto); on the heap the codes only add to the full vectors");
+                }
+                return new VectorArena();
+            case "mapped":
+                return new VectorArena(Paths.get(storageFile));
+            default:
+                throw new IllegalArgumentException("Unknown vector storage: " + storage
+                    + " (expected auto, heap or mapped)");
+        }
+    }
+
+    /**
+     * Exact top-K scan used by brute-force search; large stores are partitioned across a ForkJoin pool
+     */
+    @Bean
+    public ExactSearchEngine exactSearchEngine(
+            @Value("${app.vector.search.parallelism:0}") int parallelism,
+            @Value("${app.vector.search.parallel-threshold:20000}") int parallelThreshold) {
+        return new ExactSearchEngine(parallelism, parallelThreshold);
+    }
+
+    /**
+     * Background work of the indexes (HNSW compaction, quantizer training), kept off request threads
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService vectorIndexMaintenanceExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vector-index-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * One index per document type; each partition is an index of the configured kind over the shared arena
+     */
+    @Bean
+    public PartitionedVectorIndex vectorIndex(
+            VectorArena vectorArena,
+            ExactSearchEngine exactSearchEngine,
+            ExecutorService vectorIndexMaintenanceExecutor,
+            @Value("${app.vector.index:brute-force}") String indexType,
+            @Value("${app.vector.hnsw.m:16}") int m,
+            @Value("${app.vector.hnsw.ef-construction:200}") int efConstruction,
+            @Value("${app.vector.hnsw.ef-search:64}") int efSearch,
+            @Value("${app.vector.hnsw.exact-search-threshold:2000}") int exactSearchThreshold,
+            @Value("${app.vector.hnsw.compaction-ratio:0.2}") double compactionRatio,
+            @Value("${app.vector.quantization:none}") String quantization,
+            @Value("${app.vector.quantization.rescore-multiplier:0}") int rescoreMultiplier,
+            @Value("${app.vector.quantization.pq.subvector-dims:4}") int subvectorDims,
+            @Value("${app.vector.quantization.pq.training-size:4096}") int trainingSize) {
+        // Settings are checked here, at startup, rather than when the first partition is created
+        boolean quantized = quantizer(quantization, subvectorDims, trainingSize) != null;
+        Supplier<VectorIndex> partitionFactory;
+        switch (indexType.trim().toLowerCase()) {
+            case "brute-force":
+                if (quantized) {
+                    // Every partition trains its own codebooks
+                    partitionFactory = () -> new QuantizedVectorIndex(vectorArena, exactSearchEngine,
+                        quantizer(quantization, subvectorDims, trainingSize), rescoreMultiplier,
+                        vectorIndexMaintenanceExecutor);
+                } else {
+                    partitionFactory = () -> new BruteForceVectorIndex(vectorArena, exactSearchEngine);
+                }
+                break;
+            case "hnsw":
+                if (quantized) {
+                    throw new IllegalArgumentException("Vector quantization requires app.vector.index=brute-force");
+                }
+                partitionFactory = () -> new HnswVectorIndex(vectorArena, m, efConstruction, efSearch,
+                    exactSearchThreshold, compactionRatio, vectorIndexMaintenanceExecutor);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown vector index type: " + indexType
+                    + " (expected brute-force or hnsw)");
+        }
+        return new PartitionedVectorIndex(partitionFactory);
+    }
+
+    /**
+     * The quantizer selected by app.vector.quantization, or null for none
+     */
+    private static VectorQuantizer quantizer(String quantization, int subvectorDims, int trainingSize) {
+        switch (quantization.trim().toLowerCase()) {
+            case "none":
+                return null;
+            case "int8":
+                return new ScalarQuantizer();
+            case "pq":
+                return new ProductQuantizer(subvectorDims, trainingSize);
+            default:
+                throw new IllegalArgumentException("Unknown vector quantization: " + quantization
+                    + " (expected none, int8 or pq)");
+        }
+    }
+
+    /**
+     * Keyword index over chunk text, used by lexical and hybrid retrieval and while nothing is embedded yet
+     */
+    @Bean
+    public Bm25Index bm25Index(
+            @Value("${app.retrieval.bm25.k1:1.2}") float k1,
+            @Value("${app.retrieval.bm25.b:0.75}") float b) {
+        return new Bm25Index(k1, b);
+    }
+
+    /**
+     * Snapshot and mutation log under app.vector.snapshot.dir; a fresh snapshot is written once the log passes max-log-mb.
+     * Log records are forced to disk every log-sync-interval-ms (0 = after every record, -1 = never).
+     * Each embedding model gets its own subdirectory, so switching providers never restores vectors from another model.
+     */
+    @Bean
+    public VectorSnapshotStore vectorSnapshotStore(
+            EmbeddingProvider embeddingProvider,
+            @Value("${app.vector.snapshot.enabled:true}") boolean enabled,
+            @Value("${app.vector.snapshot.dir:vector-index}") String directory,
+            @Value("${app.vector.snapshot.max-log-mb:64}") long maxLogMegabytes,
+            @Value("${app.vector.snapshot.log-sync-interval-ms:1000}") long syncIntervalMillis) {
+        if (!enabled) {
+            return VectorSnapshotStore.disabled();
+        }
+        String modelDirectory = embeddingProvider.getModel() + "-" + embeddingProvider.getDimensions();
+        return new VectorSnapshotStore(Paths.get(directory, modelDirectory), maxLogMegabytes * 1024 * 1024,
+            syncIntervalMillis);
+    }
+}
@@ -2,41 +2,168 @@ package com.knowledgehub.config;
 
 import com.knowledgehub.models.Document;
 import com.knowledgehub.repositories.DocumentRepository;
+import com.knowledgehub.services.VectorStoreReadiness;
 import com.knowledgehub.services.VectorStoreService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Initializes the vector store with existing documents on application startup
+ * Initializes the vector store on application startup: restores the on-disk snapshot and
+ * re-indexes only the documents whose database row changed since it was written.
+ * The snapshot is restored while the context starts, before the web server accepts uploads,
+ * so no mutation can race with it and restored chunk ids are never handed out again.
+ * Re-indexing runs in the background so the application serves requests right away;
+ * progress is tracked by {@link VectorStoreReadiness}.
  */
 @Component
-public class VectorStoreInitializer implements CommandLineRunner {
+public class VectorStoreInitializer implements SmartInitializingSingleton, CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorStoreInitializer.class);
 
     @Autowired
     private DocumentRepository documentRepository;
     
     @Autowired
     private VectorStoreService vectorStoreService;
-
+    
+    @Autowired
+    private VectorStoreReadiness readiness;
+    
+    // Documents loaded from the database per query
+    @Value("${app.vector.warmup.page-size:50}")
+    private int pageSize;
+    
+    // Documents embedded at the same time; their chunks share embedding batches
+    @Value("${app.vector.warmup.parallelism:4}")
+    private int parallelism;
+    
+    // documentId -> version of every document restored from the snapshot
+    private Map<Long, Long> restoredVersions = Map.of();
+    
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Restore what was indexed before the last shutdown
+        readiness.restoring();
+        restoredVersions = vectorStoreService.restoreFromSnapshot();
+    }
+    
     @Override
     public void run(String... args) throws Exception {
-        // Load all existing documents into vector store
-        List<Document> allDocuments = documentRepository.findAll();
-        
-        System.out.println("Initializing vector store with " + allDocuments.size() + " documents...");
-        
-        for (Document doc : allDocuments) {
-            try {
-                vectorStoreService.addDocument(doc);
-            } catch (Exception e) {
-                System.err.println("Warning: Failed to add document " + doc.getId() + " to vector store: " + e.getMessage());
+        Thread warmup = new Thread(this::warmUp, "vector-store-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+
+    private void warmUp() {
+        try {
+            // Only re-index what changed since the snapshot was written
+            List<DocumentRepository.DocumentVersion> versions = documentRepository.findAllVersions();
+            
+            Set<Long> existingIds = new HashSet<>();
+            List<DocumentRepository.DocumentVersion> changed = new ArrayList<>();
+            for (DocumentRepository.DocumentVersion version : versions) {
+                existingIds.add(version.getId());
+                Long restored = restoredVersions.get(version.getId());
+                if (restored == null || restored != VectorStoreService.versionOf(version.getUpdatedAt())) {
+                    changed.add(version);
+                }
+            }
+            
+            // Documents deleted while the application was down
+            for (Long documentId : restoredVersions.keySet()) {
+                if (!existingIds.contains(documentId)) {
+                    vectorStoreService.removeDocument(documentId);
+                }
+            }
+            
+            // Most recently updated first, since those are the likeliest to be asked about
+            changed.sort(Comparator.comparing(DocumentRepository.DocumentVersion::getUpdatedAt,
+                Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder())));
+            List<Long> changedIds = new ArrayList<>(changed.size());
+            for (DocumentRepository.DocumentVersion version : changed) {
+                changedIds.add(version.getId());
+            }
+            
+            log.info("Initializing vector store with {} documents ({} restored from snapshot, {} to index)",
+                versions.size(), restoredVersions.size(), changedIds.size());
+            readiness.indexing(restoredVersions.size(), changedIds.size());
+            
+            indexDocuments(changedIds);
+            
+            // A document deleted while warm-up was embedding it may have been added back
+            Set<Long> stillExisting = new HashSet<>();
+            for (DocumentRepository.DocumentVersion version : documentRepository.findAllVersions()) {
+                stillExisting.add(version.getId());
+            }
+            for (Long documentId : vectorStoreService.getIndexedDocumentIds()) {
+                if (!stillExisting.contains(documentId)) {
+                    vectorStoreService.removeDocument(documentId);
+                }
             }
+            
+            // Fold the replayed log and the reconciled changes into a fresh snapshot
+            vectorStoreService.checkpoint();
+            readiness.ready();
+            
+            log.info("Vector store initialized with {} documents", vectorStoreService.size());
+        } catch (Exception e) {
+            readiness.failed();
+            log.warn("Vector store warm-up failed", e);
         }
-        
-        System.out.println("Vector store initialized with " + vectorStoreService.size() + " documents.");
     }
-}
 
+    /**
+     * Load documents a page at a time and embed them with bounded parallelism,
+     * so only a few pages of content are held in memory at once
+     */
+    private void indexDocuments(List<Long> documentIds) throws InterruptedException {
+        int threads = Math.max(1, parallelism);
+        int batchSize = Math.max(1, pageSize);
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "vector-store-warmup-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Keeps the loader from reading pages faster than the workers embed them
+        Semaphore inFlight = new Semaphore(threads * 2);
+        try {
+            for (int from = 0; from < documentIds.size(); from += batchSize) {
+                List<Long> page = documentIds.subList(from, Math.min(from + batchSize, documentIds.size()));
+                for (Document doc : documentRepository.findAllById(page)) {
+                    inFlight.acquire();
+                    workers.execute(() -> {
+                        try {
+                            vectorStoreService.addDocument(doc);
+                            readiness.documentIndexed();
+                        } catch (Exception e) {
+                            readiness.documentFailed();
+                            log.warn("Failed to add document {} to vector store: {}", doc.getId(), e.getMessage());
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -1,16 +1,34 @@
 package com.knowledgehub.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.knowledgehub.models.DTO.AnswerCacheStatsResponse;
+import com.knowledgehub.models.DTO.AnswerDebugResponse;
+import com.knowledgehub.models.DTO.AnswerStreamMetadata;
 import com.knowledgehub.models.DTO.ErrorResponse;
+import com.knowledgehub.models.DTO.IndexStatusResponse;
+import com.knowledgehub.models.DTO.RequestTraceResponse;
 import com.knowledgehub.services.AIService;
+import com.knowledgehub.services.SemanticAnswerCache;
+import com.knowledgehub.services.VectorStoreReadiness;
+import com.knowledgehub.services.VectorStoreService;
+import com.knowledgehub.services.trace.RequestTrace;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @RestController
 @RequestMapping("/api/ai")
@@ -19,17 +37,59 @@ public class AIController {
 
     @Autowired
     private AIService aiService;
+    
+    @Autowired
+    private VectorStoreReadiness readiness;
+    
+    @Autowired
+    private VectorStoreService vectorStoreService;
+    
+    @Autowired
+    private SemanticAnswerCache answerCache;
+    
+    @Value("${app.trace.server-timing.enabled:true}")
+    private boolean serverTimingEnabled;
+    
+    @Value("${app.trace.debug-enabled:false}")
+    private boolean debugTraceEnabled;
 
+    /**
+     * Answer a question about the documents.
+     * Send X-Cache-Bypass: true to force a fresh answer; X-Answer-Cache on the response tells whether the cache was used.
+     * Server-Timing on the response breaks the time down by stage (match, db, embed, search, cache, prompt, llm).
+     * Send X-Debug-Trace: true to get JSON instead of plain text: the answer plus the retrieved chunks with their
+     * scores and the prompt's token counts. Ignored unless app.trace.debug-enabled is set.
+     */
     @PostMapping("/ask")
-    public ResponseEntity<Object> ask(@RequestBody String message) {
+    public ResponseEntity<Object> ask(
+            @RequestBody String message,
+            @RequestHeader(value = "X-Cache-Bypass", defaultValue = "false") boolean bypassCache,
+            @RequestHeader(value = "X-Debug-Trace", defaultValue = "false") boolean debug) {
+        boolean detailed = debug && debugTraceEnabled;
         try {
+            RequestTrace trace = RequestTrace.start(detailed);
             if (message == null || message.trim().isEmpty()) {
                 return ResponseEntity.badRequest()
                     .body(new ErrorResponse("Message cannot be null or empty"));
             }
             
-            String answer = aiService.askAboutDocuments(message);
-            return ResponseEntity.ok(answer);
+            // Captured before answering: the answer may only cover documents indexed so far
+            boolean partialIndex = !readiness.isReady();
+            AIService.Answer answer = aiService.answer(message, bypassCache);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("X-Answer-Cache", answer.getCacheStatus().name());
+            if (partialIndex) {
+                response.header("X-Index-Partial", "true")
+                    .header("X-Index-Progress", readiness.getProgress());
+            }
+            if (serverTimingEnabled) {
+                response.header("Server-Timing", trace.toServerTiming());
+            }
+            if (detailed) {
+                return response.contentType(MediaType.APPLICATION_JSON).body(new AnswerDebugResponse(answer.getText(),
+                    answer.getCacheStatus().name(), answer.getSources(), trace.toResponse()));
+            }
+            return response.body(answer.getText());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                 .body(new ErrorResponse(e.getMessage()));
@@ -39,6 +99,93 @@ public class AIController {
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ErrorResponse("An unexpected error occurred: " + e.getMessage()));
+        } finally {
+            RequestTrace.end();
+        }
+    }
+
+    /**
+     * Answer a question as Server-Sent Events, so text shows up while it is being generated.
+     * Events: "metadata" (the matched documents, sent first), then "token" for each piece of the answer,
+     * then "done"; or "error" with an ErrorResponse if answering fails.
+     * If the client disconnects, the subscription is cancelled and so is the request to the model.
+     * Headers are sent before retrieval runs, so with X-Debug-Trace: true the retrieval trace comes
+     * in the metadata event instead of a Server-Timing header.
+     */
+    @PostMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> askStream(
+            @RequestBody String message,
+            @RequestHeader(value = "X-Cache-Bypass", defaultValue = "false") boolean bypassCache,
+            @RequestHeader(value = "X-Debug-Trace", defaultValue = "false") boolean debug) {
+        if (message == null || message.trim().isEmpty()) {
+            return Flux.just(errorEvent("Message cannot be null or empty"));
+        }
+        
+        // Captured before answering: the answer may only cover documents indexed so far
+        boolean partialIndex = !readiness.isReady();
+        String indexProgress = partialIndex ? readiness.getProgress() : null;
+        
+        // Retrieval blocks on the embedding call, so run it off the request thread
+        boolean detailed = debug && debugTraceEnabled;
+        return Mono.fromCallable(() -> tracedStreamAnswer(message, bypassCache, detailed))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(traced -> {
+                AIService.AnswerStream answer = traced.answer;
+                AnswerStreamMetadata metadata = new AnswerStreamMetadata(answer.getSources(),
+                    answer.getCacheStatus().name(), partialIndex, indexProgress, traced.trace);
+                return Flux.concat(
+                    Flux.just(ServerSentEvent.<Object>builder(metadata).event("metadata").build()),
+                    answer.getTokens().map(token -> ServerSentEvent.<Object>builder(token).event("token").build()),
+                    Flux.just(ServerSentEvent.<Object>builder("").event("done").build()));
+            })
+            .onErrorResume(e -> Flux.just(errorEvent(e.getMessage())));
+    }
+
+    /**
+     * Vector store warm-up status; 503 until every document is searchable, so it can back a readiness probe
+     */
+    @GetMapping("/status")
+    public ResponseEntity<IndexStatusResponse> status() {
+        IndexStatusResponse status = readiness.getStatus(vectorStoreService.size());
+        HttpStatus httpStatus = status.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(httpStatus).body(status);
+    }
+
+    /**
+     * Answer cache hit rate and size
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<AnswerCacheStatsResponse> cacheStats() {
+        return ResponseEntity.ok(answerCache.getStats());
+    }
+
+    /**
+     * Retrieve for a streamed answer, tracing it on the calling thread when a detailed trace was asked for
+     */
+    private TracedAnswer tracedStreamAnswer(String message, boolean bypassCache, boolean detailed) {
+        if (!detailed) {
+            return new TracedAnswer(aiService.streamAnswer(message, bypassCache), null);
+        }
+        RequestTrace trace = RequestTrace.start(true);
+        try {
+            AIService.AnswerStream answer = aiService.streamAnswer(message, bypassCache);
+            return new TracedAnswer(answer, trace.toResponse());
+        } finally {
+            RequestTrace.end();
+        }
+    }
+
+    private ServerSentEvent<Object> errorEvent(String message) {
+        return ServerSentEvent.<Object>builder(new ErrorResponse(message)).event("error").build();
+    }
+
+    private static class TracedAnswer {
+        private final AIService.AnswerStream answer;
+        private final RequestTraceResponse trace; // Null unless a detailed trace was asked for
+
+        private TracedAnswer(AIService.AnswerStream answer, RequestTraceResponse trace) {
+            this.answer = answer;
+            this.trace = trace;
         }
     }
 }
@@ -1,10 +1,15 @@
 package com.knowledgehub.controller;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import com.knowledgehub.models.*;
+import com.knowledgehub.models.DTO.IngestionJobResponse;
 import com.knowledgehub.services.DocumentService;
+import com.knowledgehub.services.ingestion.IngestionJob;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -35,12 +40,26 @@ public class DocumentController {
             if (type == null) {
                 return ResponseEntity.badRequest().body("Document type is required (POLICY, REPORT, or MANUAL)");
             }
-            Document document = documentService.saveDocument(file, type);
-            return ResponseEntity.ok(document);
+            // Processing continues in the background; poll the job for the result
+            IngestionJob job = documentService.saveDocument(file, type);
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/document/jobs/" + job.getId()))
+                .body(toJobResponse(job));
         } catch (IOException e) {
             return ResponseEntity.internalServerError().body("Error saving file: " + e.getMessage());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<IngestionJobResponse> getJob(@PathVariable("id") String id) {
+        try {
+            return ResponseEntity.ok(toJobResponse(documentService.getIngestionJob(id)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
         }
     }
 
@@ -67,4 +86,18 @@ public class DocumentController {
         Document document = documentService.getDocumentByName(name);
         return ResponseEntity.ok(document);
     }
+
+    static IngestionJobResponse toJobResponse(IngestionJob job) {
+        return new IngestionJobResponse(
+            job.getId(),
+            job.getStatus().name(),
+            job.getFileName(),
+            job.getType(),
+            job.getChecksum(),
+            job.getDocumentId(),
+            job.getError(),
+            job.getSubmittedAt(),
+            job.getFinishedAt()
+        );
+    }
 }
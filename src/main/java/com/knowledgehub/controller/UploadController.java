@@ -0,0 +1,113 @@
+package com.knowledgehub.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.knowledgehub.models.DTO.CreateUploadRequest;
+import com.knowledgehub.models.DTO.ErrorResponse;
+import com.knowledgehub.models.DTO.UploadSessionResponse;
+import com.knowledgehub.services.ingestion.IngestionJob;
+import com.knowledgehub.services.upload.ResumableUploadService;
+import com.knowledgehub.services.upload.UploadOffsetMismatchException;
+import com.knowledgehub.services.upload.UploadSession;
+import com.knowledgehub.services.upload.UploadTooLargeException;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resumable uploads for large Word files:
+ * create a session, PUT the file in pieces with an Upload-Offset header, then complete it.
+ * After a failed piece, GET the session to find the offset to resume from.
+ */
+@CrossOrigin(origins = "http://localhost:3000")
+@RestController
+@RequestMapping("/api/document/uploads")
+public class UploadController {
+
+    @Autowired
+    private ResumableUploadService uploadService;
+
+    @PostMapping
+    public ResponseEntity<Object> createUpload(@RequestBody CreateUploadRequest request) {
+        try {
+            UploadSession session = uploadService.create(request.getFileName(), request.getType(), request.getTotalSize());
+            return ResponseEntity.created(URI.create("/api/document/uploads/" + session.getId()))
+                .body(toResponse(session));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(new ErrorResponse("Error creating upload: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSessionResponse> getUpload(@PathVariable("id") String id) {
+        return uploadService.get(id)
+            .map(session -> ResponseEntity.ok(toResponse(session)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Object> appendPiece(
+            @PathVariable("id") String id,
+            @RequestHeader("Upload-Offset") long offset,
+            HttpServletRequest request) {
+        // Read the body straight from the request so the piece is never buffered whole
+        try (InputStream body = request.getInputStream()) {
+            UploadSession session = uploadService.append(id, offset, body);
+            return ResponseEntity.ok(toResponse(session));
+        } catch (UploadOffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(toResponse(e.getSession()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (UploadTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(new ErrorResponse(e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(new ErrorResponse("Error storing upload: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<Object> completeUpload(
+            @PathVariable("id") String id,
+            @RequestParam(value = "checksum", required = false) String checksum) {
+        try {
+            IngestionJob job = uploadService.complete(id, checksum);
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/document/jobs/" + job.getId()))
+                .body(DocumentController.toJobResponse(job));
+        } catch (UploadOffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(toResponse(e.getSession()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ErrorResponse(e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(new ErrorResponse("Error completing upload: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> abortUpload(@PathVariable("id") String id) {
+        uploadService.abort(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session) {
+        return new UploadSessionResponse(
+            session.getId(),
+            session.getFileName(),
+            session.getType(),
+            session.getTotalSize(),
+            session.getReceivedBytes(),
+            session.isComplete()
+        );
+    }
+}
@@ -0,0 +1,19 @@
+package com.knowledgehub.models.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnswerCacheStatsResponse {
+    private boolean enabled;
+    private long hits;
+    private long misses;
+    private long bypasses; // Requests that skipped the cache via the bypass header
+    private long invalidations; // Entries dropped because a document changed
+    private long evictions; // Entries dropped for size or age
+    private int entries;
+    private double hitRate; // hits / (hits + misses)
+}
@@ -0,0 +1,20 @@
+package com.knowledgehub.models.DTO;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Answer to a question asked with X-Debug-Trace: true, returned as JSON instead of plain text
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnswerDebugResponse {
+    private String answer;
+    private String answerCache; // HIT, MISS, BYPASS or NONE, as in the X-Answer-Cache header
+    private List<SourceDocument> documents;
+    private RequestTraceResponse trace;
+}
@@ -0,0 +1,21 @@
+package com.knowledgehub.models.DTO;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * First event of a streamed answer, sent before any of the answer text
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnswerStreamMetadata {
+    private List<SourceDocument> documents; // Documents the answer is based on
+    private String answerCache; // HIT, MISS, BYPASS or NONE, as in the X-Answer-Cache header
+    private boolean indexPartial; // True while the vector store is still warming up
+    private String indexProgress; // Indexed/total documents while warming up, otherwise null
+    private RequestTraceResponse trace; // Stage timings and retrieved chunks with X-Debug-Trace: true, otherwise null
+}
@@ -0,0 +1,19 @@
+package com.knowledgehub.models.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexStatusResponse {
+    private String phase;
+    private boolean ready;
+    private int searchableDocuments; // Documents currently in the vector store
+    private int restoredDocuments; // Loaded from the on-disk snapshot
+    private int documentsToIndex; // New or changed since the snapshot
+    private int indexedDocuments;
+    private int failedDocuments;
+    private long elapsedMillis;
+}
@@ -0,0 +1,24 @@
+package com.knowledgehub.models.DTO;
+
+import java.time.LocalDateTime;
+
+import com.knowledgehub.models.DocumentType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionJobResponse {
+    private String jobId;
+    private String status; // QUEUED, EXTRACTING, PERSISTING, CHUNKING, EMBEDDING, COMPLETED, PARTIALLY_INDEXED or FAILED
+    private String fileName;
+    private DocumentType type;
+    private String checksum; // SHA-256 of the uploaded file
+    private Long documentId; // Set once the document has been saved
+    private String error;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,25 @@
+package com.knowledgehub.models.DTO;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Where the time of one request went, and what retrieval and prompt assembly did for it.
+ * Returned when a question is asked with X-Debug-Trace: true.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestTraceResponse {
+    private double totalMillis;
+    private Map<String, Double> stageMillis; // Stage -> time spent in it, in the order stages first ran
+    private List<RetrievedChunkTrace> retrieved;
+    private Integer promptTokens; // Tokens in the system prompt and question; null if no prompt was built
+    private Integer promptBudget; // app.prompt.max-context-tokens
+    private Integer droppedCandidates; // Retrieved content left out because the budget was spent
+    private Integer duplicateCandidates; // Retrieved content left out because it repeated selected content
+}
@@ -0,0 +1,23 @@
+package com.knowledgehub.models.DTO;
+
+import com.knowledgehub.models.DocumentType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A chunk returned by one of the searches behind an answer, with its score in that search
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetrievedChunkTrace {
+    private String search; // vector, lexical, type or document
+    private Long documentId;
+    private String documentName;
+    private DocumentType documentType;
+    private Long chunkId;
+    private float score; // Cosine similarity for vector, type and document searches, BM25 score for lexical
+    private boolean selected; // True if the chunk was offered to the prompt
+}
@@ -0,0 +1,16 @@
+package com.knowledgehub.models.DTO;
+
+import com.knowledgehub.models.DocumentType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SourceDocument {
+    private Long id;
+    private String name;
+    private DocumentType type;
+}
@@ -0,0 +1,19 @@
+package com.knowledgehub.models.DTO;
+
+import com.knowledgehub.models.DocumentType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionResponse {
+    private String uploadId;
+    private String fileName;
+    private DocumentType type;
+    private long totalSize;
+    private long receivedBytes; // Offset the next piece must start at
+    private boolean complete;
+}
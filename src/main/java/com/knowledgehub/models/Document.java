@@ -1,18 +1,29 @@
 package com.knowledgehub.models;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.Data;
 
 @Data
 @Entity
 @Table(name = "documents")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public abstract class Document {
     
     @Id
@@ -31,10 +42,44 @@ public abstract class Document {
     @Column(nullable = false)
     private Long size;
     
+    // SHA-256 of the uploaded file (hex), computed while it was streamed to disk
+    @Column(length = 64)
+    private String checksum;
+    
     @Column(nullable = false)
     private LocalDateTime createdAt;
+    
+    // Set on every insert and update; the vector store snapshot compares it to find changed rows
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void touchUpdatedAt() {
+        // Millisecond precision survives the database round trip unchanged
+        updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Guidance for answering from documents of this type, without the document itself.
+     * It is the same for every document of a type, so a prompt needs it only once per type.
+     * @return Instruction text
+     */
+    @JsonIgnore
+    public abstract String getTypeInstruction();
+
+    /**
+     * Type instruction followed by this document's name and full content
+     * @return Instruction text
+     */
+    public String getSpecialInstruction() {
+        return "\n" + getTypeInstruction() + """
+
+        Document: %s
 
-    public abstract String getSpecialInstruction(); 
+        Document Content:
+        %s
+        """.formatted(getName(), getContent());
+    }
 
     public abstract DocumentType getType();
 
@@ -0,0 +1,21 @@
+package com.knowledgehub.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The parts of a document needed to build prompts, without its content
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentMetadata {
+    private Long id;
+    private String name;
+    private DocumentType type;
+    private LocalDateTime updatedAt;
+    private String specialInstruction; // From the document type's getTypeInstruction(), without the document itself
+}
@@ -22,17 +22,11 @@ public class ManualDocument extends Document {
     }
 
     @Override
-    public String getSpecialInstruction() {
+    public String getTypeInstruction() {
         return """
-        
         Your answers must be strictly based on the specific sections and headings of the provided documents. 
         When providing guidance or 'how-to' information from a Manual, you MUST format your response as a numbered list (1, 2, 3...). 
         For Reports, include concise summaries and use bold text to highlight key data points.
-        
-        Document: %s
-        
-        Document Content:
-        %s
-        """.formatted(this.getName(), this.getContent());
+        """;
     }
 }
\ No newline at end of file
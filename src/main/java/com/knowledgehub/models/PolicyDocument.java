@@ -22,16 +22,10 @@ public class PolicyDocument extends Document {
     }
 
     @Override
-    public String getSpecialInstruction() {
+    public String getTypeInstruction() {
         return """
-
         Your answers must be strictly based on the specific sections and headings of the provided documents. 
         When responding, you should include concise summaries and highlight key data points where relevant to ensure professional clarity and structured insight.
-        
-        Document: %s
-        
-        Document Content:
-        %s
-        """.formatted(this.getName(), this.getContent());
+        """;
     }
 }
\ No newline at end of file
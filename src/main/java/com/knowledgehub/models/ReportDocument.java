@@ -22,18 +22,12 @@ public class ReportDocument extends Document {
     }
 
     @Override
-    public String getSpecialInstruction() {
+    public String getTypeInstruction() {
         return """
-
         You are a helpful assistant for the Knowledge Hub system.
         Answer the user's question based ONLY on the following document.
         Your answers must be strictly based on the specific sections and headings of the provided text.
         Prioritize the hierarchical structure of the document when formulating your response
-        
-        Document: %s
-        
-        Document Content:
-        %s
-        """.formatted(this.getName(), this.getContent());
+        """;
     }
 }
\ No newline at end of file
@@ -7,7 +7,8 @@ import lombok.NoArgsConstructor;
 import java.util.List;
 
 /**
- * Represents a document with its embedding vector for vector search
+ * Represents an indexed chunk of a document for vector search.
+ * documentId links the chunk back to its parent document; content holds only the chunk text.
  */
 @Data
 @NoArgsConstructor
@@ -17,8 +18,10 @@ public class VectorDocument {
     private String documentName;
     private String content;
     private DocumentType documentType;
-    private List<Double> embedding;
+    private List<Double> embedding; // Not retained by VectorStoreService, which keeps vectors in a VectorArena
     private String metadata; // JSON string for additional metadata
+    private Long chunkId; // Key of this chunk in the vector store
+    private int chunkIndex; // Position of the chunk within its document (0-based)
     
     public VectorDocument(Long documentId, String documentName, String content, 
                          DocumentType documentType, List<Double> embedding) {
@@ -1,6 +1,7 @@
 package com.knowledgehub.repositories;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,4 +36,39 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     @Query("SELECT d FROM Document d WHERE d.name LIKE %:pattern%")
     List<Document> findByNamePattern(@Param("pattern") String pattern);
     
+    // Id and last update time of every document, without loading content
+    @Query("SELECT d.id AS id, d.updatedAt AS updatedAt FROM Document d")
+    List<DocumentVersion> findAllVersions();
+    
+    interface DocumentVersion {
+        Long getId();
+        
+        LocalDateTime getUpdatedAt();
+    }
+    
+    // Id and name of every document, without loading content
+    @Query("SELECT d.id AS id, d.name AS name FROM Document d")
+    List<DocumentName> findAllNames();
+    
+    interface DocumentName {
+        Long getId();
+        
+        String getName();
+    }
+    
+    // Metadata of the given documents in one query, without loading content
+    @Query("SELECT d.id AS id, d.name AS name, d.updatedAt AS updatedAt, TYPE(d) AS documentClass "
+         + "FROM Document d WHERE d.id IN :ids")
+    List<DocumentSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    interface DocumentSummary {
+        Long getId();
+        
+        String getName();
+        
+        LocalDateTime getUpdatedAt();
+        
+        Class<?> getDocumentClass();
+    }
+    
 }
@@ -1,22 +1,37 @@
 package com.knowledgehub.services;
 
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.ChatClient.Builder;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
 import com.knowledgehub.models.Document;
+import com.knowledgehub.models.DocumentMetadata;
 import com.knowledgehub.models.DocumentType;
-import com.knowledgehub.models.ManualDocument;
-import com.knowledgehub.models.PolicyDocument;
-import com.knowledgehub.models.ReportDocument;
 import com.knowledgehub.models.VectorDocument;
+import com.knowledgehub.models.DTO.SourceDocument;
 import com.knowledgehub.repositories.DocumentRepository;
+import com.knowledgehub.services.index.VectorArena;
+import com.knowledgehub.services.prompt.PromptBuilder;
+import com.knowledgehub.services.prompt.TokenCounter;
+import com.knowledgehub.services.trace.RequestTrace;
 
 @Service
 public class AIService {
@@ -24,110 +39,222 @@ public class AIService {
     private final ChatClient chatClient;
     private final DocumentRepository documentRepository;
     private final VectorStoreService vectorStoreService;
+    private final EmbeddingService embeddingService;
+    private final SemanticAnswerCache answerCache;
+    private final DocumentNameMatcher documentNameMatcher;
+    private final DocumentMetadataCache documentMetadataCache;
+    private final TokenCounter tokenCounter;
+    private final int maxContextTokens;
+    private final MeterRegistry meterRegistry;
     
-    // Number of top similar documents to retrieve
+    // Time from sending a streamed request to its first text fragment
+    private final Timer firstTokenTimer;
+
+    // Number of top similar chunks to retrieve
     private static final int TOP_K_DOCUMENTS = 5;
+    
+    // Number of chunks to retrieve when the question names a specific document
+    private static final int TOP_K_DOCUMENT_CHUNKS = 3;
 
     @Autowired
     public AIService(Builder chatClientBuilder, DocumentRepository documentRepository, 
-                     VectorStoreService vectorStoreService) {
+                     VectorStoreService vectorStoreService, EmbeddingService embeddingService,
+                     SemanticAnswerCache answerCache, DocumentNameMatcher documentNameMatcher,
+                     DocumentMetadataCache documentMetadataCache, TokenCounter tokenCounter,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.prompt.max-context-tokens:6000}") int maxContextTokens) {
         this.chatClient = chatClientBuilder.build();
         this.documentRepository = documentRepository;
         this.vectorStoreService = vectorStoreService;
+        this.embeddingService = embeddingService;
+        this.answerCache = answerCache;
+        this.documentNameMatcher = documentNameMatcher;
+        this.documentMetadataCache = documentMetadataCache;
+        this.tokenCounter = tokenCounter;
+        this.maxContextTokens = maxContextTokens;
+        this.meterRegistry = meterRegistry;
+        this.firstTokenTimer = Timer.builder("knowledgehub.llm.first-token")
+            .description("Time from sending a streamed chat request to its first text fragment")
+            .register(meterRegistry);
     }
 
     public String askAboutDocuments(String userMessage) {
-        // Extract document name from message if mentioned
-        String documentName = extractDocumentNameFromMessage(userMessage);
+        return answer(userMessage, false).getText();
+    }
+
+    /**
+     * Answer a question about the documents, reusing a cached answer to a similar question
+     * when it was built from the same documents at the same versions
+     * @param userMessage The question
+     * @param bypassCache Skip the answer cache lookup (a fresh answer is still cached)
+     * @return The answer and whether it came from the cache
+     */
+    public Answer answer(String userMessage, boolean bypassCache) {
+        PreparedAnswer prepared = prepare(userMessage);
+        float[] queryVector = prepared.queryVector;
+        if (queryVector == null) {
+            return new Answer(generate(RequestTrace.time("prompt", prepared.systemPrompt), userMessage),
+                CacheStatus.NONE, prepared.sources);
+        }
         
-        if (documentName != null) {
+        String cachedAnswer = lookupCached(prepared, queryVector, bypassCache);
+        if (cachedAnswer != null) {
+            return new Answer(cachedAnswer, CacheStatus.HIT, prepared.sources);
+        }
+        
+        String answer = generate(RequestTrace.time("prompt", prepared.systemPrompt), userMessage);
+        answerCache.store(prepared.scopeKey, prepared.documentIds, queryVector, answer);
+        return new Answer(answer, bypassCache ? CacheStatus.BYPASS : CacheStatus.MISS, prepared.sources);
+    }
+
+    /**
+     * Answer a question about the documents as a stream of text fragments, sent as the model produces them.
+     * Retrieval and prompt building run before this returns, so the sources are known up front and
+     * the request trace covers every stage before the model call; generation starts on subscribe
+     * and is cancelled upstream when the subscription is cancelled (e.g. the client disconnects).
+     * A complete answer is cached like one from {@link #answer(String, boolean)}; a cancelled one is not.
+     * @param userMessage The question
+     * @param bypassCache Skip the answer cache lookup (a fresh answer is still cached)
+     * @return The sources, whether the cache was used, and the answer fragments
+     */
+    public AnswerStream streamAnswer(String userMessage, boolean bypassCache) {
+        PreparedAnswer prepared = prepare(userMessage);
+        float[] queryVector = prepared.queryVector;
+        if (queryVector == null) {
+            String systemPrompt = RequestTrace.time("prompt", prepared.systemPrompt);
+            return new AnswerStream(prepared.sources, CacheStatus.NONE,
+                Flux.defer(() -> generateStream(systemPrompt, userMessage)));
+        }
+        
+        String cachedAnswer = lookupCached(prepared, queryVector, bypassCache);
+        if (cachedAnswer != null) {
+            return new AnswerStream(prepared.sources, CacheStatus.HIT, Flux.just(cachedAnswer));
+        }
+        
+        String systemPrompt = RequestTrace.time("prompt", prepared.systemPrompt);
+        Flux<String> tokens = Flux.defer(() -> {
+            // One buffer per subscription; only a stream that ran to completion is cached
+            StringBuilder answer = new StringBuilder();
+            return generateStream(systemPrompt, userMessage)
+                .doOnNext(answer::append)
+                .doOnComplete(() -> answerCache.store(prepared.scopeKey, prepared.documentIds,
+                    queryVector, answer.toString()));
+        });
+        return new AnswerStream(prepared.sources, bypassCache ? CacheStatus.BYPASS : CacheStatus.MISS, tokens);
+    }
+
+    /**
+     * Retrieve what a question is about and decide how its answer may be cached.
+     * The question is never embedded just for the cache: in lexical mode, or when retrieval fell back to
+     * keyword search, the answer is not cached. The system prompt itself is only built when the answer
+     * is not served from the cache.
+     */
+    private PreparedAnswer prepare(String userMessage) {
+        // Find the document the message mentions by name, if any
+        Long documentId = RequestTrace.time("match", () -> documentNameMatcher.findDocumentId(userMessage));
+        // The document may have been deleted since it was matched; then answer from the whole index
+        Document doc = documentId == null ? null
+            : RequestTrace.time("db", () -> documentRepository.findById(documentId).orElse(null));
+        
+        if (doc != null) {
             // Ask about specific document using vector search for better context
-            List<Document> documents = documentRepository.findByNameContainingIgnoreCase(documentName);
-            if (documents.isEmpty()) {
-                throw new IllegalArgumentException("Document not found with name: " + documentName);
-            }
-            Document doc = documents.get(0);
             String documentContent = doc.getContent();
             if (documentContent == null || documentContent.trim().isEmpty()) {
-                throw new IllegalArgumentException("Document '" + documentName + "' has no content.");
+                throw new IllegalArgumentException("Document '" + doc.getName() + "' has no content.");
             }
             
-            // Use vector search to find most relevant parts of the document
-            List<com.knowledgehub.models.VectorDocument> similarChunks = 
-                vectorStoreService.findSimilarDocuments(userMessage + " " + documentName, 3);
-            
-            // Use polymorphic behavior - call getSpecialInstruction() for the specific document type
-            String specialInstruction = doc.getSpecialInstruction();
-            
-            String systemPrompt;
-            if (specialInstruction != null && !specialInstruction.trim().isEmpty()) {
-                // Use the special instruction from the document type
-                systemPrompt = specialInstruction;
-            } else {
-                // Default prompt if no special instruction
-                String relevantContent = similarChunks.isEmpty() 
-                    ? documentContent 
-                    : similarChunks.stream()
-                        .map(vd -> vd.getContent())
-                        .collect(Collectors.joining("\n\n---\n\n"));
-                        
-                systemPrompt = """
-                    You are a helpful assistant for the Knowledge Hub system. 
-                    Answer the user's question based ONLY on the following document.
-                    If the answer is not in the document, clearly state that the information is not available.
-                    
-                    Document: %s
-                    
-                    Relevant Document Content:
-                    %s
-                    """.formatted(doc.getName(), relevantContent);
-            }
-            
-            return chatClient.prompt()
-                    .system(systemPrompt)
-                    .user(userMessage)
-                    .call()
-                    .content();
+            String scopeKey = SemanticAnswerCache.scopeKey("document",
+                Map.of(doc.getId(), VectorStoreService.versionOf(doc.getUpdatedAt())));
+            // Outside lexical mode the document's chunks are ranked with this embedding (shared via the query cache)
+            float[] queryVector = vectorStoreService.getRetrievalMode() == VectorStoreService.RetrievalMode.LEXICAL
+                ? null : cacheVector(userMessage);
+            return new PreparedAnswer(scopeKey, queryVector, Set.of(doc.getId()),
+                List.of(new SourceDocument(doc.getId(), doc.getName(), doc.getType())),
+                () -> buildDocumentPrompt(doc, userMessage));
         }
         
-        // Use vector search to find most relevant documents
-        List<VectorDocument> similarDocs = 
-            vectorStoreService.findSimilarDocuments(userMessage, TOP_K_DOCUMENTS);
+        // Find the most relevant chunks (vector, keyword or hybrid search; keyword search while nothing is embedded),
+        // plus the best relevant chunk of any document type they miss, so each prompt section gets context when it can
+        VectorStoreService.RelevantChunks relevant =
+            vectorStoreService.findRelevantChunksWithTypeQuotas(userMessage, TOP_K_DOCUMENTS);
+        List<VectorDocument> similarDocs = relevant.getChunks();
+        RequestTrace.selected(similarDocs.stream().map(VectorDocument::getChunkId).toList());
         
         if (similarDocs.isEmpty()) {
-            // Fallback to traditional search if vector store is empty
-            return askAboutDocumentsFallback(userMessage);
+            // Nothing matched, so the model is told there are no relevant documents
+            // (not cached: with no documents in scope, a later upload would not invalidate it)
+            return new PreparedAnswer(null, null, Set.of(), List.of(),
+                () -> buildSearchPrompt(List.of(), Set.of(), userMessage));
         }
         
-        // Group by document type
-        List<VectorDocument> policyDocs = similarDocs.stream()
-            .filter(vd -> vd.getDocumentType() == DocumentType.POLICY)
-            .collect(Collectors.toList());
-        List<VectorDocument> manualDocs = similarDocs.stream()
-            .filter(vd -> vd.getDocumentType() == DocumentType.MANUAL)
-            .collect(Collectors.toList());
-        List<VectorDocument> reportDocs = similarDocs.stream()
-            .filter(vd -> vd.getDocumentType() == DocumentType.REPORT)
-            .collect(Collectors.toList());
-        
-        // Build content from vector search results
-        String policyContent = formatVectorDocuments(policyDocs);
-        String manualContent = formatVectorDocuments(manualDocs);
-        String reportContent = formatVectorDocuments(reportDocs);
-        
-        // Get special instructions from the retrieved documents
-        StringBuilder specialInstructions = new StringBuilder();
+        // Scope the cached answer to the retrieved documents and the versions that were searched;
+        // it is keyed on the embedding retrieval computed, so keyword-only retrieval is not cached
+        Map<Long, Long> documentVersions = new LinkedHashMap<>();
+        List<SourceDocument> sources = new ArrayList<>();
         for (VectorDocument vd : similarDocs) {
-            Document doc = documentRepository.findById(vd.getDocumentId()).orElse(null);
-            if (doc != null) {
-                String instruction = doc.getSpecialInstruction();
-                if (instruction != null && !instruction.trim().isEmpty()) {
-                    specialInstructions.append(instruction).append("\n\n");
-                }
+            if (!documentVersions.containsKey(vd.getDocumentId())) {
+                Long version = vectorStoreService.getIndexedVersion(vd.getDocumentId());
+                documentVersions.put(vd.getDocumentId(), version == null ? 0L : version);
+                sources.add(new SourceDocument(vd.getDocumentId(), vd.getDocumentName(), vd.getDocumentType()));
             }
         }
-    
-        String systemPrompt = """
+        String scopeKey = SemanticAnswerCache.scopeKey("search", documentVersions);
+        return new PreparedAnswer(scopeKey, relevant.getQueryVector(), Set.copyOf(documentVersions.keySet()), sources,
+            () -> buildSearchPrompt(similarDocs, documentVersions.keySet(), userMessage));
+    }
+
+    /**
+     * Build the system prompt for a question about one document named in it.
+     * Its most relevant chunks are packed into the context budget; the whole content is only used
+     * (cut to the budget) when the document has no indexed chunks yet.
+     */
+    private String buildDocumentPrompt(Document doc, String userMessage) {
+        // Use vector search over this document's chunks to find its most relevant parts
+        List<VectorDocument> similarChunks = 
+            vectorStoreService.findSimilarChunksInDocument(userMessage, doc.getId(), TOP_K_DOCUMENT_CHUNKS);
+        
+        String template = """
+            You are a helpful assistant for the Knowledge Hub system. 
+            Answer the user's question based ONLY on the following document.
+            If the answer is not in the document, clearly state that the information is not available.
+            
+            %s
+            
+            Document: %s
+            
+            Relevant Document Content:
+            %s
+            """;
+        PromptBuilder prompt = new PromptBuilder(tokenCounter, maxContextTokens)
+            .reserve(template)
+            .reserve(doc.getName())
+            .reserve(userMessage)
+            // Use polymorphic behavior - the guidance for the specific document type
+            .instruction(doc.getTypeInstruction());
+        if (similarChunks.isEmpty()) {
+            prompt.candidate("content", "", doc.getContent(), 0);
+        } else {
+            // Chunks arrive most similar first
+            for (int i = 0; i < similarChunks.size(); i++) {
+                prompt.candidate("content", "", similarChunks.get(i).getContent(), similarChunks.size() - i);
+            }
+        }
+        
+        String content = String.join("\n\n---\n\n", prompt.section("content"));
+        tracePrompt(prompt);
+        return template.formatted(
+            prompt.instructions(),
+            doc.getName(),
+            content);
+    }
+
+    /**
+     * Build the system prompt from the chunks found by vector search.
+     * Each document type's instruction is included once; chunks are packed most similar first
+     * until the context budget is spent.
+     */
+    private String buildSearchPrompt(List<VectorDocument> similarDocs, Set<Long> documentIds, String userMessage) {
+        String template = """
             You are an expert organizational assistant. Answer the user's question based ONLY on the provided documents.
             
             RULES FOR RESPONDING BY DOCUMENT TYPE:
@@ -145,179 +272,205 @@ public class AIService {
             
             RELEVANT REPORT DOCUMENTS (found via semantic search):
             %s
-            """.formatted(
-                specialInstructions.toString().trim(),
+            """;
+        PromptBuilder prompt = new PromptBuilder(tokenCounter, maxContextTokens)
+            .reserve(template)
+            .reserve(userMessage);
+        
+        // Get special instructions from the retrieved documents (the builder keeps each type's once)
+        // One batched lookup for all of them, answered from the metadata cache once warm
+        Map<Long, DocumentMetadata> metadataById =
+            RequestTrace.time("db", () -> documentMetadataCache.getAll(documentIds));
+        for (DocumentMetadata metadata : metadataById.values()) {
+            prompt.instruction(metadata.getSpecialInstruction());
+        }
+        
+        // Search results arrive most similar first; group them by document type
+        for (int i = 0; i < similarDocs.size(); i++) {
+            VectorDocument vd = similarDocs.get(i);
+            if (vd.getDocumentType() != null) {
+                prompt.candidate(vd.getDocumentType().name(),
+                    "- " + vd.getDocumentName() + " (part " + (vd.getChunkIndex() + 1) + "):\n",
+                    vd.getContent(), similarDocs.size() - i);
+            }
+        }
+        String policyContent = String.join("\n\n---\n\n", prompt.section(DocumentType.POLICY.name()));
+        String manualContent = String.join("\n\n---\n\n", prompt.section(DocumentType.MANUAL.name()));
+        String reportContent = String.join("\n\n---\n\n", prompt.section(DocumentType.REPORT.name()));
+        tracePrompt(prompt);
+        
+        return template.formatted(
+                prompt.instructions(),
                 policyContent.isEmpty() ? "No relevant policy documents found." : policyContent,
                 manualContent.isEmpty() ? "No relevant manual documents found." : manualContent,
                 reportContent.isEmpty() ? "No relevant report documents found." : reportContent
             );
-    
-        return chatClient.prompt()
-                .system(systemPrompt)
-                .user(userMessage)
-                .call()
-                .content();
     }
     
     /**
-     * Fallback method when vector store is empty (uses traditional full-text search)
+     * Embed a question about a named document for the answer cache. It comes from the query cache,
+     * so ranking the document's chunks reuses it.
+     * @return The normalized embedding, or null if the embedding API failed (the answer is then not cached)
      */
-    private String askAboutDocumentsFallback(String userMessage) {
-        List<Document> allDocs = documentRepository.findAll();
-        
-        // Get content and special instructions for each document type (polymorphic behavior)
-        DocumentTypeContent policyData = getContentAndInstructionsByType(allDocs, DocumentType.POLICY);
-        DocumentTypeContent manualData = getContentAndInstructionsByType(allDocs, DocumentType.MANUAL);
-        DocumentTypeContent reportData = getContentAndInstructionsByType(allDocs, DocumentType.REPORT);
-    
-        // Build special instructions section from all document types
-        StringBuilder specialInstructions = new StringBuilder();
-        if (!policyData.specialInstructions.isEmpty()) {
-            specialInstructions.append("POLICY DOCUMENTS SPECIAL INSTRUCTIONS:\n")
-                              .append(policyData.specialInstructions)
-                              .append("\n\n");
+    private float[] cacheVector(String userMessage) {
+        try {
+            return VectorArena.normalize(embeddingService.generateQueryVector(userMessage));
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Failed to embed the question for the answer cache: " + e.getMessage());
+            return null;
         }
-        if (!manualData.specialInstructions.isEmpty()) {
-            specialInstructions.append("MANUAL DOCUMENTS SPECIAL INSTRUCTIONS:\n")
-                              .append(manualData.specialInstructions)
-                              .append("\n\n");
+    }
+    
+    /**
+     * Look up a cached answer to a similar question in the prepared scope
+     * @return The cached answer, or null on a miss or when bypassing the cache
+     */
+    private String lookupCached(PreparedAnswer prepared, float[] queryVector, boolean bypassCache) {
+        if (bypassCache) {
+            answerCache.recordBypass();
+            return null;
         }
-        if (!reportData.specialInstructions.isEmpty()) {
-            specialInstructions.append("REPORT DOCUMENTS SPECIAL INSTRUCTIONS:\n")
-                              .append(reportData.specialInstructions)
-                              .append("\n\n");
+        return RequestTrace.time("cache", () -> answerCache.lookup(prepared.scopeKey, queryVector));
+    }
+    
+    /**
+     * Keep the packed prompt's token counts in a detailed request trace
+     */
+    private void tracePrompt(PromptBuilder prompt) {
+        RequestTrace.prompt(prompt.getUsedTokens(), maxContextTokens, prompt.getDroppedCount(), prompt.getDuplicateCount());
+    }
+    
+    private String generate(String systemPrompt, String userMessage) {
+        long start = System.nanoTime();
+        try {
+            String content = chatClient.prompt()
+                    .system(systemPrompt)
+                    .user(userMessage)
+                    .call()
+                    .content();
+            recordLlmRequest("call", "success", start);
+            return content;
+        } catch (RuntimeException e) {
+            recordLlmRequest("call", "failure", start);
+            throw e;
+        } finally {
+            RequestTrace.record("llm", System.nanoTime() - start);
         }
+    }
     
-        String systemPrompt = """
-            You are an expert organizational assistant. Answer the user's question based ONLY on the provided documents.
-            
-            RULES FOR RESPONDING BY DOCUMENT TYPE:
-            1. If the information comes from a POLICY: Answer in a formal, authoritative tone. Start with "According to organization policy...".
-            2. If the information comes from a MANUAL: Answer in a step-by-step, technical manner.
-            3. If the information comes from a REPORT: Focus on data, dates, and figures. Be concise and objective.
-            
-            %s
-            ---
-            POLICY DOCUMENTS:
-            %s
-            
-            MANUAL DOCUMENTS:
-            %s
-            
-            REPORT DOCUMENTS:
-            %s
-            """.formatted(
-                specialInstructions.toString().trim(),
-                policyData.content,
-                manualData.content,
-                reportData.content
-            );
+    /**
+     * Stream an answer; the request is timed from subscription until it completes, fails or is cancelled
+     */
+    private Flux<String> generateStream(String systemPrompt, String userMessage) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean firstToken = new AtomicBoolean(true);
+            return chatClient.prompt()
+                    .system(systemPrompt)
+                    .user(userMessage)
+                    .stream()
+                    .content()
+                    .doOnNext(token -> {
+                        if (firstToken.compareAndSet(true, false)) {
+                            firstTokenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                    })
+                    .doFinally(signal -> recordLlmRequest("stream",
+                        signal == SignalType.ON_COMPLETE ? "success"
+                            : signal == SignalType.ON_ERROR ? "failure" : "cancelled", start));
+        });
+    }
     
-        return chatClient.prompt()
-                .system(systemPrompt)
-                .user(userMessage)
-                .call()
-                .content();
+    private void recordLlmRequest(String mode, String outcome, long startNanos) {
+        Timer.builder("knowledgehub.llm.requests")
+            .description("Chat model requests")
+            .tags("mode", mode, "outcome", outcome)
+            .register(meterRegistry)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
     }
     
     /**
-     * Format vector documents for prompt
+     * Whether an answer was served from the answer cache
      */
-    private String formatVectorDocuments(List<com.knowledgehub.models.VectorDocument> vectorDocs) {
-        return vectorDocs.stream()
-            .map(vd -> "- " + vd.getDocumentName() + ":\n" + vd.getContent())
-            .collect(Collectors.joining("\n\n---\n\n"));
+    public enum CacheStatus {
+        HIT,
+        MISS,
+        BYPASS,
+        NONE // The answer was not eligible for caching
     }
     
     /**
-     * Extract document name from user message by checking if any document name appears in the message
-     * @param message User's message
-     * @return Document name if found, null otherwise
+     * An answer together with how the answer cache was used for it
      */
-    private String extractDocumentNameFromMessage(String message) {
-        if (message == null || message.trim().isEmpty()) {
-            return null;
+    public static class Answer {
+        private final String text;
+        private final CacheStatus cacheStatus;
+        private final List<SourceDocument> sources;
+        
+        public Answer(String text, CacheStatus cacheStatus, List<SourceDocument> sources) {
+            this.text = text;
+            this.cacheStatus = cacheStatus;
+            this.sources = sources;
         }
         
-        List<Document> allDocuments = documentRepository.findAll();
-        String lowerMessage = message.toLowerCase();
+        public String getText() {
+            return text;
+        }
         
-        for (Document doc : allDocuments) {
-            String docName = doc.getName();
-            if (docName != null) {
-                String lowerDocName = docName.toLowerCase();
-                
-                // Check for full name match
-                if (lowerMessage.contains(lowerDocName)) {
-                    return docName;
-                }
-                
-                // Check for filename without extension
-                if (lowerDocName.contains(".")) {
-                    String nameWithoutExt = lowerDocName.substring(0, lowerDocName.lastIndexOf("."));
-                    if (lowerMessage.contains(nameWithoutExt) && nameWithoutExt.length() > 3) {
-                        return docName;
-                    }
-                }
-            }
+        public CacheStatus getCacheStatus() {
+            return cacheStatus;
         }
         
-        return null;
+        public List<SourceDocument> getSources() {
+            return sources;
+        }
     }
     
     /**
-     * Helper class to hold content and special instructions for a document type
+     * A streamed answer: its sources and cache status are known before the first fragment arrives
      */
-    private static class DocumentTypeContent {
-        String content;
-        String specialInstructions;
+    public static class AnswerStream {
+        private final List<SourceDocument> sources;
+        private final CacheStatus cacheStatus;
+        private final Flux<String> tokens;
+        
+        public AnswerStream(List<SourceDocument> sources, CacheStatus cacheStatus, Flux<String> tokens) {
+            this.sources = sources;
+            this.cacheStatus = cacheStatus;
+            this.tokens = tokens;
+        }
         
-        DocumentTypeContent(String content, String specialInstructions) {
-            this.content = content;
-            this.specialInstructions = specialInstructions;
+        public List<SourceDocument> getSources() {
+            return sources;
+        }
+        
+        public CacheStatus getCacheStatus() {
+            return cacheStatus;
+        }
+        
+        public Flux<String> getTokens() {
+            return tokens;
         }
     }
     
     /**
-     * Get content and special instructions for documents of a specific type (polymorphic behavior)
-     * Calls getSpecialInstruction() for each document type
+     * Helper class to hold what retrieval found for a question, before the model is called
      */
-    private DocumentTypeContent getContentAndInstructionsByType(List<Document> docs, DocumentType type) {
-        List<Document> filteredDocs = docs.stream()
-                .filter(d -> {
-                    if (type == DocumentType.POLICY) {
-                        return d instanceof PolicyDocument;
-                    } else if (type == DocumentType.MANUAL) {
-                        return d instanceof ManualDocument;
-                    } else if (type == DocumentType.REPORT) {
-                        return d instanceof ReportDocument;
-                    }
-                    return false;
-                })
-                .collect(Collectors.toList());
+    private static class PreparedAnswer {
+        final String scopeKey; // Answer cache scope; null when the answer must not be cached
+        final float[] queryVector; // Normalized question embedding; null when the answer must not be cached
+        final Set<Long> documentIds;
+        final List<SourceDocument> sources;
+        final Supplier<String> systemPrompt;
         
-        // Build content string
-        String content = filteredDocs.stream()
-                .map(d -> {
-                    String docContent = d.getContent();
-                    return docContent != null && !docContent.trim().isEmpty() 
-                        ? "- " + d.getName() + ": " + docContent 
-                        : "";
-                })
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.joining("\n"));
-        
-        // Build special instructions using polymorphic getSpecialInstruction() call
-        String specialInstructions = filteredDocs.stream()
-                .map(d -> {
-                    // Polymorphic call - each document type implements getSpecialInstruction() differently
-                    String instruction = d.getSpecialInstruction();
-                    return instruction != null && !instruction.trim().isEmpty() ? instruction : "";
-                })
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.joining("\n\n"));
-        
-        return new DocumentTypeContent(content, specialInstructions);
+        PreparedAnswer(String scopeKey, float[] queryVector, Set<Long> documentIds, List<SourceDocument> sources,
+                       Supplier<String> systemPrompt) {
+            this.scopeKey = scopeKey;
+            this.queryVector = queryVector;
+            this.documentIds = documentIds;
+            this.sources = sources;
+            this.systemPrompt = systemPrompt;
+        }
     }
  
 }
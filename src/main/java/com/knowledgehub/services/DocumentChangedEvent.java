@@ -0,0 +1,28 @@
+package com.knowledgehub.services;
+
+/**
+ * Published when a document is indexed, re-indexed or deleted, so caches built from it can be dropped
+ */
+public class DocumentChangedEvent {
+
+    public enum ChangeType {
+        SAVED,
+        DELETED
+    }
+
+    private final Long documentId;
+    private final ChangeType changeType;
+
+    public DocumentChangedEvent(Long documentId, ChangeType changeType) {
+        this.documentId = documentId;
+        this.changeType = changeType;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+}
@@ -0,0 +1,275 @@
+package com.knowledgehub.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits document content into overlapping chunks for embedding.
+ * Chunks never cross a heading: each section is chunked on its own and every chunk
+ * starts with its section heading so it still makes sense out of context.
+ * The heading prefix is kept short (at most the two innermost nested headings, and a quarter of the chunk size),
+ * so a run of heading-like lines such as a table of contents is chunked as text instead of repeated in every chunk.
+ * Within a section, paragraphs are packed up to the chunk size and consecutive
+ * chunks share a tail of roughly the configured overlap.
+ */
+@Component
+public class DocumentChunker {
+
+    // "1.", "2.3", "2.3.1", "IV.", "A." followed by a title
+    private static final Pattern NUMBERED_HEADING =
+        Pattern.compile("^(\\d+(\\.\\d+)*\\.?|[IVXLC]+\\.|[A-Z]\\.)\\s+\\S.*");
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[.!?])\\s+");
+    private static final int MAX_HEADING_LENGTH = 80;
+    private static final int MAX_HEADING_WORDS = 10;
+    // Nested headings kept as a section's heading, e.g. "Chapter 2" then "2.1 Scope"
+    private static final int MAX_NESTED_HEADINGS = 2;
+
+    private final int chunkSize;
+    private final int overlap;
+
+    public DocumentChunker(@Value("${app.chunking.chunk-size:1500}") int chunkSize,
+                           @Value("${app.chunking.overlap:200}") int overlap) {
+        if (chunkSize < 200) {
+            throw new IllegalArgumentException("Chunk size must be at least 200 characters");
+        }
+        if (overlap < 0 || overlap >= chunkSize / 2) {
+            throw new IllegalArgumentException("Chunk overlap must be between 0 and half the chunk size");
+        }
+        this.chunkSize = chunkSize;
+        this.overlap = overlap;
+    }
+
+    /**
+     * Split content into chunks
+     * @param content The document text
+     * @return Chunks in document order (empty if the content is blank)
+     */
+    public List<String> chunk(String content) {
+        List<String> chunks = new ArrayList<>();
+        if (content == null || content.trim().isEmpty()) {
+            return chunks;
+        }
+        for (Section section : splitIntoSections(content)) {
+            chunkSection(section, chunks);
+        }
+        return chunks;
+    }
+
+    /**
+     * Group lines into sections. Word extraction emits one paragraph per line, so every
+     * non-blank line is treated as a paragraph unless it looks like a heading.
+     */
+    private List<Section> splitIntoSections(String content) {
+        List<Section> sections = new ArrayList<>();
+        Section current = new Section(null);
+        sections.add(current);
+        // Heading lines pushed out of a heading-only run, kept as plain text ahead of the section
+        Section overflow = null;
+
+        for (String rawLine : content.split("\\r?\\n")) {
+            String line = rawLine.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (isHeading(line)) {
+                if (current.paragraphs.isEmpty() && !current.headings.isEmpty()) {
+                    // Nested headings with nothing in between, e.g. "Chapter 2" then "2.1 Scope"
+                    current.headings.add(line);
+                    if (current.headings.size() > MAX_NESTED_HEADINGS) {
+                        // A longer run (e.g. a table of contents) is content rather than a heading
+                        if (overflow == null) {
+                            overflow = new Section(null);
+                            sections.add(sections.size() - 1, overflow);
+                        }
+                        overflow.paragraphs.add(current.headings.remove(0));
+                    }
+                } else {
+                    current = new Section(line);
+                    sections.add(current);
+                    overflow = null;
+                }
+            } else {
+                current.paragraphs.add(line);
+            }
+        }
+        return sections;
+    }
+
+    private boolean isHeading(String line) {
+        if (line.startsWith("#")) {
+            return true;
+        }
+        if (line.length() > MAX_HEADING_LENGTH) {
+            return false;
+        }
+        char last = line.charAt(line.length() - 1);
+        if (last == '.' || last == ',' || last == ';' || last == '!' || last == '?') {
+            return false;
+        }
+        if (NUMBERED_HEADING.matcher(line).matches()) {
+            return true;
+        }
+
+        String[] words = line.split("\\s+");
+        if (words.length > MAX_HEADING_WORDS) {
+            return false;
+        }
+        boolean hasLetter = false;
+        boolean allUpper = true;
+        int capitalized = 0;
+        for (String word : words) {
+            char first = word.charAt(0);
+            if (Character.isUpperCase(first) || Character.isDigit(first)) {
+                capitalized++;
+            }
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (Character.isLetter(c)) {
+                    hasLetter = true;
+                    if (!Character.isUpperCase(c)) {
+                        allUpper = false;
+                    }
+                }
+            }
+        }
+        if (!hasLetter) {
+            return false;
+        }
+        // ALL CAPS lines, or Title Case lines where nearly every word is capitalized
+        return allUpper || capitalized >= Math.max(1, words.length - 1) && words.length <= 6;
+    }
+
+    private void chunkSection(Section section, List<String> chunks) {
+        String heading = headingPrefix(section.headings);
+        if (section.paragraphs.isEmpty()) {
+            if (!heading.isEmpty()) {
+                chunks.add(heading);
+            }
+            return;
+        }
+
+        String prefix = heading.isEmpty() ? "" : heading + "\n";
+        // Leave room for the heading and the carried-over overlap so every chunk makes progress
+        int maxPiece = Math.max(100, chunkSize - prefix.length() - overlap - 1);
+
+        StringBuilder body = new StringBuilder();
+        boolean bodyHasNewText = false;
+        for (String paragraph : section.paragraphs) {
+            for (String piece : splitLongParagraph(paragraph, maxPiece)) {
+                if (bodyHasNewText && prefix.length() + body.length() + 1 + piece.length() > chunkSize) {
+                    chunks.add(prefix + body);
+                    String tail = overlapTail(body);
+                    body.setLength(0);
+                    body.append(tail);
+                    bodyHasNewText = false;
+                }
+                if (body.length() > 0) {
+                    body.append('\n');
+                }
+                body.append(piece);
+                bodyHasNewText = true;
+            }
+        }
+        if (bodyHasNewText) {
+            chunks.add(prefix + body);
+        }
+    }
+
+    /**
+     * Join the section's headings, dropping the outer ones and then cutting the innermost at a word boundary
+     * until it takes at most a quarter of the chunk size
+     */
+    private String headingPrefix(List<String> headings) {
+        int maxLength = chunkSize / 4;
+        int first = 0;
+        String heading = String.join("\n", headings);
+        while (heading.length() > maxLength && first < headings.size() - 1) {
+            first++;
+            heading = String.join("\n", headings.subList(first, headings.size()));
+        }
+        if (heading.length() > maxLength) {
+            int cut = heading.lastIndexOf(' ', maxLength);
+            heading = heading.substring(0, cut > 0 ? cut : maxLength).trim();
+        }
+        return heading;
+    }
+
+    /**
+     * Take at most the last {@code overlap} characters, starting at a sentence or paragraph
+     * boundary when there is one in that window and at a word boundary otherwise
+     */
+    private String overlapTail(CharSequence body) {
+        if (overlap == 0 || body.length() == 0) {
+            return "";
+        }
+        int length = body.length();
+        int windowStart = Math.max(0, length - overlap);
+        for (int i = Math.max(windowStart, 2); i < length; i++) {
+            char previous = body.charAt(i - 1);
+            char beforePrevious = body.charAt(i - 2);
+            if (previous == '\n' || Character.isWhitespace(previous)
+                    && (beforePrevious == '.' || beforePrevious == '!' || beforePrevious == '?')) {
+                return body.subSequence(i, length).toString().trim();
+            }
+        }
+        int start = windowStart;
+        while (start > 0 && start < length && !Character.isWhitespace(body.charAt(start - 1))) {
+            start++;
+        }
+        return body.subSequence(start, length).toString().trim();
+    }
+
+    /**
+     * Split a paragraph longer than maxLength at sentence ends, falling back to word boundaries
+     */
+    private List<String> splitLongParagraph(String paragraph, int maxLength) {
+        List<String> pieces = new ArrayList<>();
+        if (paragraph.length() <= maxLength) {
+            pieces.add(paragraph);
+            return pieces;
+        }
+
+        StringBuilder current = new StringBuilder();
+        for (String sentence : SENTENCE_END.split(paragraph)) {
+            if (current.length() > 0 && current.length() + 1 + sentence.length() > maxLength) {
+                pieces.add(current.toString());
+                current.setLength(0);
+            }
+            String remaining = sentence;
+            while (remaining.length() > maxLength) {
+                int cut = remaining.lastIndexOf(' ', maxLength);
+                if (cut <= 0) {
+                    cut = maxLength;
+                }
+                pieces.add(remaining.substring(0, cut).trim());
+                remaining = remaining.substring(cut).trim();
+            }
+            if (current.length() > 0) {
+                current.append(' ');
+            }
+            current.append(remaining);
+        }
+        if (current.length() > 0) {
+            pieces.add(current.toString());
+        }
+        return pieces;
+    }
+
+    /**
+     * Helper class to hold a heading and the paragraphs under it
+     */
+    private static class Section {
+        List<String> headings = new ArrayList<>();
+        List<String> paragraphs = new ArrayList<>();
+
+        Section(String heading) {
+            if (heading != null) {
+                headings.add(heading);
+            }
+        }
+    }
+}
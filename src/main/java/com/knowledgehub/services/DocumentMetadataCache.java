@@ -0,0 +1,137 @@
+package com.knowledgehub.services;
+
+import com.knowledgehub.models.Document;
+import com.knowledgehub.models.DocumentMetadata;
+import com.knowledgehub.models.DocumentType;
+import com.knowledgehub.models.ManualDocument;
+import com.knowledgehub.models.PolicyDocument;
+import com.knowledgehub.models.ReportDocument;
+import com.knowledgehub.repositories.DocumentRepository;
+import com.knowledgehub.repositories.DocumentRepository.DocumentSummary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of document metadata and special instructions, keyed by document id.
+ * Misses are loaded together in one query that skips the content column;
+ * once the documents behind a search are cached, building the prompt needs no database access.
+ * DocumentService and the ingestion pipeline invalidate entries when they write a document.
+ */
+@Component
+public class DocumentMetadataCache {
+
+    private final DocumentRepository documentRepository;
+
+    // documentId -> metadata
+    private final Map<Long, DocumentMetadata> entries = new ConcurrentHashMap<>();
+
+    // Special instructions depend only on the document type, so they are built once per type
+    private final Map<DocumentType, String> instructionsByType = new EnumMap<>(DocumentType.class);
+
+    // Bumped on every invalidation; a load that overlapped one is returned but not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public DocumentMetadataCache(DocumentRepository documentRepository) {
+        this.documentRepository = documentRepository;
+        instructionsByType.put(DocumentType.POLICY, new PolicyDocument().getTypeInstruction());
+        instructionsByType.put(DocumentType.MANUAL, new ManualDocument().getTypeInstruction());
+        instructionsByType.put(DocumentType.REPORT, new ReportDocument().getTypeInstruction());
+    }
+
+    /**
+     * Get the metadata of several documents, loading all misses in a single query
+     * @param documentIds The documents to look up
+     * @return documentId -> metadata, in the order given; documents that no longer exist are left out
+     */
+    public Map<Long, DocumentMetadata> getAll(Collection<Long> documentIds) {
+        Map<Long, DocumentMetadata> result = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long documentId : documentIds) {
+            DocumentMetadata metadata = entries.get(documentId);
+            if (metadata != null) {
+                result.put(documentId, metadata);
+            } else {
+                missing.add(documentId);
+            }
+        }
+        hits.addAndGet(result.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+        misses.addAndGet(missing.size());
+
+        long invalidationsBefore = invalidations.get();
+        Map<Long, DocumentMetadata> loaded = new LinkedHashMap<>();
+        for (DocumentSummary summary : documentRepository.findSummariesByIdIn(missing)) {
+            DocumentType type = typeOf(summary.getDocumentClass());
+            loaded.put(summary.getId(), new DocumentMetadata(summary.getId(), summary.getName(), type,
+                summary.getUpdatedAt(), type == null ? null : instructionsByType.get(type)));
+        }
+        synchronized (this) {
+            if (invalidations.get() == invalidationsBefore) {
+                entries.putAll(loaded);
+            }
+        }
+
+        // Rebuild in the caller's order
+        Map<Long, DocumentMetadata> ordered = new LinkedHashMap<>();
+        for (Long documentId : documentIds) {
+            DocumentMetadata metadata = result.containsKey(documentId) ? result.get(documentId) : loaded.get(documentId);
+            if (metadata != null) {
+                ordered.put(documentId, metadata);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Drop a document's cached metadata after it was written or deleted
+     * @param documentId The document id
+     */
+    public void invalidate(Long documentId) {
+        if (documentId == null) {
+            return;
+        }
+        synchronized (this) {
+            invalidations.incrementAndGet();
+            entries.remove(documentId);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static DocumentType typeOf(Class<?> documentClass) {
+        if (documentClass == null || !Document.class.isAssignableFrom(documentClass)) {
+            return null;
+        }
+        if (PolicyDocument.class.isAssignableFrom(documentClass)) {
+            return DocumentType.POLICY;
+        } else if (ManualDocument.class.isAssignableFrom(documentClass)) {
+            return DocumentType.MANUAL;
+        } else if (ReportDocument.class.isAssignableFrom(documentClass)) {
+            return DocumentType.REPORT;
+        }
+        return null;
+    }
+}
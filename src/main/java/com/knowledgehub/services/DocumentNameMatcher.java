@@ -0,0 +1,194 @@
+package com.knowledgehub.services;
+
+import com.knowledgehub.repositories.DocumentRepository;
+import com.knowledgehub.repositories.DocumentRepository.DocumentName;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds which document a question mentions by name.
+ * Document names, and names without their extension, are compiled into an Aho-Corasick automaton,
+ * so a message is matched against every name in one pass over its characters.
+ * Names are loaded once (ids and names only) and then kept up to date as documents are saved and deleted;
+ * the automaton is rebuilt from memory on the first match after a change.
+ */
+@Component
+public class DocumentNameMatcher {
+
+    // Names without extension must be longer than this to count, so short stems like "doc" do not match everywhere
+    private static final int MIN_BASE_NAME_LENGTH = 4;
+
+    private final DocumentRepository documentRepository;
+
+    // documentId -> name; null until first loaded from the repository
+    private Map<Long, String> names;
+
+    // Rebuilt lazily after names change; replaced, never modified, so matching needs no lock
+    private volatile Automaton automaton;
+
+    public DocumentNameMatcher(DocumentRepository documentRepository) {
+        this.documentRepository = documentRepository;
+    }
+
+    /**
+     * Find the document whose name (or name without extension) appears in a message, ignoring case.
+     * When several do, the one with the lowest id wins.
+     * @param message User's message
+     * @return Id of the mentioned document, or null if none is mentioned
+     */
+    public Long findDocumentId(String message) {
+        if (message == null || message.trim().isEmpty()) {
+            return null;
+        }
+        Automaton current = automaton;
+        if (current == null) {
+            current = rebuild();
+        }
+        return current.findLowestId(message.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Register a saved document, or a new name for an existing one
+     * @param documentId The document id
+     * @param name The document name
+     */
+    public synchronized void add(Long documentId, String name) {
+        if (names == null || documentId == null) {
+            // Not loaded yet; the first match loads every name, including this one
+            return;
+        }
+        if (name == null) {
+            remove(documentId);
+            return;
+        }
+        if (!name.equals(names.put(documentId, name))) {
+            automaton = null;
+        }
+    }
+
+    /**
+     * Forget a deleted document
+     * @param documentId The document id
+     */
+    public synchronized void remove(Long documentId) {
+        if (names != null && names.remove(documentId) != null) {
+            automaton = null;
+        }
+    }
+
+    private synchronized Automaton rebuild() {
+        if (automaton != null) {
+            return automaton;
+        }
+        if (names == null) {
+            Map<Long, String> loaded = new HashMap<>();
+            for (DocumentName documentName : documentRepository.findAllNames()) {
+                if (documentName.getName() != null) {
+                    loaded.put(documentName.getId(), documentName.getName());
+                }
+            }
+            names = loaded;
+        }
+
+        // pattern -> lowest id of a document it belongs to
+        Map<String, Long> patterns = new LinkedHashMap<>();
+        for (Map.Entry<Long, String> entry : names.entrySet()) {
+            String lowerName = entry.getValue().toLowerCase(Locale.ROOT);
+            addPattern(patterns, lowerName, entry.getKey());
+            int extension = lowerName.lastIndexOf('.');
+            if (extension >= MIN_BASE_NAME_LENGTH) {
+                addPattern(patterns, lowerName.substring(0, extension), entry.getKey());
+            }
+        }
+        automaton = new Automaton(patterns);
+        return automaton;
+    }
+
+    private static void addPattern(Map<String, Long> patterns, String pattern, Long documentId) {
+        if (!pattern.isEmpty()) {
+            patterns.merge(pattern, documentId, Math::min);
+        }
+    }
+
+    /**
+     * Aho-Corasick automaton over lowercased names.
+     * Each node stores the lowest document id among the patterns ending there or at any of its suffixes,
+     * so matching only has to follow transitions and take the minimum.
+     */
+    private static class Automaton {
+        private static final long NO_MATCH = Long.MAX_VALUE;
+
+        // Per-node transitions, failure links and lowest matching id, indexed by node number (0 is the root)
+        private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+        private final List<Integer> failures = new ArrayList<>();
+        private final List<Long> lowestIds = new ArrayList<>();
+
+        Automaton(Map<String, Long> patterns) {
+            newNode();
+            for (Map.Entry<String, Long> pattern : patterns.entrySet()) {
+                int node = 0;
+                for (int i = 0; i < pattern.getKey().length(); i++) {
+                    char c = pattern.getKey().charAt(i);
+                    Integer next = transitions.get(node).get(c);
+                    if (next == null) {
+                        next = newNode();
+                        transitions.get(node).put(c, next);
+                    }
+                    node = next;
+                }
+                lowestIds.set(node, Math.min(lowestIds.get(node), pattern.getValue()));
+            }
+
+            // Breadth-first, so a node's failure target is finished before the node itself
+            Queue<Integer> queue = new ArrayDeque<>(transitions.get(0).values());
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (Map.Entry<Character, Integer> edge : transitions.get(node).entrySet()) {
+                    int child = edge.getValue();
+                    int failure = step(failures.get(node), edge.getKey());
+                    failures.set(child, failure);
+                    lowestIds.set(child, Math.min(lowestIds.get(child), lowestIds.get(failure)));
+                    queue.add(child);
+                }
+            }
+        }
+
+        Long findLowestId(String text) {
+            long lowest = NO_MATCH;
+            int node = 0;
+            for (int i = 0; i < text.length(); i++) {
+                node = step(node, text.charAt(i));
+                lowest = Math.min(lowest, lowestIds.get(node));
+            }
+            return lowest == NO_MATCH ? null : lowest;
+        }
+
+        private int step(int node, char c) {
+            while (true) {
+                Integer next = transitions.get(node).get(c);
+                if (next != null) {
+                    return next;
+                }
+                if (node == 0) {
+                    return 0;
+                }
+                node = failures.get(node);
+            }
+        }
+
+        private int newNode() {
+            transitions.add(new HashMap<>());
+            failures.add(0);
+            lowestIds.add(NO_MATCH);
+            return transitions.size() - 1;
+        }
+    }
+}
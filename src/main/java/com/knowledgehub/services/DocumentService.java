@@ -2,6 +2,9 @@ package com.knowledgehub.services;
 
 import com.knowledgehub.models.*;
 import com.knowledgehub.repositories.DocumentRepository;
+import com.knowledgehub.services.ingestion.IngestionJob;
+import com.knowledgehub.services.ingestion.IngestionPipeline;
+import com.knowledgehub.services.upload.UploadFiles;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -12,14 +15,9 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-
-import org.apache.poi.hwpf.HWPFDocument;
-import org.apache.poi.hwpf.extractor.WordExtractor;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class DocumentService {
@@ -30,6 +28,15 @@ public class DocumentService {
     @Autowired
     private VectorStoreService vectorStoreService;
     
+    @Autowired
+    private IngestionPipeline ingestionPipeline;
+    
+    @Autowired
+    private DocumentNameMatcher documentNameMatcher;
+    
+    @Autowired
+    private DocumentMetadataCache documentMetadataCache;
+    
     @Value("${app.upload.dir:uploads}")
     private String uploadDirectory;
 
@@ -37,7 +44,15 @@ public class DocumentService {
         return documentRepository.findAll();
     }
 
-    public Document saveDocument(MultipartFile file, DocumentType type) throws IOException {
+    /**
+     * Store an uploaded file and queue it for extraction, persistence and indexing
+     * @param file The uploaded Word document
+     * @param type The document type
+     * @return The ingestion job tracking the upload
+     * @throws IOException If the file cannot be written
+     * @throws RejectedExecutionException If the pipeline is full; the stored file is deleted again
+     */
+    public IngestionJob saveDocument(MultipartFile file, DocumentType type) throws IOException {
         ValidateFile(file, type);
 
         // Create upload directory if it doesn't exist
@@ -46,41 +61,32 @@ public class DocumentService {
             Files.createDirectories(uploadPath);
         }
         
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        Path filePath = uploadPath.resolve(originalFilename);
-        Files.write(filePath, file.getBytes());
-        
-        // Create document entity based on type
-        Document doc;
-        switch (type) {
-            case POLICY:
-                doc = new PolicyDocument();
-                break;
-            case REPORT:
-                doc = new ReportDocument();
-                break;
-            case MANUAL:
-                doc = new ManualDocument();
-                break;
-                default:
-                    throw new IllegalArgumentException("Unknown document type");
-                }
-                        
-        String content = extractTextFromWordFile(filePath, originalFilename.toLowerCase());
-        doc = CreateDocument(doc, originalFilename, content, filePath, file.getSize());
-        // Save to database
-        Document savedDoc = documentRepository.save(doc);
+        // Stream to disk in small buffers (no full copy on the heap), hashing as we go
+        String originalFilename = UploadFiles.requireWordDocument(file.getOriginalFilename());
+        Path filePath = UploadFiles.storagePath(uploadPath, originalFilename);
+        String checksum;
+        try (InputStream in = file.getInputStream()) {
+            checksum = UploadFiles.writeWithChecksum(in, filePath);
+        }
         
-        // Add to vector store for semantic search (async in production)
+        // Extraction, saving and embedding continue on the ingestion pipeline
         try {
-            vectorStoreService.addDocument(savedDoc);
-        } catch (Exception e) {
-            // Log error but don't fail document save
-            System.err.println("Warning: Failed to add document to vector store: " + e.getMessage());
+            return ingestionPipeline.submit(filePath, originalFilename, type, file.getSize(), checksum);
+        } catch (RejectedExecutionException e) {
+            // The file was written for this upload alone and no document points to it; the client retries the whole upload
+            Files.deleteIfExists(filePath);
+            throw e;
         }
-        
-        return savedDoc;
+    }
+
+    /**
+     * Look up an ingestion job
+     * @param jobId The job id returned on upload
+     * @return The job
+     */
+    public IngestionJob getIngestionJob(String jobId) {
+        return ingestionPipeline.getJob(jobId)
+            .orElseThrow(() -> new IllegalArgumentException("Ingestion job not found with id: " + jobId));
     }
 
     public void deleteDocument(Long id) throws IOException {
@@ -111,6 +117,8 @@ public class DocumentService {
         
         // Delete from database
         documentRepository.deleteById(id);
+        documentNameMatcher.remove(id);
+        documentMetadataCache.invalidate(id);
     }
 
     public Document getDocument(Long id) {
@@ -138,52 +146,6 @@ public class DocumentService {
         }
         
         // Validate file is a Word document
-        String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null) {
-            throw new IllegalArgumentException("Filename cannot be null");
-        }
-        String lowerFilename = originalFilename.toLowerCase();
-        if (!lowerFilename.endsWith(".doc") && !lowerFilename.endsWith(".docx")) {
-            throw new IllegalArgumentException("Only Word documents (.doc, .docx) are allowed");
-        }
-    }
-
-    private Document CreateDocument(Document doc, String originalFilename, String content, Path filePath, Long size) {
-        doc.setName(originalFilename);
-        doc.setContent(content);
-        doc.setPath(filePath.toString());
-        doc.setSize(size);
-        doc.setCreatedAt(LocalDateTime.now());
-        doc.setType();
-
-        return doc;
-    }
-    /**
-     * Extract text content from Word document (.doc or .docx)
-     * @param filePath Path to the Word document file
-     * @param filename Lowercase filename to determine file type
-     * @return Extracted text content from the document
-     * @throws IOException if file cannot be read
-     */
-    private String extractTextFromWordFile(Path filePath, String filename) throws IOException {
-        try (InputStream inputStream = Files.newInputStream(filePath)) {
-            if (filename.endsWith(".docx")) {
-                // Handle .docx files (Office Open XML format)
-                try (XWPFDocument document = new XWPFDocument(inputStream);
-                     XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
-                    return extractor.getText();
-                }
-            } else if (filename.endsWith(".doc")) {
-                // Handle .doc files (older binary format)
-                try (HWPFDocument document = new HWPFDocument(inputStream);
-                     WordExtractor extractor = new WordExtractor(document)) {
-                    return extractor.getText();
-                }
-            } else {
-                throw new IllegalArgumentException("Unsupported file format");
-            }
-        } catch (Exception e) {
-            throw new IOException("Error extracting text from Word document: " + e.getMessage(), e);
-        }
+        UploadFiles.requireWordDocument(file.getOriginalFilename());
     }
-}
\ No newline at end of file
+}
@@ -1,116 +1,226 @@
 package com.knowledgehub.services;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.knowledgehub.services.embedding.EmbeddingBatcher;
+import com.knowledgehub.services.embedding.EmbeddingCache;
+import com.knowledgehub.services.embedding.EmbeddingProvider;
+import com.knowledgehub.services.embedding.QueryEmbeddingCache;
+import com.knowledgehub.services.trace.RequestTrace;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Service for generating embeddings from text using OpenAI's embedding API via HTTP
+ * Service for generating embeddings from text with the configured {@link EmbeddingProvider}
+ * (OpenAI's embedding API, or local feature hashing; see app.embedding.provider).
+ * For a remote provider, requests from concurrent callers are micro-batched into array-input API calls
+ * by an {@link EmbeddingBatcher}, and document embeddings are looked up in the {@link EmbeddingCache} first,
+ * so content that was embedded before (including before a restart) does not go to the API again.
+ * A local provider is called directly, since its vectors cost less to compute than to batch or read from disk.
+ * Query embeddings go through a short-lived {@link QueryEmbeddingCache} instead.
+ * Every provider call is timed (knowledgehub.embedding.requests) and its batch size recorded; failed calls are counted.
  */
 @Service
 public class EmbeddingService {
 
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final EmbeddingProvider provider;
+    private final EmbeddingBatcher batcher;
+    private final EmbeddingCache cache;
+    private final QueryEmbeddingCache queryCache;
     
-    @Value("${spring.ai.openai.api-key}")
-    private String apiKey;
+    // Provider call metrics, tagged with the model
+    private final Timer requestTimer;
+    private final Timer failedRequestTimer;
+    private final Counter failureCounter;
+    private final DistributionSummary batchSize;
     
-    private static final String EMBEDDING_API_URL = "https://api.openai.com/v1/embeddings";
-    private static final String EMBEDDING_MODEL = "text-embedding-3-small";
-
-    public EmbeddingService() {
-        this.restTemplate = new RestTemplate();
-        this.objectMapper = new ObjectMapper();
+    public EmbeddingService(
+            EmbeddingProvider provider,
+            EmbeddingCache cache,
+            QueryEmbeddingCache queryCache,
+            MeterRegistry meterRegistry,
+            @Value("${app.embedding.batch.window-ms:10}") long batchWindowMillis,
+            @Value("${app.embedding.batch.max-size:256}") int maxBatchSize,
+            @Value("${app.embedding.batch.max-tokens:100000}") int maxBatchTokens,
+            @Value("${app.embedding.batch.max-concurrent-requests:4}") int maxConcurrentRequests) {
+        this.provider = provider;
+        this.cache = cache;
+        this.queryCache = queryCache;
+        this.requestTimer = Timer.builder("knowledgehub.embedding.requests")
+            .description("Embedding provider calls")
+            .tags("model", provider.getModel(), "outcome", "success")
+            .register(meterRegistry);
+        this.failedRequestTimer = Timer.builder("knowledgehub.embedding.requests")
+            .description("Embedding provider calls")
+            .tags("model", provider.getModel(), "outcome", "failure")
+            .register(meterRegistry);
+        this.failureCounter = Counter.builder("knowledgehub.embedding.failures")
+            .description("Embedding provider calls that failed")
+            .tag("model", provider.getModel())
+            .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("knowledgehub.embedding.batch.size")
+            .description("Texts sent per embedding provider call")
+            .baseUnit("texts")
+            .tag("model", provider.getModel())
+            .register(meterRegistry);
+        this.batcher = new EmbeddingBatcher(this::callProvider, maxBatchSize, maxBatchTokens,
+            batchWindowMillis, maxConcurrentRequests);
     }
 
     /**
-     * Generate embedding vector for a single text using OpenAI's embedding API
+     * Generate embedding for a single text as a primitive vector.
+     * Preferred by the vector store since it avoids boxing every dimension.
      * @param text The text to embed
-     * @return List of doubles representing the embedding vector
+     * @return Embedding vector
      */
-    public List<Double> generateEmbedding(String text) {
-        if (text == null || text.trim().isEmpty()) {
-            throw new IllegalArgumentException("Text cannot be null or empty");
+    public float[] generateEmbeddingVector(String text) {
+        validateText(text);
+        if (provider.isLocal()) {
+            return callProvider(List.of(text)).get(0);
         }
-        
-        try {
-            // Prepare request
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + apiKey);
-            headers.set("Content-Type", "application/json");
-            
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", EMBEDDING_MODEL);
-            requestBody.put("input", text);
-            
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-            
-            // Call OpenAI API
-            ResponseEntity<String> response = restTemplate.exchange(
-                EMBEDDING_API_URL,
-                HttpMethod.POST,
-                request,
-                String.class
-            );
-            
-            // Parse response
-            JsonNode jsonResponse = objectMapper.readTree(response.getBody());
-            JsonNode dataArray = jsonResponse.get("data");
-            
-            if (dataArray == null || !dataArray.isArray() || dataArray.size() == 0) {
-                throw new RuntimeException("Failed to generate embedding: invalid response");
-            }
-            
-            JsonNode embeddingArray = dataArray.get(0).get("embedding");
-            List<Double> embedding = new ArrayList<>();
-            
-            for (JsonNode value : embeddingArray) {
-                embedding.add(value.asDouble());
-            }
-            
-            return embedding;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate embedding: " + e.getMessage(), e);
+        float[] cached = cache.get(provider.getModel(), provider.getDimensions(), text);
+        if (cached != null) {
+            return cached;
         }
+        float[] embedding = await(batcher.submit(text));
+        cache.put(provider.getModel(), provider.getDimensions(), text, embedding);
+        return embedding;
     }
 
     /**
-     * Generate embeddings for multiple texts
+     * Generate embeddings for multiple texts as primitive vectors.
+     * Cached texts are answered locally; the rest are queued at once, so they share as few
+     * API calls as the batch limits allow.
      * @param texts List of texts to embed
-     * @return List of embedding vectors (one per text)
+     * @return List of embedding vectors (one per text, in the same order)
      */
-    public List<List<Double>> generateEmbeddings(List<String> texts) {
+    public List<float[]> generateEmbeddingVectors(List<String> texts) {
         if (texts == null || texts.isEmpty()) {
             throw new IllegalArgumentException("Texts cannot be null or empty");
         }
+        texts.forEach(this::validateText);
+        if (provider.isLocal()) {
+            return callProvider(texts);
+        }
         
-        // For simplicity, generate embeddings one by one
-        // In production, you could batch them
-        return texts.stream()
-            .map(this::generateEmbedding)
-            .collect(Collectors.toList());
+        float[][] embeddings = new float[texts.size()][];
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings[i] = cache.get(provider.getModel(), provider.getDimensions(), texts.get(i));
+            futures.add(embeddings[i] == null ? batcher.submit(texts.get(i)) : null);
+        }
+        for (int i = 0; i < embeddings.length; i++) {
+            if (embeddings[i] == null) {
+                embeddings[i] = await(futures.get(i));
+                cache.put(provider.getModel(), provider.getDimensions(), texts.get(i), embeddings[i]);
+            }
+        }
+        return List.of(embeddings);
     }
 
     /**
-     * Generate embedding for a query (used for similarity search)
+     * Generate query embedding as a primitive vector (used for similarity search).
+     * Queries bypass the persistent embedding cache so one-off questions don't fill it up;
+     * repeated and concurrent identical questions are served by the query cache.
      * @param query The search query
-     * @return List of doubles representing the query embedding
+     * @return Query embedding vector (shared, do not modify)
      */
-    public List<Double> generateQueryEmbedding(String query) {
-        return generateEmbedding(query);
+    public float[] generateQueryVector(String query) {
+        validateText(query);
+        return RequestTrace.time("embed", () -> await(queryCache.get(query, this::submitQuery)));
+    }
+
+    /**
+     * Get the number of texts waiting to be sent in a batch
+     * @return Pending request count
+     */
+    public int getPendingBatchSize() {
+        return batcher.pendingCount();
+    }
+
+    /**
+     * Get the provider that computes the embeddings
+     * @return The embedding provider
+     */
+    public EmbeddingProvider getProvider() {
+        return provider;
+    }
+
+    /**
+     * Get the cache in front of the embedding API
+     * @return The embedding cache
+     */
+    public EmbeddingCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Get the cache of recent query embeddings
+     * @return The query embedding cache
+     */
+    public QueryEmbeddingCache getQueryCache() {
+        return queryCache;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batcher.close();
+    }
+
+    private CompletableFuture<float[]> submitQuery(String query) {
+        if (provider.isLocal()) {
+            // Computed on the caller's thread; the batching window would only add latency
+            try {
+                return CompletableFuture.completedFuture(callProvider(List.of(query)).get(0));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return batcher.submit(query);
+    }
+
+    /**
+     * Call the provider, recording the call's latency, batch size and outcome
+     */
+    private List<float[]> callProvider(List<String> texts) {
+        batchSize.record(texts.size());
+        long start = System.nanoTime();
+        try {
+            List<float[]> embeddings = provider.embed(texts);
+            requestTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return embeddings;
+        } catch (RuntimeException e) {
+            failedRequestTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            failureCounter.increment();
+            throw e;
+        }
+    }
+
+    private void validateText(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            throw new IllegalArgumentException("Text cannot be null or empty");
+        }
+    }
+
+    private float[] await(CompletableFuture<float[]> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Failed to generate embedding: " + cause.getMessage(), cause);
+        }
     }
 }
 
@@ -0,0 +1,238 @@
+package com.knowledgehub.services;
+
+import com.knowledgehub.models.DTO.AnswerCacheStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of generated answers, looked up by meaning rather than exact text.
+ * An entry is scoped to the documents its answer was built from (ids and indexed versions);
+ * a later question that retrieves the same documents at the same versions and whose embedding
+ * has cosine similarity of at least the threshold with a cached question gets the cached answer.
+ * Entries are dropped as soon as one of their documents is saved or deleted.
+ */
+@Component
+public class SemanticAnswerCache {
+
+    // Questions kept per scope; the oldest is replaced first
+    private static final int MAX_ENTRIES_PER_SCOPE = 16;
+
+    private final boolean enabled;
+    private final float similarityThreshold;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // scope key -> cached questions, access-ordered so the least recently used scope is evicted first
+    private final LinkedHashMap<String, List<CachedAnswer>> scopes = new LinkedHashMap<>(64, 0.75f, true);
+    // scope key -> document ids it depends on, for invalidation
+    private final Map<String, Set<Long>> scopeDocuments = new LinkedHashMap<>();
+    private int entryCount;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bypasses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public SemanticAnswerCache(@Value("${app.answer-cache.enabled:true}") boolean enabled,
+                               @Value("${app.answer-cache.similarity-threshold:0.95}") float similarityThreshold,
+                               @Value("${app.answer-cache.max-entries:1000}") int maxEntries,
+                               @Value("${app.answer-cache.ttl-minutes:60}") long ttlMinutes) {
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(Math.max(1, ttlMinutes));
+    }
+
+    /**
+     * Build the scope key for an answer from the documents it is based on
+     * @param mode Which prompt produced the answer (answers from different prompts never mix)
+     * @param documentVersions documentId -> indexed version
+     * @return Scope key
+     */
+    public static String scopeKey(String mode, Map<Long, Long> documentVersions) {
+        StringBuilder key = new StringBuilder(mode);
+        for (Map.Entry<Long, Long> entry : new TreeMap<>(documentVersions).entrySet()) {
+            key.append('|').append(entry.getKey()).append('@').append(entry.getValue());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Find a cached answer for a question similar enough to this one
+     * @param scopeKey Scope from {@link #scopeKey(String, Map)}
+     * @param queryVector Normalized embedding of the question
+     * @return The cached answer, or null on a miss
+     */
+    public String lookup(String scopeKey, float[] queryVector) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (this) {
+            List<CachedAnswer> answers = scopes.get(scopeKey);
+            if (answers != null) {
+                long now = System.nanoTime();
+                CachedAnswer best = null;
+                float bestScore = similarityThreshold;
+                Iterator<CachedAnswer> it = answers.iterator();
+                while (it.hasNext()) {
+                    CachedAnswer cached = it.next();
+                    if (now - cached.storedAt > ttlNanos) {
+                        it.remove();
+                        entryCount--;
+                        evictions.incrementAndGet();
+                        continue;
+                    }
+                    float score = dot(queryVector, cached.queryVector);
+                    if (score >= bestScore) {
+                        best = cached;
+                        bestScore = score;
+                    }
+                }
+                if (answers.isEmpty()) {
+                    removeScope(scopeKey);
+                }
+                if (best != null) {
+                    hits.incrementAndGet();
+                    return best.answer;
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cache an answer
+     * @param scopeKey Scope from {@link #scopeKey(String, Map)}
+     * @param documentIds Documents the answer depends on
+     * @param queryVector Normalized embedding of the question
+     * @param answer The generated answer
+     */
+    public synchronized void store(String scopeKey, Set<Long> documentIds, float[] queryVector, String answer) {
+        if (!enabled || answer == null) {
+            return;
+        }
+        List<CachedAnswer> answers = scopes.computeIfAbsent(scopeKey, key -> new ArrayList<>());
+        scopeDocuments.put(scopeKey, documentIds);
+        if (answers.size() >= MAX_ENTRIES_PER_SCOPE) {
+            answers.remove(0);
+            entryCount--;
+            evictions.incrementAndGet();
+        }
+        answers.add(new CachedAnswer(queryVector, answer, System.nanoTime()));
+        entryCount++;
+
+        // Evict whole scopes, least recently used first, until we are back under the limit
+        Iterator<Map.Entry<String, List<CachedAnswer>>> it = scopes.entrySet().iterator();
+        while (entryCount > maxEntries && it.hasNext()) {
+            Map.Entry<String, List<CachedAnswer>> eldest = it.next();
+            if (eldest.getKey().equals(scopeKey)) {
+                continue;
+            }
+            entryCount -= eldest.getValue().size();
+            evictions.addAndGet(eldest.getValue().size());
+            scopeDocuments.remove(eldest.getKey());
+            it.remove();
+        }
+    }
+
+    /**
+     * Record a request that skipped the cache
+     */
+    public void recordBypass() {
+        bypasses.incrementAndGet();
+    }
+
+    /**
+     * Drop every answer built from a document that was saved or deleted
+     * @param event The change
+     */
+    @EventListener
+    public synchronized void onDocumentChanged(DocumentChangedEvent event) {
+        Long documentId = event.getDocumentId();
+        List<String> affected = new ArrayList<>();
+        for (Map.Entry<String, Set<Long>> entry : scopeDocuments.entrySet()) {
+            if (entry.getValue().contains(documentId)) {
+                affected.add(entry.getKey());
+            }
+        }
+        for (String scopeKey : affected) {
+            List<CachedAnswer> answers = scopes.get(scopeKey);
+            if (answers != null) {
+                invalidations.addAndGet(answers.size());
+            }
+            removeScope(scopeKey);
+        }
+    }
+
+    /**
+     * Drop all cached answers
+     */
+    public synchronized void clear() {
+        scopes.clear();
+        scopeDocuments.clear();
+        entryCount = 0;
+    }
+
+    public synchronized AnswerCacheStatsResponse getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        return new AnswerCacheStatsResponse(
+            enabled,
+            hitCount,
+            missCount,
+            bypasses.get(),
+            invalidations.get(),
+            evictions.get(),
+            entryCount,
+            lookups == 0 ? 0.0 : (double) hitCount / lookups
+        );
+    }
+
+    private void removeScope(String scopeKey) {
+        List<CachedAnswer> answers = scopes.remove(scopeKey);
+        if (answers != null) {
+            entryCount -= answers.size();
+        }
+        scopeDocuments.remove(scopeKey);
+    }
+
+    private static float dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return -1f;
+        }
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Helper class to hold a cached question embedding with its answer
+     */
+    private static class CachedAnswer {
+        final float[] queryVector;
+        final String answer;
+        final long storedAt;
+
+        CachedAnswer(float[] queryVector, String answer, long storedAt) {
+            this.queryVector = queryVector;
+            this.answer = answer;
+            this.storedAt = storedAt;
+        }
+    }
+}
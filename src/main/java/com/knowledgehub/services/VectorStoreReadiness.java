@@ -0,0 +1,99 @@
+package com.knowledgehub.services;
+
+import com.knowledgehub.models.DTO.IndexStatusResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks vector store warm-up, so requests served before it finishes can be flagged as
+ * answered from a partial index and readiness probes can wait for it
+ */
+@Component
+public class VectorStoreReadiness {
+
+    public enum Phase {
+        STARTING,
+        RESTORING,
+        INDEXING,
+        READY,
+        FAILED
+    }
+
+    private volatile Phase phase = Phase.STARTING;
+    private volatile long startedAt = System.currentTimeMillis();
+    private volatile long finishedAt;
+    private volatile int restoredDocuments;
+    private volatile int documentsToIndex;
+    private final AtomicInteger indexedDocuments = new AtomicInteger();
+    private final AtomicInteger failedDocuments = new AtomicInteger();
+
+    public void restoring() {
+        startedAt = System.currentTimeMillis();
+        phase = Phase.RESTORING;
+    }
+
+    /**
+     * @param restored Documents restored from the snapshot
+     * @param toIndex Documents that still have to be embedded
+     */
+    public void indexing(int restored, int toIndex) {
+        restoredDocuments = restored;
+        documentsToIndex = toIndex;
+        phase = Phase.INDEXING;
+    }
+
+    public void documentIndexed() {
+        indexedDocuments.incrementAndGet();
+    }
+
+    public void documentFailed() {
+        failedDocuments.incrementAndGet();
+    }
+
+    public void ready() {
+        finishedAt = System.currentTimeMillis();
+        phase = Phase.READY;
+    }
+
+    public void failed() {
+        finishedAt = System.currentTimeMillis();
+        phase = Phase.FAILED;
+    }
+
+    /**
+     * Check whether warm-up has finished and every document that could be indexed is searchable
+     * @return True once warm-up is complete
+     */
+    public boolean isReady() {
+        return phase == Phase.READY;
+    }
+
+    /**
+     * Get warm-up progress as "indexed/total" (documents that failed count as done)
+     * @return Progress string
+     */
+    public String getProgress() {
+        int done = indexedDocuments.get() + failedDocuments.get();
+        return done + "/" + documentsToIndex;
+    }
+
+    /**
+     * Get a snapshot of warm-up progress
+     * @param searchableDocuments Documents currently in the vector store
+     * @return Status for the readiness endpoint
+     */
+    public IndexStatusResponse getStatus(int searchableDocuments) {
+        long end = finishedAt != 0 ? finishedAt : System.currentTimeMillis();
+        return new IndexStatusResponse(
+            phase.name(),
+            isReady(),
+            searchableDocuments,
+            restoredDocuments,
+            documentsToIndex,
+            indexedDocuments.get(),
+            failedDocuments.get(),
+            end - startedAt
+        );
+    }
+}
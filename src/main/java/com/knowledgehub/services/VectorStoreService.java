@@ -3,32 +3,139 @@ package com.knowledgehub.services;
 import com.knowledgehub.models.Document;
 import com.knowledgehub.models.DocumentType;
 import com.knowledgehub.models.VectorDocument;
+import com.knowledgehub.services.index.Bm25Index;
+import com.knowledgehub.services.index.PartitionedVectorIndex;
+import com.knowledgehub.services.index.SearchHits;
+import com.knowledgehub.services.index.VectorArena;
+import com.knowledgehub.services.index.VectorIndex;
+import com.knowledgehub.services.index.VectorSnapshotStore;
+import com.knowledgehub.services.index.VectorSnapshotStore.StoredDocument;
+import com.knowledgehub.services.trace.RequestTrace;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * In-memory vector store for semantic search
- * Uses cosine similarity for finding similar documents
+ * Documents are split into chunks by {@link DocumentChunker} and every chunk gets its own embedding.
+ * Embeddings are kept normalized in a {@link VectorArena}, so cosine similarity is a dot product.
+ * Searches go through the configured {@link VectorIndex} (exact scan or HNSW) and return chunks.
+ * The index is partitioned by document type, so a type-scoped search scans only chunks of that type.
+ * The same chunks are kept in a {@link Bm25Index} for keyword search, which can be fused with vector search
+ * and takes over while nothing is embedded yet; a document's text is indexed there before it is embedded.
+ * Every change is appended to a {@link VectorSnapshotStore} log, so a restart can restore
+ * the store from disk instead of re-embedding every document.
+ * A {@link DocumentChangedEvent} is published whenever a document's chunks are replaced or removed.
+ * Index lookups are timed as knowledgehub.search, tagged with the kind of search (query embedding not included).
  */
 @Service
 public class VectorStoreService {
 
     private final EmbeddingService embeddingService;
+    private final DocumentChunker documentChunker;
     
-    // In-memory storage: documentId -> VectorDocument
+    // In-memory storage: chunkId -> VectorDocument (chunk text and metadata, embedding lives in the arena)
     private final Map<Long, VectorDocument> vectorStore = new ConcurrentHashMap<>();
     
+    // documentId -> ids of the chunks indexed for that document
+    private final Map<Long, long[]> chunkIdsByDocument = new ConcurrentHashMap<>();
+    
+    // documentId -> updatedAt (epoch millis) of the version that was indexed
+    private final Map<Long, Long> documentVersions = new ConcurrentHashMap<>();
+    
+    private final AtomicLong chunkIdSequence = new AtomicLong();
+    
+    // Serializes mutations so the snapshot log records them in the order they were applied
+    private final Object mutationLock = new Object();
+    
+    // Normalized embeddings packed into float[] slabs, keyed by chunkId
+    private final VectorArena vectorArena;
+    
+    // Similarity index over the arena slots, one partition per document type
+    private final PartitionedVectorIndex vectorIndex;
+    
+    // On-disk snapshot and mutation log
+    private final VectorSnapshotStore snapshotStore;
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    // BM25 index over the text of every chunk above, plus the text-only chunks below, keyed by chunkId
+    private final Bm25Index lexicalIndex;
+    
+    // Chunks of documents whose text is indexed but not (re-)embedded yet: chunkId -> chunk, keyword search only
+    private final Map<Long, VectorDocument> textOnlyChunks = new ConcurrentHashMap<>();
+    
+    // documentId -> ids of its text-only chunks
+    private final Map<Long, long[]> textOnlyChunkIdsByDocument = new ConcurrentHashMap<>();
+    
+    // documentId -> version of its text-only chunks
+    private final Map<Long, Long> textOnlyVersions = new ConcurrentHashMap<>();
+    
+    private final RetrievalMode retrievalMode;
+    
+    // Hybrid retrieval: results taken from each ranking before fusing, and the reciprocal rank constant
+    private final int hybridCandidates;
+    private final int rrfK;
+    
+    // Chunks guaranteed per document type when one scores at least typeMinSimilarity (0 = no guarantee)
+    private final int typeQuota;
+    private final float typeMinSimilarity;
+    
+    // Index lookup time by kind of search
+    private final Timer vectorSearchTimer;
+    private final Timer lexicalSearchTimer;
+    private final Timer typeSearchTimer;
+    
     @Autowired
-    public VectorStoreService(EmbeddingService embeddingService) {
+    public VectorStoreService(EmbeddingService embeddingService, DocumentChunker documentChunker,
+                              VectorArena vectorArena, PartitionedVectorIndex vectorIndex,
+                              VectorSnapshotStore snapshotStore, ApplicationEventPublisher eventPublisher,
+                              Bm25Index lexicalIndex, MeterRegistry meterRegistry,
+                              @Value("${app.retrieval.mode:vector}") String retrievalMode,
+                              @Value("${app.retrieval.hybrid.candidates:20}") int hybridCandidates,
+                              @Value("${app.retrieval.hybrid.rrf-k:60}") int rrfK,
+                              @Value("${app.retrieval.type-quota:1}") int typeQuota,
+                              @Value("${app.retrieval.type-min-similarity:0.25}") float typeMinSimilarity) {
         this.embeddingService = embeddingService;
+        this.documentChunker = documentChunker;
+        this.vectorArena = vectorArena;
+        this.vectorIndex = vectorIndex;
+        this.snapshotStore = snapshotStore;
+        this.eventPublisher = eventPublisher;
+        this.lexicalIndex = lexicalIndex;
+        this.retrievalMode = RetrievalMode.parse(retrievalMode);
+        this.hybridCandidates = Math.max(1, hybridCandidates);
+        this.rrfK = Math.max(1, rrfK);
+        this.typeQuota = Math.max(0, typeQuota);
+        this.typeMinSimilarity = typeMinSimilarity;
+        this.vectorSearchTimer = searchTimer(meterRegistry, "vector");
+        this.lexicalSearchTimer = searchTimer(meterRegistry, "lexical");
+        this.typeSearchTimer = searchTimer(meterRegistry, "type");
+    }
+    
+    private static Timer searchTimer(MeterRegistry meterRegistry, String kind) {
+        return Timer.builder("knowledgehub.search")
+            .description("Vector and keyword index lookups")
+            .tag("kind", kind)
+            .register(meterRegistry);
     }
 
     /**
-     * Add a document to the vector store with its embedding
+     * Add a document to the vector store, one embedding per chunk
      * @param document The document to add
      */
     public void addDocument(Document document) {
@@ -42,33 +149,124 @@ public class VectorStoreService {
             return;
         }
         
-        // Generate embedding for the document content
-        List<Double> embedding = embeddingService.generateEmbedding(content);
+        // Split into chunks that fit the embedding model and embed them
+        List<String> chunks = documentChunker.chunk(content);
+        if (chunks.isEmpty()) {
+            return;
+        }
+        // Searchable by keyword right away; vector search catches up once the chunks are embedded
+        indexText(document, chunks);
+        List<float[]> embeddings = embeddingService.generateEmbeddingVectors(chunks);
+        addDocument(document, chunks, embeddings);
+    }
+
+    /**
+     * Add a document whose chunks have already been embedded, replacing any chunks indexed for it before.
+     * Nothing changes if a newer version of the document is already indexed (e.g. warm-up finishing
+     * an old version after the document was uploaded again).
+     * @param document The document the chunks belong to
+     * @param chunks The chunk texts, in document order
+     * @param embeddings One embedding per chunk
+     */
+    public void addDocument(Document document, List<String> chunks, List<float[]> embeddings) {
+        if (document == null || document.getId() == null) {
+            throw new IllegalArgumentException("Document and document ID cannot be null");
+        }
+        if (chunks.size() != embeddings.size()) {
+            throw new IllegalArgumentException("Every chunk needs exactly one embedding");
+        }
+        if (chunks.isEmpty()) {
+            return;
+        }
         
         // Determine document type
         DocumentType docType = determineDocumentType(document);
         
-        // Create vector document
-        VectorDocument vectorDoc = new VectorDocument(
-            document.getId(),
-            document.getName(),
-            content,
-            docType,
-            embedding
-        );
+        long[] chunkIds = new long[chunks.size()];
+        for (int i = 0; i < chunkIds.length; i++) {
+            chunkIds[i] = chunkIdSequence.incrementAndGet();
+        }
+        StoredDocument stored = new StoredDocument(document.getId(), versionOf(document.getUpdatedAt()),
+            document.getName(), docType.name(), chunkIds, chunks.toArray(new String[0]),
+            embeddings.toArray(new float[0][]));
+        
+        synchronized (mutationLock) {
+            if (isOlderThanIndexed(stored.getDocumentId(), stored.getVersion())) {
+                return;
+            }
+            applyDocument(stored);
+            snapshotStore.appendPut(stored);
+        }
+        eventPublisher.publishEvent(new DocumentChangedEvent(document.getId(), DocumentChangedEvent.ChangeType.SAVED));
+        checkpointIfNeeded();
+    }
+
+    /**
+     * Make a document's chunks searchable by keyword before they are embedded.
+     * Nothing changes if the same or a newer version is already indexed; otherwise the document's previous chunks
+     * leave the keyword index (vector search keeps them until the new embeddings replace them).
+     * Text-only chunks are not written to the snapshot; warm-up indexes them again after a restart.
+     * @param document The document the chunks belong to
+     * @param chunks The chunk texts, in document order
+     */
+    public void indexText(Document document, List<String> chunks) {
+        if (document == null || document.getId() == null) {
+            throw new IllegalArgumentException("Document and document ID cannot be null");
+        }
+        if (chunks.isEmpty()) {
+            return;
+        }
+        long documentId = document.getId();
+        long version = versionOf(document.getUpdatedAt());
+        DocumentType docType = determineDocumentType(document);
         
-        // Store in memory
-        vectorStore.put(document.getId(), vectorDoc);
+        synchronized (mutationLock) {
+            Long embeddedVersion = documentVersions.get(documentId);
+            if ((embeddedVersion != null && embeddedVersion == version) || isOlderThanIndexed(documentId, version)) {
+                return;
+            }
+            removeTextOnlyChunks(documentId);
+            long[] embeddedChunkIds = chunkIdsByDocument.get(documentId);
+            if (embeddedChunkIds != null) {
+                for (long chunkId : embeddedChunkIds) {
+                    lexicalIndex.remove(chunkId);
+                }
+            }
+            
+            long[] chunkIds = new long[chunks.size()];
+            for (int i = 0; i < chunkIds.length; i++) {
+                chunkIds[i] = chunkIdSequence.incrementAndGet();
+                VectorDocument chunk = new VectorDocument(documentId, document.getName(), chunks.get(i), docType, null);
+                chunk.setChunkId(chunkIds[i]);
+                chunk.setChunkIndex(i);
+                textOnlyChunks.put(chunkIds[i], chunk);
+                lexicalIndex.add(chunkIds[i], chunks.get(i));
+            }
+            textOnlyChunkIdsByDocument.put(documentId, chunkIds);
+            textOnlyVersions.put(documentId, version);
+        }
+        eventPublisher.publishEvent(new DocumentChangedEvent(documentId, DocumentChangedEvent.ChangeType.SAVED));
     }
 
     /**
-     * Remove a document from the vector store
+     * Remove a document and all of its chunks from the vector store
      * @param documentId The ID of the document to remove
      */
     public void removeDocument(Long documentId) {
-        if (documentId != null) {
-            vectorStore.remove(documentId);
+        if (documentId == null) {
+            return;
+        }
+        boolean removed;
+        synchronized (mutationLock) {
+            removed = removeChunks(documentId);
+            if (removed) {
+                snapshotStore.appendRemove(documentId);
+            }
         }
+        if (removed) {
+            eventPublisher.publishEvent(new DocumentChangedEvent(documentId, DocumentChangedEvent.ChangeType.DELETED));
+        }
+        checkpointIfNeeded();
     }
 
     /**
@@ -77,17 +275,16 @@ public class VectorStoreService {
      */
     public void updateDocument(Document document) {
         if (document != null && document.getId() != null) {
-            // Remove old and add new
-            removeDocument(document.getId());
+            // addDocument replaces the old chunks once the new ones are embedded
             addDocument(document);
         }
     }
 
     /**
-     * Find similar documents using vector similarity search
+     * Find the chunks most similar to a query using vector similarity search
      * @param query The search query
      * @param topK Number of top results to return
-     * @return List of similar documents sorted by similarity (highest first)
+     * @return List of similar chunks sorted by similarity (highest first)
      */
     public List<VectorDocument> findSimilarDocuments(String query, int topK) {
         if (query == null || query.trim().isEmpty()) {
@@ -98,67 +295,255 @@ public class VectorStoreService {
             return Collections.emptyList();
         }
         
-        // Generate embedding for the query
-        List<Double> queryEmbedding = embeddingService.generateQueryEmbedding(query);
-        
-        // Calculate similarity for all documents
-        List<ScoredDocument> scoredDocuments = vectorStore.entrySet().stream()
-                .map(entry -> {
-                    double similarity = cosineSimilarity(queryEmbedding, entry.getValue().getEmbedding());
-                    return new ScoredDocument(entry.getKey(), entry.getValue(), similarity);
-                })
-                .sorted((a, b) -> Double.compare(b.similarity, a.similarity)) // Sort by similarity descending
-                .limit(topK)
-                .collect(Collectors.toList());
+        // Generate embedding for the query, normalized so scoring is a dot product
+        return searchVectors(VectorArena.normalize(embeddingService.generateQueryVector(query)), topK);
+    }
+
+    /**
+     * Ask the index for the closest slots (sorted by similarity descending)
+     */
+    private List<VectorDocument> searchVectors(float[] queryVector, int topK) {
+        SearchHits hits = timedSearch(vectorSearchTimer, () -> vectorIndex.search(queryVector, topK));
+        return toChunks(hits, "vector");
+    }
+
+    /**
+     * Find the chunks that best match a query by keyword (BM25), without calling the embedding API.
+     * Covers documents whose text is indexed but not embedded yet.
+     * @param query The search query
+     * @param topK Number of top results to return
+     * @return List of matching chunks sorted by score (highest first); chunks sharing no term with the query are left out
+     */
+    public List<VectorDocument> findLexicalMatches(String query, int topK) {
+        if (query == null || query.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        return toChunks(timedSearch(lexicalSearchTimer, () -> lexicalIndex.search(query, topK)), "lexical");
+    }
+
+    /**
+     * Find the chunks most relevant to a query with the configured retrieval mode (app.retrieval.mode):
+     * vector similarity, BM25 keyword matching, or both fused by reciprocal rank.
+     * Keyword matching is used whatever the mode while nothing is embedded yet or the embedding API fails,
+     * so the result is always bounded to topK.
+     * @param query The search query
+     * @param topK Number of top results to return
+     * @return List of relevant chunks, most relevant first
+     */
+    public List<VectorDocument> findRelevantChunks(String query, int topK) {
+        return retrieve(query, topK).getChunks();
+    }
+
+    /**
+     * {@link #findRelevantChunks(String, int)}, keeping the query embedding if one was computed
+     */
+    private RelevantChunks retrieve(String query, int topK) {
+        if (query == null || query.trim().isEmpty()) {
+            return new RelevantChunks(Collections.emptyList(), null);
+        }
+        if (retrievalMode == RetrievalMode.LEXICAL || vectorStore.isEmpty()) {
+            return new RelevantChunks(findLexicalMatches(query, topK), null);
+        }
         
-        return scoredDocuments.stream()
-                .map(sd -> sd.vectorDocument)
-                .collect(Collectors.toList());
+        int candidates = retrievalMode == RetrievalMode.HYBRID ? Math.max(topK, hybridCandidates) : topK;
+        float[] queryVector;
+        List<VectorDocument> vectorResults;
+        try {
+            queryVector = VectorArena.normalize(embeddingService.generateQueryVector(query));
+            vectorResults = searchVectors(queryVector, candidates);
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Vector search failed, using keyword search: " + e.getMessage());
+            return new RelevantChunks(findLexicalMatches(query, topK), null);
+        }
+        if (retrievalMode == RetrievalMode.VECTOR) {
+            return new RelevantChunks(vectorResults, queryVector);
+        }
+        return new RelevantChunks(
+            fuseByReciprocalRank(List.of(vectorResults, findLexicalMatches(query, candidates)), topK), queryVector);
     }
 
     /**
-     * Find similar documents filtered by document type
+     * Find the chunks of a single document most similar to a query.
+     * Only that document's chunks are scored, so the result is exact.
+     * In lexical mode they are ranked by keyword match instead, without calling the embedding API.
      * @param query The search query
-     * @param documentType The document type to filter by
+     * @param documentId The document to search in
      * @param topK Number of top results to return
-     * @return List of similar documents of the specified type
+     * @return List of the document's chunks sorted by similarity (highest first)
      */
-    public List<VectorDocument> findSimilarDocumentsByType(String query, DocumentType documentType, int topK) {
-        List<VectorDocument> allSimilar = findSimilarDocuments(query, topK * 2); // Get more to filter
+    public List<VectorDocument> findSimilarChunksInDocument(String query, Long documentId, int topK) {
+        if (query == null || query.trim().isEmpty() || documentId == null) {
+            return Collections.emptyList();
+        }
+        if (retrievalMode == RetrievalMode.LEXICAL) {
+            return findLexicalMatchesInDocument(query, documentId, topK);
+        }
+        long[] chunkIds = chunkIdsByDocument.get(documentId);
+        if (chunkIds == null || chunkIds.length == 0) {
+            return Collections.emptyList();
+        }
         
-        return allSimilar.stream()
-                .filter(doc -> doc.getDocumentType() == documentType)
+        float[] queryVector = VectorArena.normalize(embeddingService.generateQueryVector(query));
+        
+        List<ScoredChunk> scoredChunks = new ArrayList<>(chunkIds.length);
+        // These slots are read outside the index, so hold the arena lock to keep them from being reused
+        Lock readLock = vectorArena.readLock();
+        readLock.lock();
+        try {
+            if (queryVector.length != vectorArena.dimension()) {
+                return Collections.emptyList();
+            }
+            for (long chunkId : chunkIds) {
+                int slot = vectorArena.slotOf(chunkId);
+                VectorDocument chunk = vectorStore.get(chunkId);
+                if (slot >= 0 && chunk != null) {
+                    scoredChunks.add(new ScoredChunk(chunk, vectorArena.dot(queryVector, slot)));
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+        
+        return scoredChunks.stream()
+                .sorted((a, b) -> Float.compare(b.similarity, a.similarity))
                 .limit(topK)
+                .peek(sc -> RequestTrace.retrieved("document", sc.chunk, sc.similarity))
+                .map(sc -> sc.chunk)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Calculate cosine similarity between two vectors
-     * @param vector1 First vector
-     * @param vector2 Second vector
-     * @return Cosine similarity score (0 to 1, where 1 is most similar)
+     * Keyword matches among one document's chunks (embedded or text-only)
      */
-    private double cosineSimilarity(List<Double> vector1, List<Double> vector2) {
-        if (vector1 == null || vector2 == null || vector1.size() != vector2.size()) {
-            return 0.0;
+    private List<VectorDocument> findLexicalMatchesInDocument(String query, Long documentId, int topK) {
+        // The index only visits passages sharing a term with the query, so ranking all of them stays cheap
+        SearchHits hits = timedSearch(lexicalSearchTimer, () -> lexicalIndex.search(query, lexicalIndex.size()));
+        List<VectorDocument> results = new ArrayList<>(topK);
+        for (int rank = 0; rank < hits.size() && results.size() < topK; rank++) {
+            VectorDocument chunk = vectorStore.get(hits.id(rank));
+            if (chunk == null) {
+                chunk = textOnlyChunks.get(hits.id(rank));
+            }
+            if (chunk != null && documentId.equals(chunk.getDocumentId())) {
+                results.add(chunk);
+                RequestTrace.retrieved("document", chunk, hits.score(rank));
+            }
         }
-        
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-        
-        for (int i = 0; i < vector1.size(); i++) {
-            dotProduct += vector1.get(i) * vector2.get(i);
-            norm1 += vector1.get(i) * vector1.get(i);
-            norm2 += vector2.get(i) * vector2.get(i);
+        return results;
+    }
+
+    /**
+     * Find the chunks of one document type most similar to a query.
+     * Only that type's partition is searched, so the result holds topK chunks whenever the type has that many.
+     * @param query The search query
+     * @param documentType The document type to search in
+     * @param topK Number of top results to return
+     * @return List of similar chunks of the specified type sorted by similarity (highest first)
+     */
+    public List<VectorDocument> findSimilarDocumentsByType(String query, DocumentType documentType, int topK) {
+        if (query == null || query.trim().isEmpty() || documentType == null
+                || vectorIndex.size(documentType.name()) == 0) {
+            return Collections.emptyList();
         }
         
-        double denominator = Math.sqrt(norm1) * Math.sqrt(norm2);
-        if (denominator == 0.0) {
-            return 0.0;
+        float[] queryVector = VectorArena.normalize(embeddingService.generateQueryVector(query));
+        return toChunks(timedSearch(typeSearchTimer, () -> vectorIndex.search(queryVector, documentType.name(), topK)), "type");
+    }
+
+    /**
+     * {@link #findRelevantChunks(String, int)}, topped up so that every document type is represented:
+     * a type missing from the results adds its best chunks (up to app.retrieval.type-quota) that are at least
+     * app.retrieval.type-min-similarity similar to the query. Each top-up searches only that type's partition
+     * with the embedding the search already computed; there is no top-up when the chunks were found by keyword alone.
+     * @param query The search query
+     * @param topK Number of top results to return before topping up
+     * @return The relevant chunks, most relevant first, followed by any top-ups, and the query embedding if any
+     */
+    public RelevantChunks findRelevantChunksWithTypeQuotas(String query, int topK) {
+        RelevantChunks relevant = retrieve(query, topK);
+        List<VectorDocument> chunks = relevant.getChunks();
+        float[] queryVector = relevant.getQueryVector();
+        if (typeQuota == 0 || chunks.isEmpty() || queryVector == null) {
+            return relevant;
         }
         
-        return dotProduct / denominator;
+        Set<DocumentType> presentTypes = EnumSet.noneOf(DocumentType.class);
+        for (VectorDocument chunk : chunks) {
+            presentTypes.add(chunk.getDocumentType());
+        }
+        List<VectorDocument> result = new ArrayList<>(chunks);
+        try {
+            for (DocumentType type : DocumentType.values()) {
+                if (presentTypes.contains(type) || vectorIndex.size(type.name()) == 0) {
+                    continue;
+                }
+                SearchHits hits = timedSearch(typeSearchTimer, () -> vectorIndex.search(queryVector, type.name(), typeQuota));
+                // Hits are sorted, so the first one below the threshold ends the top-up
+                for (int rank = 0; rank < hits.size() && hits.score(rank) >= typeMinSimilarity; rank++) {
+                    VectorDocument chunk = vectorStore.get(hits.id(rank));
+                    if (chunk != null) {
+                        result.add(chunk);
+                        RequestTrace.retrieved("type", chunk, hits.score(rank));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Per-type search failed, using the top results only: " + e.getMessage());
+            return relevant;
+        }
+        return new RelevantChunks(result, queryVector);
+    }
+
+    /**
+     * Reciprocal rank fusion: a chunk scores the sum of 1 / (k + rank) over the rankings it appears in,
+     * so chunks ranked well by both searches come first without comparing their raw scores
+     */
+    private List<VectorDocument> fuseByReciprocalRank(List<List<VectorDocument>> rankings, int topK) {
+        Map<Long, Double> scores = new LinkedHashMap<>();
+        Map<Long, VectorDocument> chunks = new HashMap<>();
+        for (List<VectorDocument> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                VectorDocument chunk = ranking.get(rank);
+                scores.merge(chunk.getChunkId(), 1.0 / (rrfK + rank + 1), Double::sum);
+                chunks.putIfAbsent(chunk.getChunkId(), chunk);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .limit(topK)
+                .map(entry -> chunks.get(entry.getKey()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Run an index lookup, recording its time in the search timer and the request trace
+     */
+    private SearchHits timedSearch(Timer timer, Supplier<SearchHits> search) {
+        long start = System.nanoTime();
+        SearchHits hits = search.get();
+        long elapsed = System.nanoTime() - start;
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        RequestTrace.record("search", elapsed);
+        return hits;
+    }
+
+    /**
+     * Resolve search hits to chunks, keeping them and their scores in a detailed request trace.
+     * Hits can race with a concurrent removal; ids that are already gone are skipped.
+     */
+    private List<VectorDocument> toChunks(SearchHits hits, String search) {
+        List<VectorDocument> results = new ArrayList<>(hits.size());
+        for (int rank = 0; rank < hits.size(); rank++) {
+            VectorDocument chunk = vectorStore.get(hits.id(rank));
+            if (chunk == null) {
+                chunk = textOnlyChunks.get(hits.id(rank));
+            }
+            if (chunk != null) {
+                results.add(chunk);
+                RequestTrace.retrieved(search, chunk, hits.score(rank));
+            }
+        }
+        return results;
     }
 
     /**
@@ -178,8 +563,163 @@ public class VectorStoreService {
     }
 
     /**
-     * Get all documents in the vector store
-     * @return Collection of all vector documents
+     * Restore the store from the on-disk snapshot and mutation log.
+     * Call once at startup, before any other mutation: restored chunk ids are only reserved once this returns.
+     * @return documentId -> version (see {@link #versionOf(LocalDateTime)}) of every restored document
+     */
+    public Map<Long, Long> restoreFromSnapshot() {
+        synchronized (mutationLock) {
+            try {
+                snapshotStore.load(this::applyDocument, this::removeChunks);
+            } catch (IOException e) {
+                System.err.println("Warning: Failed to open vector snapshot: " + e.getMessage());
+            }
+            return new HashMap<>(documentVersions);
+        }
+    }
+
+    /**
+     * Write a fresh snapshot of the whole store and truncate the mutation log.
+     * Mutations wait until the snapshot is written.
+     */
+    public void checkpoint() {
+        synchronized (mutationLock) {
+            try {
+                snapshotStore.writeSnapshot(() -> chunkIdsByDocument.entrySet().stream()
+                    .map(entry -> toStoredDocument(entry.getKey(), entry.getValue()))
+                    .iterator());
+            } catch (IOException e) {
+                System.err.println("Warning: Failed to write vector snapshot: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Version stamp recorded for a document, comparable with the database row
+     * @param updatedAt The document's last update time (may be null for rows written before it existed)
+     * @return Epoch millis, or 0 if unknown
+     */
+    public static long versionOf(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+    }
+
+    /**
+     * Check whether a newer version of a document is already indexed, embedded or text-only. Caller holds mutationLock.
+     */
+    private boolean isOlderThanIndexed(long documentId, long version) {
+        Long embeddedVersion = documentVersions.get(documentId);
+        Long textVersion = textOnlyVersions.get(documentId);
+        return (embeddedVersion != null && embeddedVersion > version) || (textVersion != null && textVersion > version);
+    }
+
+    /**
+     * Replace a document's chunks with the given ones. Caller holds mutationLock.
+     */
+    private void applyDocument(StoredDocument stored) {
+        long documentId = stored.getDocumentId();
+        DocumentType docType = DocumentType.valueOf(stored.getType());
+        long[] chunkIds = stored.getChunkIds();
+        String[] chunkTexts = stored.getChunkTexts();
+        float[][] vectors = stored.getVectors();
+        
+        // Drop any previous chunks first so the index never sees a slot change under it
+        removeChunks(documentId);
+        
+        long maxChunkId = 0;
+        for (int i = 0; i < chunkIds.length; i++) {
+            // Create vector document for the chunk (the embedding itself is kept in the arena, not boxed here)
+            VectorDocument vectorDoc = new VectorDocument(
+                documentId,
+                stored.getName(),
+                chunkTexts[i],
+                docType,
+                null
+            );
+            vectorDoc.setChunkId(chunkIds[i]);
+            vectorDoc.setChunkIndex(i);
+            
+            // Store in memory and index the new slot
+            int slot = vectorArena.put(chunkIds[i], vectors[i]);
+            vectorStore.put(chunkIds[i], vectorDoc);
+            vectorIndex.add(slot, docType.name());
+            lexicalIndex.add(chunkIds[i], chunkTexts[i]);
+            maxChunkId = Math.max(maxChunkId, chunkIds[i]);
+        }
+        chunkIdsByDocument.put(documentId, chunkIds.clone());
+        documentVersions.put(documentId, stored.getVersion());
+        
+        // Restored chunk ids must never be handed out again
+        chunkIdSequence.accumulateAndGet(maxChunkId, Math::max);
+    }
+
+    /**
+     * Remove a document's chunks, embedded or text-only, from memory and the indexes. Caller holds mutationLock.
+     * @return True if the document was present
+     */
+    private boolean removeChunks(long documentId) {
+        documentVersions.remove(documentId);
+        boolean removedText = removeTextOnlyChunks(documentId);
+        long[] chunkIds = chunkIdsByDocument.remove(documentId);
+        if (chunkIds == null) {
+            return removedText;
+        }
+        for (long chunkId : chunkIds) {
+            vectorStore.remove(chunkId);
+            lexicalIndex.remove(chunkId);
+            int slot = vectorArena.remove(chunkId);
+            if (slot >= 0) {
+                // The index releases the slot back to the arena once it no longer needs it
+                vectorIndex.remove(slot);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remove a document's text-only chunks. Caller holds mutationLock.
+     * @return True if it had any
+     */
+    private boolean removeTextOnlyChunks(long documentId) {
+        textOnlyVersions.remove(documentId);
+        long[] chunkIds = textOnlyChunkIdsByDocument.remove(documentId);
+        if (chunkIds == null) {
+            return false;
+        }
+        for (long chunkId : chunkIds) {
+            textOnlyChunks.remove(chunkId);
+            lexicalIndex.remove(chunkId);
+        }
+        return true;
+    }
+
+    /**
+     * Build the persisted form of an indexed document. Caller holds mutationLock, so its slots are stable.
+     */
+    private StoredDocument toStoredDocument(long documentId, long[] chunkIds) {
+        String[] chunkTexts = new String[chunkIds.length];
+        float[][] vectors = new float[chunkIds.length][];
+        String name = null;
+        DocumentType docType = DocumentType.POLICY;
+        for (int i = 0; i < chunkIds.length; i++) {
+            VectorDocument chunk = vectorStore.get(chunkIds[i]);
+            chunkTexts[i] = chunk.getContent();
+            vectors[i] = vectorArena.vector(vectorArena.slotOf(chunkIds[i]));
+            name = chunk.getDocumentName();
+            docType = chunk.getDocumentType();
+        }
+        return new StoredDocument(documentId, documentVersions.getOrDefault(documentId, 0L),
+            name, docType.name(), chunkIds, chunkTexts, vectors);
+    }
+
+    private void checkpointIfNeeded() {
+        if (snapshotStore.shouldCheckpoint()) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Get all chunks in the vector store
+     * @return Collection of all indexed chunks
      */
     public Collection<VectorDocument> getAllDocuments() {
         return vectorStore.values();
@@ -189,7 +729,19 @@ public class VectorStoreService {
      * Clear all documents from the vector store
      */
     public void clear() {
-        vectorStore.clear();
+        synchronized (mutationLock) {
+            vectorStore.clear();
+            chunkIdsByDocument.clear();
+            documentVersions.clear();
+            vectorIndex.clear();
+            vectorArena.clear();
+            textOnlyChunks.clear();
+            textOnlyChunkIdsByDocument.clear();
+            textOnlyVersions.clear();
+            lexicalIndex.clear();
+        }
+        // An empty snapshot replaces the old one and its log
+        checkpoint();
     }
 
     /**
@@ -197,20 +749,112 @@ public class VectorStoreService {
      * @return Document count
      */
     public int size() {
+        return chunkIdsByDocument.size();
+    }
+
+    /**
+     * Get the ids of all indexed documents
+     * @return Copy of the indexed document ids
+     */
+    public Set<Long> getIndexedDocumentIds() {
+        return new HashSet<>(chunkIdsByDocument.keySet());
+    }
+
+    /**
+     * Get the version of a document that is currently indexed
+     * @param documentId The document id
+     * @return Its version (see {@link #versionOf(LocalDateTime)}), the newer text-only one while it awaits embedding,
+     *         or null if it is not indexed
+     */
+    public Long getIndexedVersion(Long documentId) {
+        if (documentId == null) {
+            return null;
+        }
+        Long textOnlyVersion = textOnlyVersions.get(documentId);
+        return textOnlyVersion != null ? textOnlyVersion : documentVersions.get(documentId);
+    }
+
+    /**
+     * Get the number of chunks in the vector store
+     * @return Chunk count
+     */
+    public int chunkCount() {
         return vectorStore.size();
     }
+
+    /**
+     * Approximate heap used by the stored embeddings
+     * @return Bytes held by the vector arena and the index (codes, graph)
+     */
+    public long getMemoryFootprintBytes() {
+        return vectorArena.memoryBytes() + vectorIndex.memoryBytes();
+    }
+    
+    /**
+     * Get the configured retrieval mode (app.retrieval.mode)
+     * @return The retrieval mode
+     */
+    public RetrievalMode getRetrievalMode() {
+        return retrievalMode;
+    }
+    
+    /**
+     * How {@link #findRelevantChunks(String, int)} ranks chunks
+     */
+    public enum RetrievalMode {
+        VECTOR,  // Embedding similarity
+        LEXICAL, // BM25 keyword matching, no embedding calls
+        HYBRID;  // Both, fused by reciprocal rank
+        
+        static RetrievalMode parse(String mode) {
+            switch (mode.trim().toLowerCase()) {
+                case "vector":
+                    return VECTOR;
+                case "lexical":
+                    return LEXICAL;
+                case "hybrid":
+                    return HYBRID;
+                default:
+                    throw new IllegalArgumentException("Unknown retrieval mode: " + mode
+                        + " (expected vector, lexical or hybrid)");
+            }
+        }
+    }
+    
+    /**
+     * Chunks found for a query, with the query embedding when the search computed one
+     */
+    public static class RelevantChunks {
+        private final List<VectorDocument> chunks;
+        private final float[] queryVector;
+        
+        RelevantChunks(List<VectorDocument> chunks, float[] queryVector) {
+            this.chunks = chunks;
+            this.queryVector = queryVector;
+        }
+        
+        public List<VectorDocument> getChunks() {
+            return chunks;
+        }
+        
+        /**
+         * @return The normalized query embedding, or null when the chunks were found by keyword alone
+         *         (lexical mode, nothing embedded yet, or the embedding API failed)
+         */
+        public float[] getQueryVector() {
+            return queryVector;
+        }
+    }
     
     /**
-     * Helper class to hold scored documents
+     * Helper class to hold a chunk with its similarity to a query
      */
-    private static class ScoredDocument {
-        Long documentId;
-        VectorDocument vectorDocument;
-        double similarity;
+    private static class ScoredChunk {
+        VectorDocument chunk;
+        float similarity;
         
-        ScoredDocument(Long documentId, VectorDocument vectorDocument, double similarity) {
-            this.documentId = documentId;
-            this.vectorDocument = vectorDocument;
+        ScoredChunk(VectorDocument chunk, float similarity) {
+            this.chunk = chunk;
             this.similarity = similarity;
         }
     }
@@ -0,0 +1,79 @@
+package com.knowledgehub.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.poi.hwpf.HWPFDocument;
+import org.apache.poi.hwpf.extractor.WordExtractor;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracts plain text from Word documents with Apache POI.
+ * Extraction time is recorded as knowledgehub.extraction, tagged with the file format and outcome.
+ */
+@Component
+public class WordTextExtractor {
+
+    private final MeterRegistry meterRegistry;
+
+    public WordTextExtractor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Extract text content from Word document (.doc or .docx)
+     * @param filePath Path to the Word document file
+     * @param filename Lowercase filename to determine file type
+     * @return Extracted text content from the document
+     * @throws IOException if file cannot be read
+     */
+    public String extractText(Path filePath, String filename) throws IOException {
+        String format = filename.endsWith(".docx") ? "docx" : filename.endsWith(".doc") ? "doc" : "other";
+        long start = System.nanoTime();
+        try {
+            String text = extract(filePath, filename);
+            recordExtraction(format, "success", start);
+            return text;
+        } catch (IOException e) {
+            recordExtraction(format, "failure", start);
+            throw e;
+        }
+    }
+
+    private String extract(Path filePath, String filename) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(filePath)) {
+            if (filename.endsWith(".docx")) {
+                // Handle .docx files (Office Open XML format)
+                try (XWPFDocument document = new XWPFDocument(inputStream);
+                     XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
+                    return extractor.getText();
+                }
+            } else if (filename.endsWith(".doc")) {
+                // Handle .doc files (older binary format)
+                try (HWPFDocument document = new HWPFDocument(inputStream);
+                     WordExtractor extractor = new WordExtractor(document)) {
+                    return extractor.getText();
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported file format");
+            }
+        } catch (Exception e) {
+            throw new IOException("Error extracting text from Word document: " + e.getMessage(), e);
+        }
+    }
+
+    private void recordExtraction(String format, String outcome, long startNanos) {
+        Timer.builder("knowledgehub.extraction")
+            .description("Text extraction from uploaded Word files")
+            .tags("format", format, "outcome", outcome)
+            .register(meterRegistry)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
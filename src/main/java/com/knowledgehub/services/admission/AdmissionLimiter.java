@@ -0,0 +1,275 @@
+package com.knowledgehub.services.admission;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps how many requests run at the same time. Requests over the limit wait in a bounded queue
+ * for a bounded time and are rejected when either runs out, so callers can shed load quickly.
+ *
+ * Waiting requests are grouped by user and a freed slot goes to the users in turn (round-robin),
+ * so one user sending a burst does not hold up everyone queued behind it; each user also has a cap on
+ * queued requests.
+ *
+ * With the adaptive limit on, the limit moves between a minimum and a maximum with observed latency
+ * (a gradient estimate): while requests take about as long as the long-term average it grows,
+ * when they take more than twice as long, a sign the model backend is saturated, it shrinks,
+ * and a server error shrinks it by a tenth. Latency is only used while the limit is actually being used.
+ */
+public class AdmissionLimiter {
+
+    // Long-term latency average decays over about this many requests
+    private static final double LONG_WINDOW = 100;
+    // Latency up to this multiple of the long-term average is not taken as overload
+    private static final double TOLERANCE = 2.0;
+    // Weight of each new limit estimate
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final int maxQueuedPerUser;
+    private final boolean adaptive;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private double limit;
+    private int inFlight;
+    private int queued;
+    // Waiters by user in arrival order; a user with waiters moves to the back after being served
+    private final Map<String, ArrayDeque<Waiter>> waitersByUser = new LinkedHashMap<>();
+    private double longLatencyNanos = -1;
+
+    /**
+     * @param minLimit Lowest concurrency limit the adaptive limit may reach
+     * @param maxLimit Concurrency limit, and the starting point of the adaptive limit
+     * @param maxQueued Requests that may wait for a slot in total
+     * @param maxQueuedPerUser Requests that may wait for a slot per user
+     * @param adaptive Adjust the limit to observed latency
+     */
+    public AdmissionLimiter(int minLimit, int maxLimit, int maxQueued, int maxQueuedPerUser, boolean adaptive) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxQueuedPerUser = Math.max(0, maxQueuedPerUser);
+        this.adaptive = adaptive;
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Take a slot, waiting for one if none is free
+     * @param user Key the request is queued under
+     * @param maxWaitNanos Longest time to wait
+     * @return The slot, to be released when the request is done; null if the request is rejected
+     *         (the queue or the user's share of it is full, or no slot freed up in time)
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public Permit acquire(String user, long maxWaitNanos) throws InterruptedException {
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (queued == 0 && inFlight < currentLimit()) {
+                inFlight++;
+                return new Permit();
+            }
+            ArrayDeque<Waiter> userWaiters = waitersByUser.get(user);
+            int userQueued = userWaiters == null ? 0 : userWaiters.size();
+            if (maxWaitNanos <= 0 || queued >= maxQueued || userQueued >= maxQueuedPerUser) {
+                return null;
+            }
+            waiter = new Waiter(lock.newCondition());
+            waitersByUser.computeIfAbsent(user, key -> new ArrayDeque<>()).add(waiter);
+            queued++;
+
+            long remaining = maxWaitNanos;
+            try {
+                while (!waiter.granted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    // Granted a slot but interrupted before waking up to take it; pass the slot on
+                    inFlight--;
+                    grantWaiting();
+                } else {
+                    removeWaiter(user, waiter);
+                }
+                throw e;
+            }
+            if (!waiter.granted) {
+                // Timed out; still queued, since granting removes the waiter
+                removeWaiter(user, waiter);
+                return null;
+            }
+            return new Permit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Current concurrency limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Requests holding a slot
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Requests waiting for a slot
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Estimate when a rejected request is worth retrying: the time for the queue ahead of it to drain
+     * at the current limit and average latency
+     * @return Seconds, between 1 and 60
+     */
+    public long getRetryAfterSeconds() {
+        lock.lock();
+        try {
+            if (longLatencyNanos <= 0) {
+                return 1;
+            }
+            double seconds = longLatencyNanos / 1e9 * (queued + 1) / currentLimit();
+            return Math.max(1, Math.min(60, (long) Math.ceil(seconds)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private void removeWaiter(String user, Waiter waiter) {
+        ArrayDeque<Waiter> userWaiters = waitersByUser.get(user);
+        if (userWaiters != null && userWaiters.remove(waiter)) {
+            queued--;
+            if (userWaiters.isEmpty()) {
+                waitersByUser.remove(user);
+            }
+        }
+    }
+
+    /**
+     * Hand free slots to waiting requests, one user at a time; the caller holds the lock
+     */
+    private void grantWaiting() {
+        while (queued > 0 && inFlight < currentLimit()) {
+            Iterator<Map.Entry<String, ArrayDeque<Waiter>>> users = waitersByUser.entrySet().iterator();
+            Map.Entry<String, ArrayDeque<Waiter>> next = users.next();
+            users.remove();
+            Waiter waiter = next.getValue().poll();
+            if (!next.getValue().isEmpty()) {
+                waitersByUser.put(next.getKey(), next.getValue());
+            }
+            queued--;
+            inFlight++;
+            waiter.granted = true;
+            waiter.condition.signal();
+        }
+    }
+
+    /**
+     * Update the long-term latency average with a successful request; the caller holds the lock
+     */
+    private void recordLatency(long latencyNanos) {
+        longLatencyNanos = longLatencyNanos < 0 ? latencyNanos
+            : longLatencyNanos + (latencyNanos - longLatencyNanos) / LONG_WINDOW;
+        if (longLatencyNanos > 2.0 * latencyNanos) {
+            // Latency dropped well below the average (e.g. after a slow spell); let the average catch up faster
+            longLatencyNanos *= 0.95;
+        }
+    }
+
+    /**
+     * Adjust the limit to a finished request; the caller holds the lock and has not yet freed the request's slot
+     */
+    private void adjustLimit(long latencyNanos, boolean success) {
+        if (!success) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            return;
+        }
+        if (inFlight < limit / 2) {
+            // Far below the limit, so latency says nothing about whether the limit is right
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longLatencyNanos / Math.max(1, latencyNanos)));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + estimate * SMOOTHING));
+    }
+
+    private static class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * A slot held by one request
+     */
+    public class Permit {
+
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * Free the slot; later calls do nothing
+         * @param success False if the request failed in a way that suggests overload (a server error)
+         */
+        public void release(boolean success) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            long latencyNanos = System.nanoTime() - startNanos;
+            lock.lock();
+            try {
+                if (success) {
+                    recordLatency(latencyNanos);
+                }
+                if (adaptive) {
+                    adjustLimit(latencyNanos, success);
+                }
+                inFlight--;
+                grantWaiting();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
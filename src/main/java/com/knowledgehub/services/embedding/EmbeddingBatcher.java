@@ -0,0 +1,191 @@
+package com.knowledgehub.services.embedding;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects embedding requests from concurrent callers into batches.
+ * A batch is sent when the first request in it has waited for the batching window, or earlier
+ * once it reaches the maximum number of inputs or the estimated token budget. Each batch goes
+ * out as a single array-input request and every caller's future is completed from the matching
+ * entry of the response. Identical texts within a batch are sent once.
+ */
+public class EmbeddingBatcher implements AutoCloseable {
+
+    // Rough English average used to keep batches under the provider's per-request token limit
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final Function<List<String>, List<float[]>> transport;
+    private final int maxBatchSize;
+    private final int maxBatchTokens;
+    private final long windowNanos;
+
+    private final BlockingQueue<PendingEmbedding> queue = new LinkedBlockingQueue<>();
+    private final ThreadPoolExecutor senders;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    /**
+     * @param transport Sends one batch and returns one vector per input, in input order
+     * @param maxBatchSize Maximum number of inputs per request
+     * @param maxBatchTokens Maximum estimated tokens per request
+     * @param windowMillis How long the first request of a batch waits for company
+     * @param maxConcurrentRequests Batches that may be in flight at the same time
+     */
+    public EmbeddingBatcher(Function<List<String>, List<float[]>> transport, int maxBatchSize,
+                            int maxBatchTokens, long windowMillis, int maxConcurrentRequests) {
+        this.transport = transport;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchTokens = Math.max(1, maxBatchTokens);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+        int senderThreads = Math.max(1, maxConcurrentRequests);
+        // A full send queue pushes back on the dispatcher, which in turn lets requests pile up into bigger batches
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(senderThreads), runnable -> {
+                Thread thread = new Thread(runnable, "embedding-batch-sender");
+                thread.setDaemon(true);
+                return thread;
+            }, (runnable, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("Embedding batcher is shut down");
+                }
+                runnable.run();
+            });
+        this.dispatcher = new Thread(this::dispatchLoop, "embedding-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Queue a text for embedding
+     * @param text The text to embed
+     * @return Future completed with the text's vector, or exceptionally if its batch failed
+     */
+    public CompletableFuture<float[]> submit(String text) {
+        PendingEmbedding pending = new PendingEmbedding(text);
+        if (!running) {
+            pending.future.completeExceptionally(new IllegalStateException("Embedding batcher is shut down"));
+            return pending.future;
+        }
+        queue.add(pending);
+        return pending.future;
+    }
+
+    /**
+     * Get the number of requests waiting to be batched
+     * @return Queue depth
+     */
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        senders.shutdown();
+        PendingEmbedding pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new IllegalStateException("Embedding batcher is shut down"));
+        }
+    }
+
+    private void dispatchLoop() {
+        PendingEmbedding carryOver = null;
+        while (running) {
+            try {
+                PendingEmbedding first = carryOver != null ? carryOver : queue.take();
+                carryOver = null;
+
+                List<PendingEmbedding> batch = new ArrayList<>();
+                batch.add(first);
+                int tokens = first.estimatedTokens;
+                long deadline = first.enqueuedAt + windowNanos;
+
+                while (batch.size() < maxBatchSize && tokens < maxBatchTokens) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingEmbedding next = remaining > 0
+                        ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                        : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (tokens + next.estimatedTokens > maxBatchTokens) {
+                        // Starts the next batch instead
+                        carryOver = next;
+                        break;
+                    }
+                    batch.add(next);
+                    tokens += next.estimatedTokens;
+                }
+
+                try {
+                    senders.execute(() -> send(batch));
+                } catch (RejectedExecutionException e) {
+                    fail(batch, e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (carryOver != null) {
+            carryOver.future.completeExceptionally(new IllegalStateException("Embedding batcher is shut down"));
+        }
+    }
+
+    private void send(List<PendingEmbedding> batch) {
+        // Send each distinct text once and fan the result out to every caller that asked for it
+        Map<String, List<PendingEmbedding>> byText = new LinkedHashMap<>();
+        for (PendingEmbedding pending : batch) {
+            byText.computeIfAbsent(pending.text, text -> new ArrayList<>()).add(pending);
+        }
+        List<String> inputs = new ArrayList<>(byText.keySet());
+
+        try {
+            List<float[]> vectors = transport.apply(inputs);
+            if (vectors == null || vectors.size() != inputs.size()) {
+                throw new IllegalStateException("Embedding response has " + (vectors == null ? 0 : vectors.size())
+                    + " entries for " + inputs.size() + " inputs");
+            }
+            for (int i = 0; i < inputs.size(); i++) {
+                for (PendingEmbedding pending : byText.get(inputs.get(i))) {
+                    pending.future.complete(vectors.get(i));
+                }
+            }
+        } catch (Exception e) {
+            fail(batch, e);
+        }
+    }
+
+    private void fail(List<PendingEmbedding> batch, Exception e) {
+        for (PendingEmbedding pending : batch) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Helper class to hold a queued text and the future its caller waits on
+     */
+    private static class PendingEmbedding {
+        final String text;
+        final int estimatedTokens;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<float[]> future = new CompletableFuture<>();
+
+        PendingEmbedding(String text) {
+            this.text = text;
+            this.estimatedTokens = Math.max(1, text.length() / CHARS_PER_TOKEN);
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.knowledgehub.services.embedding;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Two-tier cache of embeddings keyed by (model, dimensions, SHA-256 of the text).
+ * The memory tier is an LRU map; the disk tier keeps one small binary file per vector,
+ * so embeddings survive restarts and identical content is never embedded twice.
+ * The disk tier is bounded too: it evicts the least recently used files past a file count
+ * and drops files older than a maximum age.
+ * Cached vectors are shared; callers must not modify them.
+ */
+@Component
+public class EmbeddingCache {
+
+    // "EMBV" - identifies vector files written by this cache
+    private static final int FILE_MAGIC = 0x454D4256;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private final boolean enabled;
+    private final boolean diskEnabled;
+    private final Path directory;
+    private final int maxMemoryEntries;
+    private final int maxDiskEntries;
+    private final long maxDiskAgeMillis;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, float[]> memory = new LinkedHashMap<>(256, 0.75f, true);
+    // Keys of the vector files on disk and when each was written, in the same access order;
+    // loaded from the directory on first use
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(256, 0.75f, true);
+    private boolean diskLoaded;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+    private final AtomicLong diskErrors = new AtomicLong();
+
+    public EmbeddingCache(@Value("${app.embedding.cache.enabled:true}") boolean enabled,
+                          @Value("${app.embedding.cache.disk-enabled:true}") boolean diskEnabled,
+                          @Value("${app.embedding.cache.dir:embedding-cache}") String directory,
+                          @Value("${app.embedding.cache.max-memory-entries:10000}") int maxMemoryEntries,
+                          @Value("${app.embedding.cache.max-disk-entries:200000}") int maxDiskEntries,
+                          @Value("${app.embedding.cache.max-disk-age-days:30}") int maxDiskAgeDays) {
+        this.enabled = enabled;
+        this.diskEnabled = enabled && diskEnabled && maxDiskEntries > 0;
+        this.directory = Paths.get(directory);
+        this.maxMemoryEntries = Math.max(0, maxMemoryEntries);
+        this.maxDiskEntries = Math.max(0, maxDiskEntries);
+        // 0 keeps files regardless of age
+        this.maxDiskAgeMillis = maxDiskAgeDays > 0 ? TimeUnit.DAYS.toMillis(maxDiskAgeDays) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Look up an embedding, checking memory first and then disk
+     * @param model Embedding model name
+     * @param dimensions Vector dimension produced by the model
+     * @param text The embedded text
+     * @return The cached vector, or null on a miss
+     */
+    public float[] get(String model, int dimensions, String text) {
+        if (!enabled) {
+            return null;
+        }
+        String key = key(model, dimensions, text);
+
+        float[] vector;
+        synchronized (memory) {
+            vector = memory.get(key);
+        }
+        if (vector != null) {
+            memoryHits.incrementAndGet();
+            return vector;
+        }
+
+        if (diskEnabled) {
+            vector = readFromDisk(key, dimensions);
+            if (vector != null) {
+                diskHits.incrementAndGet();
+                putInMemory(key, vector);
+                return vector;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Store an embedding in both tiers
+     * @param model Embedding model name
+     * @param dimensions Vector dimension produced by the model
+     * @param text The embedded text
+     * @param vector The embedding
+     */
+    public void put(String model, int dimensions, String text, float[] vector) {
+        if (!enabled || vector == null || vector.length != dimensions) {
+            return;
+        }
+        String key = key(model, dimensions, text);
+        putInMemory(key, vector);
+        if (diskEnabled) {
+            writeToDisk(key, vector);
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getDiskEvictions() {
+        return diskEvictions.get();
+    }
+
+    public long getDiskErrors() {
+        return diskErrors.get();
+    }
+
+    public int getMemorySize() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    public int getDiskSize() {
+        if (!diskEnabled) {
+            return 0;
+        }
+        synchronized (disk) {
+            loadDiskIndex();
+            return disk.size();
+        }
+    }
+
+    private void putInMemory(String key, float[] vector) {
+        if (maxMemoryEntries == 0) {
+            return;
+        }
+        synchronized (memory) {
+            memory.put(key, vector);
+            while (memory.size() > maxMemoryEntries) {
+                Map.Entry<String, float[]> eldest = memory.entrySet().iterator().next();
+                memory.remove(eldest.getKey());
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private float[] readFromDisk(String key, int dimensions) {
+        Path file = fileFor(key);
+        synchronized (disk) {
+            loadDiskIndex();
+            Long written = disk.get(key);
+            if (written == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - written > maxDiskAgeMillis) {
+                disk.remove(key);
+                diskEvictions.incrementAndGet();
+                delete(file);
+                return null;
+            }
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() != HEADER_BYTES + dimensions * Float.BYTES
+                    || buffer.getInt() != FILE_MAGIC || buffer.getInt() != dimensions) {
+                // Truncated or foreign file; drop it so it gets rewritten
+                forget(key);
+                Files.deleteIfExists(file);
+                return null;
+            }
+            float[] vector = new float[dimensions];
+            buffer.asFloatBuffer().get(vector);
+            return vector;
+        } catch (IOException e) {
+            // Most likely deleted behind our back; forget it so it gets rewritten
+            forget(key);
+            diskErrors.incrementAndGet();
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, float[] vector) {
+        Path file = fileFor(key);
+        synchronized (disk) {
+            loadDiskIndex();
+            if (disk.containsKey(key)) {
+                return;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(FILE_MAGIC).putInt(vector.length);
+        buffer.asFloatBuffer().put(vector);
+        try {
+            Files.createDirectories(file.getParent());
+            // Write to a temp file and rename, so readers never see a partial vector
+            Path temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            Files.write(temp, buffer.array());
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+            return;
+        }
+
+        List<String> evicted = new ArrayList<>();
+        synchronized (disk) {
+            disk.put(key, System.currentTimeMillis());
+            while (disk.size() > maxDiskEntries) {
+                String eldest = disk.keySet().iterator().next();
+                disk.remove(eldest);
+                evicted.add(eldest);
+            }
+        }
+        for (String eldest : evicted) {
+            diskEvictions.incrementAndGet();
+            delete(fileFor(eldest));
+        }
+    }
+
+    private void forget(String key) {
+        synchronized (disk) {
+            disk.remove(key);
+        }
+    }
+
+    /**
+     * Index the vector files already on disk, oldest first, dropping expired files and
+     * leftover temp files; the caller holds the disk lock
+     */
+    private void loadDiskIndex() {
+        if (diskLoaded) {
+            return;
+        }
+        diskLoaded = true;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Long>> found = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    delete(file);
+                    continue;
+                }
+                if (!name.endsWith(".vec")) {
+                    continue;
+                }
+                long written = lastModified(file);
+                if (now - written > maxDiskAgeMillis) {
+                    diskEvictions.incrementAndGet();
+                    delete(file);
+                    continue;
+                }
+                found.add(Map.entry(name.substring(0, name.length() - ".vec".length()), written));
+            }
+        } catch (IOException | UncheckedIOException e) {
+            diskErrors.incrementAndGet();
+        }
+        found.sort(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+        for (Map.Entry<String, Long> entry : found) {
+            disk.put(entry.getKey(), entry.getValue());
+        }
+        while (disk.size() > maxDiskEntries) {
+            String eldest = disk.keySet().iterator().next();
+            disk.remove(eldest);
+            diskEvictions.incrementAndGet();
+            delete(fileFor(eldest));
+        }
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Spread files over 256 subdirectories to keep directory listings small
+     */
+    private Path fileFor(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ".vec");
+    }
+
+    private static String key(String model, int dimensions, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Integer.toString(dimensions).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(sha256(text));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] sha256(String text) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,35 @@
+package com.knowledgehub.services.embedding;
+
+import java.util.List;
+
+/**
+ * Turns texts into embedding vectors.
+ * The provider is chosen by app.embedding.provider; {@link com.knowledgehub.services.EmbeddingService}
+ * adds batching and caching in front of remote providers.
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * @return Name of the model; vectors from different models are never cached or stored together
+     */
+    String getModel();
+
+    /**
+     * @return Length of every vector this provider returns
+     */
+    int getDimensions();
+
+    /**
+     * Embed a batch of texts
+     * @param texts The texts, none blank
+     * @return One vector per text, in input order
+     */
+    List<float[]> embed(List<String> texts);
+
+    /**
+     * @return True if vectors are computed in-process, so batching and the persistent cache would only add overhead
+     */
+    default boolean isLocal() {
+        return false;
+    }
+}
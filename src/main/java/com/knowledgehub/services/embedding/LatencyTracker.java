@@ -0,0 +1,60 @@
+package com.knowledgehub.services.embedding;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of the most recent requests, in a fixed-size window, for percentile estimates
+ */
+public class LatencyTracker {
+
+    private final long[] window;
+    private int next;
+    private int count;
+
+    /**
+     * @param windowSize Number of recent requests to keep
+     */
+    public LatencyTracker(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Latency window must hold at least one request");
+        }
+        this.window = new long[windowSize];
+    }
+
+    /**
+     * Record a request's latency, replacing the oldest one once the window is full
+     * @param nanos Latency in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        window[next] = nanos;
+        next = (next + 1) % window.length;
+        if (count < window.length) {
+            count++;
+        }
+    }
+
+    /**
+     * @return Number of latencies in the window
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Get a percentile of the latencies in the window
+     * @param percentile Between 0 and 100, e.g. 95
+     * @return Latency in nanoseconds (nearest rank), or -1 if nothing was recorded yet
+     */
+    public long percentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(window, count);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+    }
+}
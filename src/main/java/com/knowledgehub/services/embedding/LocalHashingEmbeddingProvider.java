@@ -0,0 +1,134 @@
+package com.knowledgehub.services.embedding;
+
+import com.knowledgehub.services.index.Bm25Index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embeddings computed in-process by feature hashing: no network, no model files, same vector for the same text.
+ * A text is split into the same terms as the keyword index; every term, every pair of adjacent terms and
+ * every character n-gram of a term (with word boundaries marked) is hashed into one of the vector's
+ * dimensions, with a hashed sign so that collisions tend to cancel out rather than add up.
+ * Similar vectors mean shared words and word pieces, not shared meaning: retrieval quality is below
+ * a trained model, which makes this provider suited to air-gapped or latency-critical deployments
+ * and to repeatable performance tests.
+ */
+public class LocalHashingEmbeddingProvider implements EmbeddingProvider {
+
+    private static final String MODEL = "local-hashing-v1";
+
+    // Separate seeds, so a word, a word pair and an n-gram with the same characters land in different dimensions
+    private static final long TERM_SEED = 0x9E3779B97F4A7C15L;
+    private static final long PAIR_SEED = 0xC2B2AE3D27D4EB4FL;
+    private static final long NGRAM_SEED = 0x165667B19E3779F9L;
+
+    // Relative weights of the feature kinds; whole terms carry the most information
+    private static final float TERM_WEIGHT = 1.0f;
+    private static final float PAIR_WEIGHT = 0.5f;
+    private static final float NGRAM_WEIGHT = 0.25f;
+
+    private final int dimensions;
+    private final int ngramSize;
+
+    /**
+     * @param dimensions Vector length; more dimensions mean fewer collisions and more memory per chunk
+     * @param ngramSize Length of the character n-grams taken from each term (0 to use whole terms only)
+     */
+    public LocalHashingEmbeddingProvider(int dimensions, int ngramSize) {
+        if (dimensions < 16) {
+            throw new IllegalArgumentException("Local embedding dimensions must be at least 16");
+        }
+        if (ngramSize < 0) {
+            throw new IllegalArgumentException("Local embedding n-gram size must not be negative");
+        }
+        this.dimensions = dimensions;
+        this.ngramSize = ngramSize;
+    }
+
+    @Override
+    public String getModel() {
+        return MODEL + "-n" + ngramSize;
+    }
+
+    @Override
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            embeddings.add(embed(text));
+        }
+        return embeddings;
+    }
+
+    /**
+     * Embed one text
+     * @param text The text
+     * @return Its L2-normalized feature vector (all zeros if it has no terms)
+     */
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        String previous = null;
+        for (String term : Bm25Index.tokenize(text)) {
+            addFeature(vector, hash(term, TERM_SEED), TERM_WEIGHT);
+            if (previous != null) {
+                addFeature(vector, hash(term, hash(previous, PAIR_SEED)), PAIR_WEIGHT);
+            }
+            if (ngramSize > 0) {
+                String bounded = "<" + term + ">";
+                for (int start = 0; start + ngramSize <= bounded.length(); start++) {
+                    addFeature(vector, hash(bounded, start, start + ngramSize, NGRAM_SEED), NGRAM_WEIGHT);
+                }
+            }
+            previous = term;
+        }
+
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += (double) v * v;
+        }
+        if (norm > 0.0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    private void addFeature(float[] vector, long hash, float weight) {
+        // The lowest bit picks the sign, the rest the dimension
+        int index = (int) Long.remainderUnsigned(hash >>> 1, dimensions);
+        vector[index] += (hash & 1) == 0 ? weight : -weight;
+    }
+
+    private static long hash(String text, long seed) {
+        return hash(text, 0, text.length(), seed);
+    }
+
+    /**
+     * FNV-1a over the UTF-16 characters, finished with the MurmurHash3 mixer so every bit depends on every character
+     */
+    private static long hash(String text, int from, int to, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (int i = from; i < to; i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
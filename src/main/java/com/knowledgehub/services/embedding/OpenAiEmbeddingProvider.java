@@ -0,0 +1,304 @@
+package com.knowledgehub.services.embedding;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embeddings from OpenAI's embedding API over HTTP, one request per batch.
+ * Requests go through the given RestTemplate (a pooled keep-alive client with timeouts, see EmbeddingProviderConfig).
+ * Rate limiting (429), server errors (5xx) and I/O failures such as timeouts are retried with exponential
+ * backoff and full jitter, waiting at least as long as a Retry-After header asks (up to the maximum backoff).
+ *
+ * With hedging on, a request still running after the recent p95 latency gets a second, identical request;
+ * the first response wins. Embedding a text has no side effects, so only the tokens of the hedge are wasted,
+ * and at the p95 that is about one request in twenty. The losing request is not cancelled
+ * (a blocking call cannot be interrupted), it finishes in the background within the read timeout.
+ * Latency grows with the number of texts in a batch, so the p95 is tracked per batch size, bucketed by powers
+ * of two; a single p95 would hedge nearly every full batch against the timings of single-text queries.
+ */
+public class OpenAiEmbeddingProvider implements EmbeddingProvider, AutoCloseable {
+
+    private static final String API_URL = "https://api.openai.com/v1/embeddings";
+    private static final String MODEL = "text-embedding-3-small";
+    private static final int DIMENSIONS = 1536;
+
+    // Latencies behind the hedging threshold, per batch size bucket; no hedging until a bucket has seen enough requests
+    private static final int LATENCY_WINDOW = 256;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final double HEDGE_PERCENTILE = 95;
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final HttpHeaders headers;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long minHedgeDelayNanos;
+    private final LatencyTracker[] latencies = new LatencyTracker[Integer.SIZE];
+    private final ExecutorService hedgeExecutor; // Null with hedging off
+
+    /**
+     * @param restTemplate Client for the API calls
+     * @param apiKey OpenAI API key
+     * @param maxAttempts Attempts per batch, including the first (1 disables retries)
+     * @param initialBackoffMillis Backoff cap before the first retry; it doubles for every further retry
+     * @param maxBackoffMillis Upper bound for a single backoff
+     * @param hedgingEnabled Send a second request when one runs longer than the recent p95 latency
+     * @param minHedgeDelayMillis Never hedge a request sooner than this
+     */
+    public OpenAiEmbeddingProvider(RestTemplate restTemplate, String apiKey, int maxAttempts,
+                                   long initialBackoffMillis, long maxBackoffMillis,
+                                   boolean hedgingEnabled, long minHedgeDelayMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Embedding requests need at least one attempt");
+        }
+        this.restTemplate = restTemplate;
+        this.objectMapper = new ObjectMapper();
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = Math.max(0, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+        this.minHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, minHedgeDelayMillis));
+        
+        // Every request carries the same headers, so they are built once
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.setBearerAuth(apiKey);
+        requestHeaders.setContentType(MediaType.APPLICATION_JSON);
+        this.headers = HttpHeaders.readOnlyHttpHeaders(requestHeaders);
+        
+        this.hedgeExecutor = hedgingEnabled ? Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "embedding-hedge");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    @Override
+    public String getModel() {
+        return MODEL;
+    }
+
+    @Override
+    public int getDimensions() {
+        return DIMENSIONS;
+    }
+
+    /**
+     * Call OpenAI's embedding API once with an array input, retrying transient failures
+     * @param texts The texts of one batch
+     * @return One embedding per text, in input order
+     */
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(
+            Map.of("model", MODEL, "input", texts, "dimensions", DIMENSIONS), headers);
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return sendHedged(request, texts.size());
+                } catch (HttpStatusCodeException e) {
+                    int status = e.getStatusCode().value();
+                    if (attempt >= maxAttempts || (status != 429 && status < 500)) {
+                        throw e;
+                    }
+                    backOff(attempt, retryAfterMillis(e));
+                } catch (ResourceAccessException e) {
+                    // Connection refused or reset, or a timeout
+                    if (attempt >= maxAttempts) {
+                        throw e;
+                    }
+                    backOff(attempt, 0);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while generating embedding", e);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate embedding: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stop the hedging threads
+     */
+    @Override
+    public void close() {
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Send a request, and a hedge if it runs longer than the recent p95 latency
+     */
+    private List<float[]> sendHedged(HttpEntity<Map<String, Object>> request, int inputCount) throws InterruptedException {
+        long hedgeDelayNanos = hedgeDelayNanos(inputCount);
+        if (hedgeDelayNanos < 0) {
+            return send(request, inputCount);
+        }
+        
+        CompletableFuture<List<float[]>> primary =
+            CompletableFuture.supplyAsync(() -> send(request, inputCount), hedgeExecutor);
+        try {
+            return primary.get(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw failureOf(e);
+        } catch (TimeoutException e) {
+            CompletableFuture<List<float[]>> hedge =
+                CompletableFuture.supplyAsync(() -> send(request, inputCount), hedgeExecutor);
+            // First success wins; if both fail, the last failure is reported
+            CompletableFuture<List<float[]>> winner = new CompletableFuture<>();
+            AtomicInteger failures = new AtomicInteger();
+            for (CompletableFuture<List<float[]>> attempt : List.of(primary, hedge)) {
+                attempt.whenComplete((result, error) -> {
+                    if (error == null) {
+                        winner.complete(result);
+                    } else if (failures.incrementAndGet() == 2) {
+                        winner.completeExceptionally(error);
+                    }
+                });
+            }
+            try {
+                return winner.join();
+            } catch (CompletionException failure) {
+                throw failureOf(failure);
+            }
+        }
+    }
+
+    /**
+     * One API call; the latency of a successful one feeds the hedging threshold
+     */
+    private List<float[]> send(HttpEntity<Map<String, Object>> request, int inputCount) {
+        long start = System.nanoTime();
+        ResponseEntity<String> response = restTemplate.exchange(API_URL, HttpMethod.POST, request, String.class);
+        latencies(inputCount).record(System.nanoTime() - start);
+        try {
+            return parseResponse(response.getBody(), inputCount);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to generate embedding: invalid response", e);
+        }
+    }
+
+    /**
+     * @param inputCount Number of texts in the request
+     * @return How long to wait before hedging, or -1 for no hedging (off, or too few latencies seen yet for this size)
+     */
+    private long hedgeDelayNanos(int inputCount) {
+        if (hedgeExecutor == null) {
+            return -1;
+        }
+        LatencyTracker bucket = latencies(inputCount);
+        if (bucket.size() < MIN_LATENCY_SAMPLES) {
+            return -1;
+        }
+        return Math.max(minHedgeDelayNanos, bucket.percentile(HEDGE_PERCENTILE));
+    }
+
+    /**
+     * Get the latencies of requests of about this size: 1 text, 2-3, 4-7, 8-15 and so on
+     * @param inputCount Number of texts in the request
+     * @return The tracker of the size's bucket, created on first use
+     */
+    private LatencyTracker latencies(int inputCount) {
+        int bucket = 31 - Integer.numberOfLeadingZeros(Math.max(1, inputCount));
+        synchronized (latencies) {
+            if (latencies[bucket] == null) {
+                latencies[bucket] = new LatencyTracker(LATENCY_WINDOW);
+            }
+            return latencies[bucket];
+        }
+    }
+
+    /**
+     * Sleep before a retry: a random time up to the exponential backoff cap (full jitter),
+     * but at least what the server asked for
+     */
+    private void backOff(int attempt, long retryAfterMillis) throws InterruptedException {
+        long cap = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+        Thread.sleep(Math.max(delay, Math.min(retryAfterMillis, maxBackoffMillis)));
+    }
+
+    /**
+     * @return The Retry-After header in milliseconds, or 0 if there is none (the HTTP-date form is not used by the API)
+     */
+    private static long retryAfterMillis(HttpStatusCodeException e) {
+        HttpHeaders responseHeaders = e.getResponseHeaders();
+        String retryAfter = responseHeaders == null ? null : responseHeaders.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException ignored) {
+            return 0;
+        }
+    }
+
+    /**
+     * Get the failure of the call itself out of the future's wrapper, so retries see the HTTP error
+     */
+    private static RuntimeException failureOf(Exception wrapper) {
+        return wrapper.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(wrapper.getCause());
+    }
+
+    /**
+     * Read the embeddings out of an API response body
+     * @param body The JSON response body
+     * @param inputCount Number of texts in the request
+     * @return One embedding per text, in input order
+     * @throws IOException if the body is not valid JSON
+     */
+    List<float[]> parseResponse(String body, int inputCount) throws IOException {
+        JsonNode jsonResponse = objectMapper.readTree(body);
+        JsonNode dataArray = jsonResponse.get("data");
+        
+        if (dataArray == null || !dataArray.isArray() || dataArray.size() != inputCount) {
+            throw new RuntimeException("Failed to generate embedding: invalid response");
+        }
+        
+        // Entries carry the index of their input; don't rely on response order
+        float[][] embeddings = new float[inputCount][];
+        for (JsonNode entry : dataArray) {
+            int index = entry.get("index").asInt();
+            JsonNode embeddingArray = entry.get("embedding");
+            // Read values straight into a float[] (the API returns float32 precision anyway)
+            float[] embedding = new float[embeddingArray.size()];
+            for (int i = 0; i < embedding.length; i++) {
+                embedding[i] = (float) embeddingArray.get(i).asDouble();
+            }
+            embeddings[index] = embedding;
+        }
+        
+        List<float[]> result = new ArrayList<>(embeddings.length);
+        for (float[] embedding : embeddings) {
+            if (embedding == null) {
+                throw new RuntimeException("Failed to generate embedding: response is missing an input");
+            }
+            result.add(embedding);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,171 @@
+package com.knowledgehub.services.embedding;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of query embeddings keyed by normalized query text.
+ * Entries expire after a TTL and the least recently used ones are evicted beyond the size limit.
+ * Concurrent misses for the same query share a single in-flight request (single-flight),
+ * so a burst of identical questions costs one embedding call.
+ * Cached vectors are shared; callers must not modify them.
+ */
+@Component
+public class QueryEmbeddingCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CachedQuery> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    // Queries currently being embedded, so identical misses wait on the same request
+    private final Map<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public QueryEmbeddingCache(@Value("${app.embedding.query-cache.max-entries:2000}") int maxEntries,
+                               @Value("${app.embedding.query-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, ttlSeconds));
+    }
+
+    /**
+     * Get the embedding for a query, loading it at most once however many callers ask at the same time
+     * @param query The query text
+     * @param loader Starts the embedding request for a (whitespace-normalized) query
+     * @return Future completed with the query's vector
+     */
+    public CompletableFuture<float[]> get(String query, Function<String, CompletableFuture<float[]>> loader) {
+        String text = collapseWhitespace(query);
+        String key = text.toLowerCase(Locale.ROOT);
+
+        float[] cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<float[]> flight = new CompletableFuture<>();
+        CompletableFuture<float[]> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+
+        // A flight for this key may have finished between the lookup and registering ours
+        cached = lookup(key);
+        if (cached != null) {
+            inFlight.remove(key, flight);
+            hits.incrementAndGet();
+            flight.complete(cached);
+            return flight;
+        }
+
+        misses.incrementAndGet();
+        CompletableFuture<float[]> request;
+        try {
+            request = loader.apply(text);
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            return flight;
+        }
+        request.whenComplete((vector, error) -> {
+            // Store before leaving the in-flight map so later callers always find one or the other
+            if (error == null) {
+                store(key, vector);
+            }
+            inFlight.remove(key, flight);
+            if (error != null) {
+                flight.completeExceptionally(error);
+            } else {
+                flight.complete(vector);
+            }
+        });
+        return flight;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Requests that joined an identical in-flight request instead of sending their own
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private float[] lookup(String key) {
+        synchronized (entries) {
+            CachedQuery entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.storedAt > ttlNanos) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                return null;
+            }
+            return entry.vector;
+        }
+    }
+
+    private void store(String key, float[] vector) {
+        if (maxEntries == 0 || ttlNanos == 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new CachedQuery(vector, System.nanoTime()));
+            while (entries.size() > maxEntries) {
+                Map.Entry<String, CachedQuery> eldest = entries.entrySet().iterator().next();
+                entries.remove(eldest.getKey());
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static String collapseWhitespace(String query) {
+        return query.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Helper class to hold a cached vector and when it was stored
+     */
+    private static class CachedQuery {
+        final float[] vector;
+        final long storedAt;
+
+        CachedQuery(float[] vector, long storedAt) {
+            this.vector = vector;
+            this.storedAt = storedAt;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.knowledgehub.services.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over passage text, scored with Okapi BM25.
+ * Text is lowercased and split on anything that is not a letter or a digit; common English stop words are dropped.
+ * Each passage occupies a dense slot; every term keeps a postings list of (slot, term frequency) pairs,
+ * so a search only visits passages that share at least one term with the query.
+ * Searches share a read lock; add and remove take the write lock.
+ */
+public class Bm25Index {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "by", "can", "do", "does", "for", "from", "how",
+        "i", "in", "is", "it", "of", "on", "or", "our", "that", "the", "this", "to", "was", "we",
+        "what", "when", "where", "which", "who", "why", "will", "with", "you", "your");
+
+    private final float k1;
+    private final float b;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> passages containing it
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    // Slot bookkeeping: id -> slot, and per slot its id, length in terms and distinct terms
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private long[] idBySlot = new long[16];
+    private int[] lengthBySlot = new int[16];
+    private String[][] termsBySlot = new String[16][];
+
+    // Released slots available for reuse
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    // Slots [0, highWaterMark) have been handed out at least once
+    private int highWaterMark;
+
+    private long totalLength;
+
+    /**
+     * @param k1 Term frequency saturation (typically 1.2 - 2.0)
+     * @param b Length normalization, from 0 (none) to 1 (full)
+     */
+    public Bm25Index(float k1, float b) {
+        if (k1 < 0) {
+            throw new IllegalArgumentException("BM25 k1 must not be negative");
+        }
+        if (b < 0 || b > 1) {
+            throw new IllegalArgumentException("BM25 b must be between 0 and 1");
+        }
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * Index a passage, replacing any passage indexed under the same id
+     * @param id The passage id (the chunk id)
+     * @param text The passage text
+     */
+    public void add(long id, String text) {
+        // Tokenize outside the lock
+        Map<String, Integer> termFrequencies = new LinkedHashMap<>();
+        int length = 0;
+        for (String term : tokenize(text)) {
+            termFrequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            int slot = allocateSlot();
+            idBySlot[slot] = id;
+            lengthBySlot[slot] = length;
+            termsBySlot[slot] = termFrequencies.keySet().toArray(new String[0]);
+            slotById.put(id, slot);
+            totalLength += length;
+            for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(slot, entry.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a passage
+     * @param id The passage id
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the passages that best match a query
+     * @param query The query text
+     * @param topK Maximum number of results
+     * @return Passage ids and BM25 scores, highest first; only passages sharing a term with the query
+     */
+    public SearchHits search(String query, int topK) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        if (queryTerms.isEmpty() || topK <= 0) {
+            return SearchHits.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            int passageCount = slotById.size();
+            if (passageCount == 0) {
+                return SearchHits.empty();
+            }
+            float averageLength = Math.max(1f, (float) totalLength / passageCount);
+
+            float[] scores = new float[highWaterMark];
+            int[] matched = new int[Math.min(highWaterMark, 64)];
+            int matchedCount = 0;
+            for (String term : queryTerms) {
+                Postings termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                int documentFrequency = termPostings.size;
+                float idf = (float) Math.log(1 + (passageCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                for (int i = 0; i < termPostings.size; i++) {
+                    int slot = termPostings.slots[i];
+                    int frequency = termPostings.frequencies[i];
+                    float norm = k1 * (1 - b + b * lengthBySlot[slot] / averageLength);
+                    if (scores[slot] == 0f) {
+                        if (matchedCount == matched.length) {
+                            matched = Arrays.copyOf(matched, Math.min(highWaterMark, matched.length * 2));
+                        }
+                        matched[matchedCount++] = slot;
+                    }
+                    // The idf is always positive, so a matched passage never scores 0 again
+                    scores[slot] += idf * frequency * (k1 + 1) / (frequency + norm);
+                }
+            }
+
+            TopKHeap heap = new TopKHeap(Math.max(1, Math.min(topK, matchedCount)));
+            for (int i = 0; i < matchedCount; i++) {
+                heap.offer(matched[i], scores[matched[i]]);
+            }
+            long[] ids = idBySlot;
+            return heap.drainToHits(slot -> ids[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every passage
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            slotById.clear();
+            Arrays.fill(termsBySlot, null);
+            freeCount = 0;
+            highWaterMark = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of indexed passages
+     * @return Passage count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Split text into lowercased index terms, in order, without stop words
+     * @param text The text (null yields no terms)
+     * @return The terms
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    private void removeLocked(long id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        for (String term : termsBySlot[slot]) {
+            Postings termPostings = postings.get(term);
+            termPostings.remove(slot);
+            if (termPostings.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= lengthBySlot[slot];
+        termsBySlot[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (highWaterMark == idBySlot.length) {
+            int capacity = idBySlot.length * 2;
+            idBySlot = Arrays.copyOf(idBySlot, capacity);
+            lengthBySlot = Arrays.copyOf(lengthBySlot, capacity);
+            termsBySlot = Arrays.copyOf(termsBySlot, capacity);
+        }
+        return highWaterMark++;
+    }
+
+    /**
+     * Growable parallel arrays of (slot, term frequency) for one term, in no particular order
+     */
+    private static class Postings {
+        int[] slots = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+
+        void add(int slot, int frequency) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    // Order does not matter, so the last entry fills the gap
+                    size--;
+                    slots[i] = slots[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.knowledgehub.services.index;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Exact index: scores every member slot against the query through an {@link ExactSearchEngine}.
+ * Members are kept in a dense array so a scan never touches free arena slots.
+ */
+public class BruteForceVectorIndex implements VectorIndex {
+
+    private final VectorArena arena;
+    private final ExactSearchEngine searchEngine;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Dense list of indexed slots, plus each slot's position in it for O(1) removal
+    private int[] members = new int[16];
+    private int[] positionBySlot = emptyPositions(16);
+    private int memberCount;
+
+    public BruteForceVectorIndex(VectorArena arena, ExactSearchEngine searchEngine) {
+        this.arena = arena;
+        this.searchEngine = searchEngine;
+    }
+
+    @Override
+    public void add(int slot) {
+        lock.writeLock().lock();
+        try {
+            if (slot >= positionBySlot.length) {
+                int oldLength = positionBySlot.length;
+                positionBySlot = Arrays.copyOf(positionBySlot, Math.max(slot + 1, oldLength * 2));
+                Arrays.fill(positionBySlot, oldLength, positionBySlot.length, -1);
+            } else if (positionBySlot[slot] >= 0) {
+                return; // Already indexed
+            }
+            if (memberCount == members.length) {
+                members = Arrays.copyOf(members, memberCount * 2);
+            }
+            members[memberCount] = slot;
+            positionBySlot[slot] = memberCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(int slot) {
+        lock.writeLock().lock();
+        try {
+            if (slot < 0 || slot >= positionBySlot.length || positionBySlot[slot] < 0) {
+                return;
+            }
+            // Swap the last member into the hole
+            int position = positionBySlot[slot];
+            int last = members[--memberCount];
+            members[position] = last;
+            positionBySlot[last] = position;
+            positionBySlot[slot] = -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Nothing references the slot any more, so it can be reused right away
+        arena.release(slot);
+    }
+
+    @Override
+    public SearchHits search(float[] query, int topK) {
+        if (topK <= 0) {
+            return SearchHits.empty();
+        }
+        // Members cannot be released while the read lock is held, so their vectors stay put
+        lock.readLock().lock();
+        try {
+            if (query.length != arena.dimension()) {
+                return SearchHits.empty();
+            }
+            return searchEngine.search(arena, members, memberCount, query, topK);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return memberCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            members = new int[16];
+            positionBySlot = emptyPositions(16);
+            memberCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int[] emptyPositions(int length) {
+        int[] positions = new int[length];
+        Arrays.fill(positions, -1);
+        return positions;
+    }
+}
@@ -0,0 +1,118 @@
+package com.knowledgehub.services.index;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Exact top-K search over a list of arena slots.
+ * Small lists are scanned on the calling thread; large ones are split into partitions that
+ * are scanned in a dedicated ForkJoin pool, each into its own {@link TopKHeap}, and the
+ * partition heaps are merged on the way back up.
+ */
+public class ExactSearchEngine implements AutoCloseable {
+
+    // Keep partitions big enough that scheduling overhead stays negligible
+    private static final int MIN_PARTITION_SIZE = 4096;
+    // Several partitions per worker so uneven partitions can be balanced by work stealing
+    private static final int PARTITIONS_PER_WORKER = 4;
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    /**
+     * @param parallelism Worker threads for partitioned scans (0 or less = number of processors)
+     * @param parallelThreshold Slot count from which a scan is partitioned across the pool
+     */
+    public ExactSearchEngine(int parallelism, int parallelThreshold) {
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(workers);
+        this.parallelThreshold = Math.max(MIN_PARTITION_SIZE, parallelThreshold);
+    }
+
+    /**
+     * Find the topK slots most similar to a query.
+     * The caller must keep the slots from being released for the duration of the call.
+     * @param arena Arena holding the vectors
+     * @param slots Slots to score; only the first count entries are read
+     * @param count Number of slots to score
+     * @param query Normalized query vector
+     * @param topK Number of results to return
+     * @return Hits sorted by similarity (highest first)
+     */
+    public SearchHits search(VectorArena arena, int[] slots, int count, float[] query, int topK) {
+        if (count == 0 || topK <= 0) {
+            return SearchHits.empty();
+        }
+        int capacity = Math.min(topK, count);
+
+        TopKHeap heap;
+        if (count < parallelThreshold || pool.getParallelism() == 1) {
+            heap = scan(arena, slots, 0, count, query, capacity);
+        } else {
+            int partitions = pool.getParallelism() * PARTITIONS_PER_WORKER;
+            int partitionSize = Math.max(MIN_PARTITION_SIZE, (count + partitions - 1) / partitions);
+            heap = pool.invoke(new PartitionScan(arena, slots, 0, count, query, capacity, partitionSize));
+        }
+        return heap.drainToHits(arena);
+    }
+
+    /**
+     * Get the number of worker threads used for partitioned scans
+     * @return Pool parallelism
+     */
+    public int parallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static TopKHeap scan(VectorArena arena, int[] slots, int from, int to, float[] query, int capacity) {
+        TopKHeap heap = new TopKHeap(capacity);
+        for (int i = from; i < to; i++) {
+            int slot = slots[i];
+            heap.offer(slot, arena.dot(query, slot));
+        }
+        return heap;
+    }
+
+    /**
+     * Recursively halves a slot range until it fits one partition, then scans it
+     */
+    private static final class PartitionScan extends RecursiveTask<TopKHeap> {
+        private final VectorArena arena;
+        private final int[] slots;
+        private final int from;
+        private final int to;
+        private final float[] query;
+        private final int capacity;
+        private final int partitionSize;
+
+        PartitionScan(VectorArena arena, int[] slots, int from, int to, float[] query,
+                      int capacity, int partitionSize) {
+            this.arena = arena;
+            this.slots = slots;
+            this.from = from;
+            this.to = to;
+            this.query = query;
+            this.capacity = capacity;
+            this.partitionSize = partitionSize;
+        }
+
+        @Override
+        protected TopKHeap compute() {
+            if (to - from <= partitionSize) {
+                return scan(arena, slots, from, to, query, capacity);
+            }
+            int mid = (from + to) >>> 1;
+            PartitionScan left = new PartitionScan(arena, slots, from, mid, query, capacity, partitionSize);
+            PartitionScan right = new PartitionScan(arena, slots, mid, to, query, capacity, partitionSize);
+            left.fork();
+            TopKHeap merged = right.compute();
+            merged.addAll(left.join());
+            return merged;
+        }
+    }
+}
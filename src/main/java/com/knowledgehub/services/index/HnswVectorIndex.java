@@ -0,0 +1,649 @@
+package com.knowledgehub.services.index;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest-neighbour index using a Hierarchical Navigable Small World graph
+ * (Malkov & Yashunin). Graph nodes are arena slots, so vectors are never copied.
+ *
+ * Inserts run concurrently: each node's neighbour lists are copy-on-write arrays swapped
+ * under the node's monitor. Removed slots become tombstones that are still traversed but
+ * never returned; once they exceed the compaction ratio a new graph is built from the live
+ * slots on the maintenance executor, while the old graph keeps serving searches and writes.
+ * Changes made during the rebuild are replayed onto the new graph, which is then swapped in,
+ * and the tombstoned slots are released back to the arena.
+ * Small indexes are searched exactly since a scan is both cheaper and precise there.
+ */
+public class HnswVectorIndex implements VectorIndex {
+
+    private static final int[] NO_LINKS = new int[0];
+    private static final int MAX_LEVEL = 16;
+
+    private final VectorArena arena;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final int exactSearchThreshold;
+    private final double compactionRatio;
+    private final double levelMultiplier;
+    private final Executor maintenanceExecutor;
+
+    // Swapping the graph takes the write lock; inserts, removes and searches share the read lock
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private volatile Graph graph = new Graph(16);
+
+    // While a compaction rebuilds, every add (slot) and remove (-slot - 1) is also queued here for replay
+    private Queue<Integer> rebuildChanges;
+    // Incremented by clear(), so a rebuild of the cleared graph is discarded
+    private long generation;
+    private final Object compactionLock = new Object();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+    private final ThreadLocal<VisitedSet> visitedSets = ThreadLocal.withInitial(VisitedSet::new);
+
+    /**
+     * @param arena Arena holding the vectors
+     * @param m Max neighbours per node on upper levels (level 0 allows 2 * m)
+     * @param efConstruction Candidate list size while inserting
+     * @param efSearch Candidate list size while searching (raised to topK when smaller)
+     * @param exactSearchThreshold Live node count at or below which searches scan exactly
+     * @param compactionRatio Fraction of tombstoned nodes that triggers a rebuild
+     * @param maintenanceExecutor Runs rebuilds, away from the thread whose removal triggered them
+     */
+    public HnswVectorIndex(VectorArena arena, int m, int efConstruction, int efSearch,
+                           int exactSearchThreshold, double compactionRatio, Executor maintenanceExecutor) {
+        if (m < 2) {
+            throw new IllegalArgumentException("HNSW M must be at least 2");
+        }
+        if (efConstruction < 1 || efSearch < 1) {
+            throw new IllegalArgumentException("HNSW ef values must be positive");
+        }
+        this.arena = arena;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.exactSearchThreshold = exactSearchThreshold;
+        this.compactionRatio = compactionRatio;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.maintenanceExecutor = maintenanceExecutor;
+    }
+
+    @Override
+    public void add(int slot) {
+        structureLock.readLock().lock();
+        try {
+            Graph current = graph;
+            if (current.nodeAt(slot) != null) {
+                return; // Already indexed (tombstoned slots are not reused until compaction releases them)
+            }
+            // Queued before the insert, so a removal of the new node is always queued after it
+            Queue<Integer> changes = rebuildChanges;
+            if (changes != null) {
+                changes.add(slot);
+            }
+            current.insert(slot);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(int slot) {
+        boolean compact;
+        structureLock.readLock().lock();
+        try {
+            Graph current = graph;
+            if (!current.markDeleted(slot)) {
+                return;
+            }
+            Queue<Integer> changes = rebuildChanges;
+            if (changes != null) {
+                changes.add(-slot - 1);
+            }
+            int live = current.liveCount.get();
+            int tombstones = current.tombstoneCount.get();
+            compact = tombstones > compactionRatio * (live + tombstones);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+        if (compact && compactionScheduled.compareAndSet(false, true)) {
+            try {
+                maintenanceExecutor.execute(() -> {
+                    try {
+                        compact();
+                    } finally {
+                        compactionScheduled.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the tombstones are simply kept
+                compactionScheduled.set(false);
+            }
+        }
+    }
+
+    @Override
+    public SearchHits search(float[] query, int topK) {
+        if (topK <= 0) {
+            return SearchHits.empty();
+        }
+        structureLock.readLock().lock();
+        try {
+            Graph current = graph;
+            if (query.length != arena.dimension()) {
+                return SearchHits.empty();
+            }
+            if (current.liveCount.get() <= exactSearchThreshold) {
+                return current.exactSearch(query, topK);
+            }
+            EntryPoint entry = current.entryPoint;
+            if (entry == null) {
+                return SearchHits.empty();
+            }
+
+            // Greedy descent through the upper levels
+            int node = entry.slot;
+            float nodeScore = arena.dot(query, node);
+            for (int level = entry.level; level > 0; level--) {
+                int[] best = current.greedyClosest(query, node, nodeScore, level);
+                node = best[0];
+                nodeScore = Float.intBitsToFloat(best[1]);
+            }
+
+            ScoreHeap results = current.searchLayer(query, node, nodeScore, Math.max(efSearch, topK), 0);
+            while (results.size() > topK) {
+                results.pop();
+            }
+            return toHits(results);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return graph.liveCount.get();
+    }
+
+    @Override
+    public void clear() {
+        structureLock.writeLock().lock();
+        try {
+            graph = new Graph(16);
+            generation++;
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of removed nodes still kept in the graph
+     * @return Tombstone count
+     */
+    public int tombstoneCount() {
+        return graph.tombstoneCount.get();
+    }
+
+    /**
+     * Rebuild the graph from live nodes only and release tombstoned slots to the arena.
+     * The rebuild runs without blocking searches and writes; they only wait while the changes
+     * made in the meantime are replayed and the new graph is swapped in.
+     */
+    public void compact() {
+        synchronized (compactionLock) {
+            Graph source;
+            Queue<Integer> changes = new ConcurrentLinkedQueue<>();
+            int[] liveSlots;
+            int liveTotal = 0;
+            int[] deadSlots;
+            int deadCount = 0;
+            long startGeneration;
+            structureLock.writeLock().lock();
+            try {
+                source = graph;
+                liveSlots = new int[source.liveCount.get()];
+                deadSlots = new int[source.tombstoneCount.get()];
+                for (Node node : source.nodes) {
+                    if (node == null) {
+                        continue;
+                    }
+                    if (node.deleted) {
+                        if (deadCount == deadSlots.length) {
+                            deadSlots = Arrays.copyOf(deadSlots, deadCount * 2 + 1);
+                        }
+                        deadSlots[deadCount++] = node.slot;
+                    } else {
+                        if (liveTotal == liveSlots.length) {
+                            liveSlots = Arrays.copyOf(liveSlots, liveTotal * 2 + 1);
+                        }
+                        liveSlots[liveTotal++] = node.slot;
+                    }
+                }
+                rebuildChanges = changes;
+                startGeneration = generation;
+            } finally {
+                structureLock.writeLock().unlock();
+            }
+
+            // No slot is released until the swap below, so every vector stays readable while rebuilding
+            Graph rebuilt = new Graph(source.nodes.length);
+            for (int i = 0; i < liveTotal; i++) {
+                rebuilt.insert(liveSlots[i]);
+            }
+
+            structureLock.writeLock().lock();
+            try {
+                rebuildChanges = null;
+                if (generation != startGeneration) {
+                    return; // Cleared while rebuilding; the old slots went with it
+                }
+                for (int change : changes) {
+                    if (change >= 0) {
+                        if (rebuilt.nodeAt(change) == null) {
+                            rebuilt.insert(change);
+                        }
+                    } else {
+                        rebuilt.markDeleted(-change - 1);
+                    }
+                }
+                graph = rebuilt;
+            } finally {
+                structureLock.writeLock().unlock();
+            }
+            // The new graph no longer references these slots
+            for (int i = 0; i < deadCount; i++) {
+                arena.release(deadSlots[i]);
+            }
+        }
+    }
+
+    /**
+     * Neighbour selection heuristic: keep a candidate only if it is closer to the base
+     * than to any neighbour already kept, which preserves links in different directions.
+     * @param slots Candidates sorted by similarity to the base (highest first)
+     */
+    private int[] selectNeighbours(int[] slots, float[] scores, int count, int max) {
+        if (count <= max) {
+            return Arrays.copyOf(slots, count);
+        }
+        int[] selected = new int[max];
+        int selectedCount = 0;
+        for (int i = 0; i < count && selectedCount < max; i++) {
+            int candidate = slots[i];
+            boolean keep = true;
+            for (int j = 0; j < selectedCount; j++) {
+                if (arena.dot(candidate, selected[j]) > scores[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[selectedCount++] = candidate;
+            }
+        }
+        return Arrays.copyOf(selected, selectedCount);
+    }
+
+    private SearchHits toHits(ScoreHeap minHeap) {
+        int size = minHeap.size();
+        long[] ids = new long[size];
+        float[] scores = new float[size];
+        for (int rank = size - 1; rank >= 0; rank--) {
+            ids[rank] = arena.idAt(minHeap.topSlot());
+            scores[rank] = minHeap.topScore();
+            minHeap.pop();
+        }
+        return new SearchHits(ids, scores, size);
+    }
+
+    /**
+     * The graph itself: nodes by slot, the entry point and counts. Compaction builds a new one and swaps it in.
+     */
+    private final class Graph {
+        // Graph nodes indexed by arena slot (null when the slot is not in the graph)
+        private volatile Node[] nodes;
+        private volatile EntryPoint entryPoint;
+        private final AtomicInteger liveCount = new AtomicInteger();
+        private final AtomicInteger tombstoneCount = new AtomicInteger();
+        private final Object growLock = new Object();
+        private final Object entryLock = new Object();
+
+        Graph(int capacity) {
+            this.nodes = new Node[capacity];
+        }
+
+        /**
+         * Insert a slot into the graph. Callers hold the structure lock, or own a graph that is not yet published.
+         * Graph slots are only released after a compaction swapped in a graph without them,
+         * so vectors can be read without the arena lock.
+         */
+        void insert(int slot) {
+            int level = randomLevel();
+            Node node = new Node(slot, level);
+            register(node);
+            liveCount.incrementAndGet();
+
+            EntryPoint entry = entryPoint;
+            if (entry == null) {
+                synchronized (entryLock) {
+                    if (entryPoint == null) {
+                        entryPoint = new EntryPoint(slot, level);
+                        return;
+                    }
+                    entry = entryPoint;
+                }
+            }
+
+            float[] query = arena.vector(slot);
+            int current = entry.slot;
+            float currentScore = arena.dot(query, current);
+            for (int l = entry.level; l > level; l--) {
+                int[] best = greedyClosest(query, current, currentScore, l);
+                current = best[0];
+                currentScore = Float.intBitsToFloat(best[1]);
+            }
+
+            for (int l = Math.min(level, entry.level); l >= 0; l--) {
+                ScoreHeap candidates = searchLayer(query, current, currentScore, efConstruction, l);
+                int count = candidates.size();
+                int[] candidateSlots = new int[count];
+                float[] candidateScores = new float[count];
+                // Drain the min-heap from the back so arrays end up sorted best first
+                for (int i = count - 1; i >= 0; i--) {
+                    candidateSlots[i] = candidates.topSlot();
+                    candidateScores[i] = candidates.topScore();
+                    candidates.pop();
+                }
+                // Never link a node to itself
+                count = removeSlot(candidateSlots, candidateScores, count, slot);
+                if (count == 0) {
+                    continue;
+                }
+
+                int[] neighbours = selectNeighbours(candidateSlots, candidateScores, count, m);
+                synchronized (node) {
+                    node.links[l] = neighbours;
+                }
+                for (int neighbour : neighbours) {
+                    addLink(neighbour, slot, l);
+                }
+                current = candidateSlots[0];
+                currentScore = candidateScores[0];
+            }
+
+            if (level > entry.level) {
+                synchronized (entryLock) {
+                    if (entryPoint == null || level > entryPoint.level) {
+                        entryPoint = new EntryPoint(slot, level);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Follow the best-scoring neighbour on one level until no neighbour improves.
+         * @return {slot, floatBits(score)}
+         */
+        int[] greedyClosest(float[] query, int start, float startScore, int level) {
+            int current = start;
+            float currentScore = startScore;
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int neighbour : linksOf(current, level)) {
+                    float score = arena.dot(query, neighbour);
+                    if (score > currentScore) {
+                        current = neighbour;
+                        currentScore = score;
+                        changed = true;
+                    }
+                }
+            }
+            return new int[] { current, Float.floatToRawIntBits(currentScore) };
+        }
+
+        /**
+         * Beam search on one level.
+         * Tombstones are traversed but never returned.
+         * @return Min-heap (worst on top) of at most ef live results
+         */
+        ScoreHeap searchLayer(float[] query, int entrySlot, float entryScore, int ef, int level) {
+            VisitedSet visited = visitedSets.get();
+            visited.reset(nodes.length);
+
+            ScoreHeap candidates = new ScoreHeap(false, ef * 2);
+            ScoreHeap results = new ScoreHeap(true, ef + 1);
+
+            visited.mark(entrySlot);
+            candidates.push(entrySlot, entryScore);
+            if (!isDeleted(entrySlot)) {
+                results.push(entrySlot, entryScore);
+            }
+
+            while (!candidates.isEmpty()) {
+                int candidate = candidates.topSlot();
+                float candidateScore = candidates.topScore();
+                if (results.size() >= ef && candidateScore < results.topScore()) {
+                    break;
+                }
+                candidates.pop();
+
+                for (int neighbour : linksOf(candidate, level)) {
+                    if (!visited.mark(neighbour)) {
+                        continue;
+                    }
+                    float score = arena.dot(query, neighbour);
+                    if (results.size() < ef || score > results.topScore()) {
+                        candidates.push(neighbour, score);
+                        if (!isDeleted(neighbour)) {
+                            results.push(neighbour, score);
+                            if (results.size() > ef) {
+                                results.pop();
+                            }
+                        }
+                    }
+                }
+            }
+            return results;
+        }
+
+        /**
+         * Add a back-link from an existing node, pruning its list when it overflows
+         */
+        private void addLink(int fromSlot, int toSlot, int level) {
+            Node from = nodeAt(fromSlot);
+            if (from == null || level > from.level) {
+                return;
+            }
+            int maxLinks = level == 0 ? maxM0 : m;
+            synchronized (from) {
+                int[] current = from.links[level];
+                for (int link : current) {
+                    if (link == toSlot) {
+                        return;
+                    }
+                }
+                if (current.length < maxLinks) {
+                    int[] updated = Arrays.copyOf(current, current.length + 1);
+                    updated[current.length] = toSlot;
+                    from.links[level] = updated;
+                    return;
+                }
+
+                // Over capacity: re-select among existing links plus the new one, dropping tombstones first
+                int[] slots = new int[current.length + 1];
+                float[] scores = new float[current.length + 1];
+                int count = 0;
+                for (int link : current) {
+                    if (!isDeleted(link)) {
+                        count = insertSorted(slots, scores, count, link, arena.dot(fromSlot, link));
+                    }
+                }
+                count = insertSorted(slots, scores, count, toSlot, arena.dot(fromSlot, toSlot));
+                from.links[level] = selectNeighbours(slots, scores, count, maxLinks);
+            }
+        }
+
+        SearchHits exactSearch(float[] query, int topK) {
+            TopKHeap results = new TopKHeap(topK);
+            for (Node node : nodes) {
+                if (node != null && !isDeleted(node.slot)) {
+                    results.offer(node.slot, arena.dot(query, node.slot));
+                }
+            }
+            return results.drainToHits(arena);
+        }
+
+        private int[] linksOf(int slot, int level) {
+            Node node = nodeAt(slot);
+            if (node == null || level > node.level) {
+                return NO_LINKS;
+            }
+            synchronized (node) {
+                return node.links[level];
+            }
+        }
+
+        private boolean isDeleted(int slot) {
+            Node node = nodeAt(slot);
+            // A slot whose id was already removed from the arena is as good as deleted
+            return node == null || node.deleted || arena.idAt(slot) == VectorArena.EMPTY_SLOT;
+        }
+
+        Node nodeAt(int slot) {
+            Node[] current = nodes;
+            return slot >= 0 && slot < current.length ? current[slot] : null;
+        }
+
+        /**
+         * Tombstone a node
+         * @return True if the slot was live in this graph
+         */
+        boolean markDeleted(int slot) {
+            Node node = nodeAt(slot);
+            if (node == null) {
+                return false;
+            }
+            synchronized (node) {
+                if (node.deleted) {
+                    return false;
+                }
+                node.deleted = true;
+            }
+            liveCount.decrementAndGet();
+            tombstoneCount.incrementAndGet();
+            return true;
+        }
+
+        private void register(Node node) {
+            synchronized (growLock) {
+                Node[] current = nodes;
+                if (node.slot >= current.length) {
+                    current = Arrays.copyOf(current, Math.max(node.slot + 1, current.length * 2));
+                }
+                current[node.slot] = node;
+                nodes = current;
+            }
+        }
+    }
+
+    private int randomLevel() {
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return Math.min(MAX_LEVEL, (int) (-Math.log(random) * levelMultiplier));
+    }
+
+    private static int insertSorted(int[] slots, float[] scores, int count, int slot, float score) {
+        int i = count;
+        while (i > 0 && scores[i - 1] < score) {
+            slots[i] = slots[i - 1];
+            scores[i] = scores[i - 1];
+            i--;
+        }
+        slots[i] = slot;
+        scores[i] = score;
+        return count + 1;
+    }
+
+    private static int removeSlot(int[] slots, float[] scores, int count, int slot) {
+        for (int i = 0; i < count; i++) {
+            if (slots[i] == slot) {
+                System.arraycopy(slots, i + 1, slots, i, count - i - 1);
+                System.arraycopy(scores, i + 1, scores, i, count - i - 1);
+                return count - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Graph node. Link arrays are replaced, never mutated, and swapped under the node's monitor.
+     */
+    private static final class Node {
+        final int slot;
+        final int level;
+        final int[][] links;
+        volatile boolean deleted;
+
+        Node(int slot, int level) {
+            this.slot = slot;
+            this.level = level;
+            this.links = new int[level + 1][];
+            Arrays.fill(this.links, NO_LINKS);
+        }
+    }
+
+    private static final class EntryPoint {
+        final int slot;
+        final int level;
+
+        EntryPoint(int slot, int level) {
+            this.slot = slot;
+            this.level = level;
+        }
+    }
+
+    /**
+     * Per-thread visited marks; bumping the generation clears the set without touching the array
+     */
+    private static final class VisitedSet {
+        private int[] marks = new int[0];
+        private int generation;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[capacity];
+                generation = 0;
+            }
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * @return true if the slot had not been visited yet
+         */
+        boolean mark(int slot) {
+            if (slot >= marks.length) {
+                // The graph grew during this search; extend without losing marks
+                marks = Arrays.copyOf(marks, Math.max(slot + 1, marks.length * 2));
+            }
+            if (marks[slot] == generation) {
+                return false;
+            }
+            marks[slot] = generation;
+            return true;
+        }
+    }
+}
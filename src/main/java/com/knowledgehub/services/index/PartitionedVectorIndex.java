@@ -0,0 +1,181 @@
+package com.knowledgehub.services.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Vector index split into named partitions (e.g. one per document type), each an independent {@link VectorIndex}
+ * over the same arena. A search scoped to a partition scores only that partition's slots, so it returns
+ * exactly topK hits whenever the partition has that many, however rare the partition is overall.
+ * An unscoped search queries every partition and merges their hits by score.
+ */
+public class PartitionedVectorIndex implements VectorIndex {
+
+    // Partition used by add(int) when the caller does not name one
+    public static final String DEFAULT_PARTITION = "";
+
+    private final Supplier<VectorIndex> indexFactory;
+    private final Map<String, VectorIndex> partitions = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Partition of every indexed slot (null for slots that are not indexed), so remove(int) knows where to go
+    private String[] partitionBySlot = new String[16];
+
+    /**
+     * @param indexFactory Creates the index for a new partition
+     */
+    public PartitionedVectorIndex(Supplier<VectorIndex> indexFactory) {
+        this.indexFactory = indexFactory;
+    }
+
+    @Override
+    public void add(int slot) {
+        add(slot, DEFAULT_PARTITION);
+    }
+
+    /**
+     * Add a slot to a partition, moving it out of any other partition it was in
+     * @param slot The arena slot to index
+     * @param partition The partition name
+     */
+    public void add(int slot, String partition) {
+        VectorIndex index = partitions.computeIfAbsent(partition, name -> indexFactory.get());
+        lock.writeLock().lock();
+        try {
+            if (slot >= partitionBySlot.length) {
+                partitionBySlot = Arrays.copyOf(partitionBySlot, Math.max(slot + 1, partitionBySlot.length * 2));
+            }
+            String previous = partitionBySlot[slot];
+            if (previous != null && !previous.equals(partition)) {
+                throw new IllegalArgumentException("Slot " + slot + " is already indexed in partition " + previous);
+            }
+            partitionBySlot[slot] = partition;
+            index.add(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(int slot) {
+        VectorIndex index;
+        lock.writeLock().lock();
+        try {
+            if (slot < 0 || slot >= partitionBySlot.length || partitionBySlot[slot] == null) {
+                return;
+            }
+            index = partitions.get(partitionBySlot[slot]);
+            partitionBySlot[slot] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // The partition releases the slot back to the arena
+        index.remove(slot);
+    }
+
+    @Override
+    public SearchHits search(float[] query, int topK) {
+        if (topK <= 0 || partitions.isEmpty()) {
+            return SearchHits.empty();
+        }
+        if (partitions.size() == 1) {
+            return partitions.values().iterator().next().search(query, topK);
+        }
+        List<SearchHits> results = new ArrayList<>(partitions.size());
+        for (VectorIndex index : partitions.values()) {
+            results.add(index.search(query, topK));
+        }
+        return merge(results, topK);
+    }
+
+    /**
+     * Find the slots of one partition most similar to a query; other partitions are not touched
+     * @param query Normalized query vector
+     * @param partition The partition name
+     * @param topK Number of results to return
+     * @return Hits sorted by similarity (highest first); empty if the partition does not exist
+     */
+    public SearchHits search(float[] query, String partition, int topK) {
+        VectorIndex index = partitions.get(partition);
+        if (index == null || topK <= 0) {
+            return SearchHits.empty();
+        }
+        return index.search(query, topK);
+    }
+
+    /**
+     * Get the number of slots in a partition
+     * @param partition The partition name
+     * @return Slot count (0 if the partition does not exist)
+     */
+    public int size(String partition) {
+        VectorIndex index = partitions.get(partition);
+        return index == null ? 0 : index.size();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (VectorIndex index : partitions.values()) {
+            size += index.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            // Keep the partition indexes (and their settings); only their contents go
+            for (VectorIndex index : partitions.values()) {
+                index.clear();
+            }
+            partitionBySlot = new String[16];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long memoryBytes() {
+        long bytes;
+        lock.readLock().lock();
+        try {
+            bytes = (long) partitionBySlot.length * Integer.BYTES; // References, assuming compressed oops
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (VectorIndex index : partitions.values()) {
+            bytes += index.memoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Merge per-partition hits (each sorted, highest first) into the overall topK
+     */
+    private static SearchHits merge(List<SearchHits> results, int topK) {
+        int total = 0;
+        for (SearchHits hits : results) {
+            total += hits.size();
+        }
+        if (total == 0) {
+            return SearchHits.empty();
+        }
+        long[] ids = new long[total];
+        TopKHeap heap = new TopKHeap(Math.min(topK, total));
+        int position = 0;
+        for (SearchHits hits : results) {
+            for (int rank = 0; rank < hits.size(); rank++) {
+                ids[position] = hits.id(rank);
+                heap.offer(position++, hits.score(rank));
+            }
+        }
+        return heap.drainToHits(i -> ids[i]);
+    }
+}
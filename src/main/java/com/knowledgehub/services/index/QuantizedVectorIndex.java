@@ -0,0 +1,297 @@
+package com.knowledgehub.services.index;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Exact-quality index that scans compressed codes instead of full vectors.
+ * Every member slot is encoded by a {@link VectorQuantizer}; a search scores all codes against the query,
+ * keeps the best topK * rescoreMultiplier as a shortlist, and rescores only the shortlist against the
+ * full-precision vectors in the arena. By default the multiplier is the quantizer's own, sized so that results
+ * match an exact search. Codes are a quarter (int8) to a sixteenth (PQ) of the vector size,
+ * so the scan reads far less memory, and with a memory-mapped arena only shortlisted vectors are paged in.
+ *
+ * A quantizer that needs training (PQ) is trained on the maintenance executor once trainingSize members are
+ * indexed; until its codes are ready, searches fall back to an exact scan through the {@link ExactSearchEngine}.
+ * Training works on an untrained copy of the quantizer that is only swapped in if the index was not
+ * cleared in the meantime, so searches never see a quantizer that is half trained or reset.
+ */
+public class QuantizedVectorIndex implements VectorIndex {
+
+    // Codes are stored per arena slot in slabs of this many slots
+    private static final int SLAB_SHIFT = 12;
+    private static final int SLAB_SLOTS = 1 << SLAB_SHIFT;
+    private static final int SLAB_MASK = SLAB_SLOTS - 1;
+
+    private final VectorArena arena;
+    private final ExactSearchEngine searchEngine;
+    private final int rescoreMultiplier;
+    private final Executor trainingExecutor;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Dense list of indexed slots, plus each slot's position in it for O(1) removal
+    private int[] members = new int[16];
+    private int[] positionBySlot = emptyPositions(16);
+    private int memberCount;
+
+    // Encoding of the codes; replaced (never retrained in place) when training finishes or the index is cleared
+    private VectorQuantizer quantizer;
+
+    // Codes by slot; codeSize is known once the first vector is encoded
+    private byte[][] codeSlabs = new byte[0][];
+    private int codeSize;
+
+    // True once every member has a code; searches scan exactly until then
+    private boolean codesReady;
+    private boolean training;
+    private boolean trainingFailed;
+
+    // Incremented by clear(), so training that started before it is discarded
+    private long generation;
+
+    /**
+     * @param arena Arena holding the full-precision vectors
+     * @param searchEngine Exact search, used until the quantizer is trained
+     * @param quantizer Encoding for the codes
+     * @param rescoreMultiplier Shortlist size as a multiple of topK, or 0 for the quantizer's default;
+     *                          larger means better recall and more rescoring
+     * @param trainingExecutor Runs quantizer training off the indexing thread
+     */
+    public QuantizedVectorIndex(VectorArena arena, ExactSearchEngine searchEngine,
+                                VectorQuantizer quantizer, int rescoreMultiplier, Executor trainingExecutor) {
+        if (rescoreMultiplier < 0) {
+            throw new IllegalArgumentException("Rescore multiplier must not be negative");
+        }
+        this.arena = arena;
+        this.searchEngine = searchEngine;
+        this.quantizer = quantizer;
+        this.rescoreMultiplier = rescoreMultiplier == 0 ? quantizer.rescoreMultiplier() : rescoreMultiplier;
+        this.trainingExecutor = trainingExecutor;
+        this.codesReady = quantizer.isTrained();
+    }
+
+    @Override
+    public void add(int slot) {
+        lock.writeLock().lock();
+        try {
+            if (slot >= positionBySlot.length) {
+                int oldLength = positionBySlot.length;
+                positionBySlot = Arrays.copyOf(positionBySlot, Math.max(slot + 1, oldLength * 2));
+                Arrays.fill(positionBySlot, oldLength, positionBySlot.length, -1);
+            } else if (positionBySlot[slot] >= 0) {
+                return; // Already indexed
+            }
+            if (memberCount == members.length) {
+                members = Arrays.copyOf(members, memberCount * 2);
+            }
+            members[memberCount] = slot;
+            positionBySlot[slot] = memberCount++;
+
+            if (codesReady) {
+                encodeLocked(slot);
+            } else if (!training && !trainingFailed && memberCount >= quantizer.trainingSize()) {
+                startTraining();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(int slot) {
+        lock.writeLock().lock();
+        try {
+            if (slot < 0 || slot >= positionBySlot.length || positionBySlot[slot] < 0) {
+                return;
+            }
+            // Swap the last member into the hole; the slot's code is simply overwritten when the slot is reused
+            int position = positionBySlot[slot];
+            int last = members[--memberCount];
+            members[position] = last;
+            positionBySlot[last] = position;
+            positionBySlot[slot] = -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Nothing references the slot any more, so it can be reused right away
+        arena.release(slot);
+    }
+
+    @Override
+    public SearchHits search(float[] query, int topK) {
+        if (topK <= 0) {
+            return SearchHits.empty();
+        }
+        // Members cannot be released while the read lock is held, so their vectors and codes stay put
+        lock.readLock().lock();
+        try {
+            if (query.length != arena.dimension() || memberCount == 0) {
+                return SearchHits.empty();
+            }
+            if (!codesReady) {
+                return searchEngine.search(arena, members, memberCount, query, topK);
+            }
+
+            VectorQuantizer.QueryScorer scorer = quantizer.scorer(query);
+            TopKHeap shortlist = new TopKHeap((int) Math.min(memberCount, (long) topK * rescoreMultiplier));
+            for (int i = 0; i < memberCount; i++) {
+                int slot = members[i];
+                shortlist.offer(slot, scorer.score(codeSlabs[slot >>> SLAB_SHIFT], (slot & SLAB_MASK) * codeSize));
+            }
+
+            // Exact scores for the shortlist only
+            TopKHeap heap = new TopKHeap(Math.min(topK, shortlist.size()));
+            for (int i = 0; i < shortlist.size(); i++) {
+                int slot = shortlist.slotAt(i);
+                heap.offer(slot, arena.dot(query, slot));
+            }
+            return heap.drainToHits(arena);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return memberCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            members = new int[16];
+            positionBySlot = emptyPositions(16);
+            memberCount = 0;
+            codeSlabs = new byte[0][];
+            codeSize = 0;
+            generation++;
+            training = false;
+            trainingFailed = false;
+            if (quantizer.trainingSize() > 0) {
+                // New vectors may come from another distribution (e.g. a different embedding model)
+                quantizer = quantizer.untrained();
+                codesReady = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Heap used by codes, member bookkeeping and codebooks
+     */
+    @Override
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            long codeBytes = 0;
+            for (byte[] slab : codeSlabs) {
+                codeBytes += slab.length;
+            }
+            long bookkeeping = (long) (members.length + positionBySlot.length) * Integer.BYTES;
+            return codeBytes + bookkeeping + quantizer.memoryBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether searches are served from codes rather than by an exact scan
+     * @return True once the quantizer is trained and every member is encoded
+     */
+    public boolean isQuantized() {
+        lock.readLock().lock();
+        try {
+            return codesReady;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void encodeLocked(int slot) {
+        if (codeSize == 0) {
+            codeSize = quantizer.codeSize(arena.dimension());
+        }
+        int slabIndex = slot >>> SLAB_SHIFT;
+        if (slabIndex >= codeSlabs.length) {
+            int oldLength = codeSlabs.length;
+            codeSlabs = Arrays.copyOf(codeSlabs, slabIndex + 1);
+            for (int i = oldLength; i < codeSlabs.length; i++) {
+                codeSlabs[i] = new byte[SLAB_SLOTS * codeSize];
+            }
+        }
+        quantizer.encode(arena.vector(slot), codeSlabs[slabIndex], (slot & SLAB_MASK) * codeSize);
+    }
+
+    /**
+     * Copy a training sample and train an untrained copy of the quantizer on it in the background;
+     * the caller holds the write lock
+     */
+    private void startTraining() {
+        training = true;
+        long trainingGeneration = generation;
+        VectorQuantizer candidate = quantizer.untrained();
+        int sampleSize = Math.min(memberCount, quantizer.trainingSize());
+        // Spread the sample over the whole member list rather than taking the oldest members
+        float[][] sample = new float[sampleSize][];
+        for (int i = 0; i < sampleSize; i++) {
+            sample[i] = arena.vector(members[(int) ((long) i * memberCount / sampleSize)]);
+        }
+
+        try {
+            trainingExecutor.execute(() -> train(candidate, sample, trainingGeneration));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; keep searching exactly
+            training = false;
+            trainingFailed = true;
+        }
+    }
+
+    private void train(VectorQuantizer candidate, float[][] sample, long trainingGeneration) {
+        try {
+            candidate.train(sample);
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Vector quantizer training failed, searching exactly: " + e.getMessage());
+            lock.writeLock().lock();
+            try {
+                if (generation == trainingGeneration) {
+                    training = false;
+                    trainingFailed = true;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (generation != trainingGeneration) {
+                // Cleared while training: the codebooks describe vectors that are gone
+                return;
+            }
+            quantizer = candidate;
+            for (int i = 0; i < memberCount; i++) {
+                encodeLocked(members[i]);
+            }
+            codesReady = true;
+            training = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int[] emptyPositions(int length) {
+        int[] positions = new int[length];
+        Arrays.fill(positions, -1);
+        return positions;
+    }
+}
@@ -0,0 +1,91 @@
+package com.knowledgehub.services.index;
+
+import java.util.Arrays;
+
+/**
+ * Growable binary heap of (slot, score) pairs kept in primitive arrays.
+ * Ordered either with the lowest score on top (min-heap) or the highest (max-heap).
+ */
+final class ScoreHeap {
+
+    private final boolean minHeap;
+    private int[] slots;
+    private float[] scores;
+    private int size;
+
+    ScoreHeap(boolean minHeap, int initialCapacity) {
+        this.minHeap = minHeap;
+        this.slots = new int[Math.max(4, initialCapacity)];
+        this.scores = new float[slots.length];
+    }
+
+    void push(int slot, float score) {
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        // Sift up
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!above(score, scores[parent])) {
+                break;
+            }
+            slots[i] = slots[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        slots[i] = slot;
+        scores[i] = score;
+    }
+
+    /**
+     * Remove the top element. Read it first with {@link #topSlot()} and {@link #topScore()}.
+     */
+    void pop() {
+        int lastSlot = slots[--size];
+        float lastScore = scores[size];
+        int i = 0;
+        int half = size >>> 1;
+        // Sift down
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && above(scores[right], scores[child])) {
+                child = right;
+            }
+            if (!above(scores[child], lastScore)) {
+                break;
+            }
+            slots[i] = slots[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        slots[i] = lastSlot;
+        scores[i] = lastScore;
+    }
+
+    int topSlot() {
+        return slots[0];
+    }
+
+    float topScore() {
+        return scores[0];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private boolean above(float a, float b) {
+        return minHeap ? a < b : a > b;
+    }
+}
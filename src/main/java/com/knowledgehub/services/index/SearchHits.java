@@ -0,0 +1,40 @@
+package com.knowledgehub.services.index;
+
+/**
+ * Result of a vector index search: ids and scores in parallel primitive arrays,
+ * sorted by score (highest first)
+ */
+public final class SearchHits {
+
+    private static final SearchHits EMPTY = new SearchHits(new long[0], new float[0], 0);
+
+    private final long[] ids;
+    private final float[] scores;
+    private final int size;
+
+    public SearchHits(long[] ids, float[] scores, int size) {
+        this.ids = ids;
+        this.scores = scores;
+        this.size = size;
+    }
+
+    public static SearchHits empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long id(int rank) {
+        return ids[rank];
+    }
+
+    public float score(int rank) {
+        return scores[rank];
+    }
+}
@@ -0,0 +1,118 @@
+package com.knowledgehub.services.index;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * Fixed-capacity min-heap keeping the topK best (slot, score) pairs seen so far.
+ * The worst kept score sits at the root, so most candidates are rejected with a single compare
+ * and nothing is allocated per candidate.
+ */
+final class TopKHeap {
+
+    private final int capacity;
+    private final int[] slots;
+    private final float[] scores;
+    private int size;
+
+    TopKHeap(int capacity) {
+        this.capacity = capacity;
+        this.slots = new int[capacity];
+        this.scores = new float[capacity];
+    }
+
+    /**
+     * Offer a candidate; it is kept only if it beats the current worst kept score
+     */
+    void offer(int slot, float score) {
+        if (size < capacity) {
+            siftUp(size++, slot, score);
+        } else if (score > scores[0]) {
+            siftDown(slot, score);
+        }
+    }
+
+    /**
+     * Merge another heap's entries into this one
+     */
+    void addAll(TopKHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.slots[i], other.scores[i]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Slot at a heap position (0 to size - 1), in heap order rather than score order
+     */
+    int slotAt(int index) {
+        return slots[index];
+    }
+
+    /**
+     * Drain the heap into hits sorted by score (highest first). The heap is empty afterwards.
+     */
+    SearchHits drainToHits(VectorArena arena) {
+        return drainToHits(arena::idAt);
+    }
+
+    /**
+     * Drain the heap into hits sorted by score (highest first), mapping slots to ids with the given function.
+     * The heap is empty afterwards.
+     */
+    SearchHits drainToHits(IntToLongFunction idOfSlot) {
+        int count = size;
+        long[] ids = new long[count];
+        float[] sortedScores = new float[count];
+        for (int rank = count - 1; rank >= 0; rank--) {
+            ids[rank] = idOfSlot.applyAsLong(slots[0]);
+            sortedScores[rank] = scores[0];
+            int lastSlot = slots[--size];
+            float lastScore = scores[size];
+            if (size > 0) {
+                siftDown(lastSlot, lastScore);
+            }
+        }
+        return new SearchHits(ids, sortedScores, count);
+    }
+
+    private void siftUp(int index, int slot, float score) {
+        int i = index;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= score) {
+                break;
+            }
+            slots[i] = slots[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        slots[i] = slot;
+        scores[i] = score;
+    }
+
+    /**
+     * Replace the root with (slot, score) and restore heap order
+     */
+    private void siftDown(int slot, float score) {
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && scores[right] < scores[child]) {
+                child = right;
+            }
+            if (score <= scores[child]) {
+                break;
+            }
+            slots[i] = slots[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        slots[i] = slot;
+        scores[i] = score;
+    }
+}
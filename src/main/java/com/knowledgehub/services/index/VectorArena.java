@@ -0,0 +1,435 @@
+package com.knowledgehub.services.index;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compact storage for embedding vectors.
+ * Vectors are L2-normalized on insert and packed into contiguous float[] slabs,
+ * so similarity is a plain dot product over sequential memory.
+ * Each vector occupies a slot; slots are addressed by a long id (the chunk id).
+ *
+ * Writers are serialized by a lock. Reads of vector data are lock-free: slabs are only
+ * ever appended, and a slot's vector does not change while an index references it
+ * (indexes remove a slot before handing it back through {@link #release(int)}).
+ *
+ * Slabs live on the heap by default. An arena created with a storage file maps its slabs from that file
+ * instead, so full-precision vectors stay off the heap and the operating system pages in only the ones
+ * that are read; this pairs with a quantized index, which scans compact codes and reads full vectors
+ * only to rescore a shortlist. The file is scratch space, truncated on open and deleted on exit.
+ */
+public class VectorArena {
+
+    /** Marker stored in the id table for slots that hold no vector */
+    public static final long EMPTY_SLOT = Long.MIN_VALUE;
+
+    // Aim for slabs of roughly 4 MB so growth never copies existing vectors
+    private static final int TARGET_SLAB_FLOATS = 1 << 20;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Slot bookkeeping: id -> slot and slot -> id
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private volatile long[] idBySlot = new long[0];
+
+    // Released slots available for reuse
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    // Slots [0, highWaterMark) have been handed out at least once
+    private int highWaterMark;
+
+    // Fixed by the first vector stored
+    private volatile int dimension;
+    private volatile int slabVectors;
+    private volatile float[][] slabs = new float[0][];
+
+    // Memory-mapped slabs, used instead of slabs when the arena has a storage file
+    private final FileChannel storage;
+    private volatile FloatBuffer[] mappedSlabs = new FloatBuffer[0];
+
+    /**
+     * Arena with its vectors on the heap
+     */
+    public VectorArena() {
+        this.storage = null;
+    }
+
+    /**
+     * Arena with its vectors in a memory-mapped scratch file
+     * @param storageFile The file to map; created if missing, truncated if present
+     */
+    public VectorArena(Path storageFile) {
+        try {
+            if (storageFile.getParent() != null) {
+                Files.createDirectories(storageFile.getParent());
+            }
+            this.storage = FileChannel.open(storageFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            storageFile.toFile().deleteOnExit();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open vector storage " + storageFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Store a vector for the given id, overwriting in place any vector already stored for it.
+     * Callers that index slots should remove the old id first so the index never sees a vector change under it.
+     * @param id The id the vector belongs to
+     * @param vector The raw (not necessarily normalized) vector
+     * @return The slot the vector was written to
+     */
+    public int put(long id, float[] vector) {
+        if (vector == null || vector.length == 0) {
+            throw new IllegalArgumentException("Vector cannot be null or empty");
+        }
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                initialize(vector.length);
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException(
+                    "Vector dimension " + vector.length + " does not match arena dimension " + dimension);
+            }
+
+            Integer existing = slotById.get(id);
+            int slot = existing != null ? existing : allocateSlot();
+            writeNormalized(vector, slot);
+            idBySlot[slot] = id;
+            slotById.put(id, slot);
+            return slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the vector stored for the given id.
+     * The slot keeps its vector until {@link #release(int)} is called, so an index
+     * can keep traversing it (e.g. as a tombstone) after the id is gone.
+     * @param id The id to remove
+     * @return The slot the id occupied, or -1 if the id was not stored
+     */
+    public int remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return -1;
+            }
+            idBySlot[slot] = EMPTY_SLOT;
+            return slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Return a removed slot to the free list so a later {@link #put(long, float[])} can reuse it
+     * @param slot A slot previously returned by {@link #remove(long)}
+     */
+    public void release(int slot) {
+        lock.writeLock().lock();
+        try {
+            if (slot < 0 || slot >= highWaterMark || idBySlot[slot] != EMPTY_SLOT) {
+                return;
+            }
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Dot product between a normalized query and the vector in a slot.
+     * Since stored vectors are normalized this is the cosine similarity.
+     * The slot must be held by an index (or the caller must hold {@link #readLock()}).
+     * @param query Normalized query vector with the arena's dimension
+     * @param slot The slot to score
+     * @return Similarity score (-1 to 1)
+     */
+    public float dot(float[] query, int slot) {
+        if (storage != null) {
+            return dotMapped(query, slot);
+        }
+        final int dim = dimension;
+        final int perSlab = slabVectors;
+        final float[] slab = slabs[slot / perSlab];
+        final int offset = (slot % perSlab) * dim;
+
+        // Four independent accumulators keep the loop from serializing on one add chain
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int i = 0;
+        int bound = dim & ~3;
+        for (; i < bound; i += 4) {
+            s0 += query[i] * slab[offset + i];
+            s1 += query[i + 1] * slab[offset + i + 1];
+            s2 += query[i + 2] * slab[offset + i + 2];
+            s3 += query[i + 3] * slab[offset + i + 3];
+        }
+        for (; i < dim; i++) {
+            s0 += query[i] * slab[offset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Dot product between the vectors stored in two slots, under the same rules as {@link #dot(float[], int)}.
+     * @param slotA First slot
+     * @param slotB Second slot
+     * @return Similarity score (-1 to 1)
+     */
+    public float dot(int slotA, int slotB) {
+        if (storage != null) {
+            return dotMapped(vector(slotA), slotB);
+        }
+        final int dim = dimension;
+        final int perSlab = slabVectors;
+        final float[][] current = slabs;
+        final float[] slabA = current[slotA / perSlab];
+        final float[] slabB = current[slotB / perSlab];
+        final int offsetA = (slotA % perSlab) * dim;
+        final int offsetB = (slotB % perSlab) * dim;
+
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int i = 0;
+        int bound = dim & ~3;
+        for (; i < bound; i += 4) {
+            s0 += slabA[offsetA + i] * slabB[offsetB + i];
+            s1 += slabA[offsetA + i + 1] * slabB[offsetB + i + 1];
+            s2 += slabA[offsetA + i + 2] * slabB[offsetB + i + 2];
+            s3 += slabA[offsetA + i + 3] * slabB[offsetB + i + 3];
+        }
+        for (; i < dim; i++) {
+            s0 += slabA[offsetA + i] * slabB[offsetB + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Copy the normalized vector stored in a slot
+     * @param slot The slot to read
+     * @return A copy of the stored vector
+     */
+    public float[] vector(int slot) {
+        final int dim = dimension;
+        final int perSlab = slabVectors;
+        if (storage != null) {
+            float[] copy = new float[dim];
+            mappedSlabs[slot / perSlab].get((slot % perSlab) * dim, copy);
+            return copy;
+        }
+        float[] slab = slabs[slot / perSlab];
+        int offset = (slot % perSlab) * dim;
+        return Arrays.copyOfRange(slab, offset, offset + dim);
+    }
+
+    /**
+     * Get the id stored in a slot. A concurrent removal may not be visible yet, so treat this as a hint.
+     * @param slot The slot
+     * @return The id, or {@link #EMPTY_SLOT} if the slot is free
+     */
+    public long idAt(int slot) {
+        return idBySlot[slot];
+    }
+
+    /**
+     * Get the slot holding the vector for an id
+     * @param id The id
+     * @return The slot, or -1 if the id is not stored
+     */
+    public int slotOf(long id) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            return slot != null ? slot : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lock that keeps every slot stable, for callers that read slots no index is holding.
+     * Writers are blocked while it is held.
+     * @return The arena's read lock
+     */
+    public Lock readLock() {
+        return lock.readLock();
+    }
+
+    /**
+     * Upper bound (exclusive) of slots that may hold a vector. Callers should hold {@link #readLock()}.
+     * @return The high-water mark
+     */
+    public int highWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Get the vector dimension, fixed by the first vector stored
+     * @return The dimension, or 0 if the arena is still empty
+     */
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * Get the number of stored vectors
+     * @return Vector count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate heap used by vector data and slot bookkeeping (mapped vector data is not on the heap)
+     * @return Bytes allocated by the arena
+     */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            long vectorBytes = storage != null ? 0L : (long) slabs.length * slabVectors * dimension * Float.BYTES;
+            long slotBytes = (long) idBySlot.length * Long.BYTES + (long) freeSlots.length * Integer.BYTES;
+            // HashMap entry + boxed Long key + boxed Integer value, roughly
+            long mapBytes = (long) slotById.size() * 64;
+            return vectorBytes + slotBytes + mapBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove all vectors. The dimension is reset so a different model can be used afterwards.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slotById.clear();
+            idBySlot = new long[0];
+            freeSlots = new int[16];
+            freeCount = 0;
+            highWaterMark = 0;
+            dimension = 0;
+            slabVectors = 0;
+            slabs = new float[0][];
+            // Nothing reads a slot once the indexes are cleared; later slabs map over the same file regions
+            mappedSlabs = new FloatBuffer[0];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Return an L2-normalized copy of a vector
+     * @param vector The vector to normalize
+     * @return Normalized copy (all zeros if the input has zero length)
+     */
+    public static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += (double) v * v;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm == 0.0) {
+            return normalized;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private void initialize(int dim) {
+        dimension = dim;
+        slabVectors = Math.max(1, TARGET_SLAB_FLOATS / dim);
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        int slot = highWaterMark++;
+        if (slot >= idBySlot.length) {
+            int newLength = Math.max(16, idBySlot.length * 2);
+            int oldLength = idBySlot.length;
+            idBySlot = Arrays.copyOf(idBySlot, newLength);
+            Arrays.fill(idBySlot, oldLength, newLength, EMPTY_SLOT);
+        }
+        int slabIndex = slot / slabVectors;
+        if (storage != null) {
+            if (slabIndex >= mappedSlabs.length) {
+                FloatBuffer[] grown = Arrays.copyOf(mappedSlabs, slabIndex + 1);
+                grown[slabIndex] = mapSlab(slabIndex);
+                mappedSlabs = grown;
+            }
+        } else if (slabIndex >= slabs.length) {
+            slabs = Arrays.copyOf(slabs, slabIndex + 1);
+            slabs[slabIndex] = new float[slabVectors * dimension];
+        }
+        return slot;
+    }
+
+    private FloatBuffer mapSlab(int slabIndex) {
+        long slabBytes = (long) slabVectors * dimension * Float.BYTES;
+        try {
+            return storage.map(FileChannel.MapMode.READ_WRITE, slabIndex * slabBytes, slabBytes)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to map vector storage: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@link #dot(float[], int)} for mapped slabs
+     */
+    private float dotMapped(float[] query, int slot) {
+        final int dim = dimension;
+        final int perSlab = slabVectors;
+        final FloatBuffer slab = mappedSlabs[slot / perSlab];
+        final int offset = (slot % perSlab) * dim;
+
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int i = 0;
+        int bound = dim & ~3;
+        for (; i < bound; i += 4) {
+            s0 += query[i] * slab.get(offset + i);
+            s1 += query[i + 1] * slab.get(offset + i + 1);
+            s2 += query[i + 2] * slab.get(offset + i + 2);
+            s3 += query[i + 3] * slab.get(offset + i + 3);
+        }
+        for (; i < dim; i++) {
+            s0 += query[i] * slab.get(offset + i);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private void writeNormalized(float[] vector, int slot) {
+        float[] normalized = normalize(vector);
+        if (storage != null) {
+            mappedSlabs[slot / slabVectors].put((slot % slabVectors) * dimension, normalized);
+            return;
+        }
+        float[] slab = slabs[slot / slabVectors];
+        System.arraycopy(normalized, 0, slab, (slot % slabVectors) * dimension, dimension);
+    }
+}
@@ -0,0 +1,49 @@
+package com.knowledgehub.services.index;
+
+/**
+ * Similarity index over vectors stored in a {@link VectorArena}.
+ * The arena owns the vector data; an index only tracks which slots it contains
+ * and decides when a removed slot may be handed back to the arena for reuse.
+ */
+public interface VectorIndex {
+
+    /**
+     * Add a slot whose vector has already been written to the arena
+     * @param slot The arena slot to index
+     */
+    void add(int slot);
+
+    /**
+     * Remove a slot after its id has been removed from the arena.
+     * The index calls {@link VectorArena#release(int)} once it no longer needs the vector.
+     * @param slot The arena slot to drop
+     */
+    void remove(int slot);
+
+    /**
+     * Find the slots most similar to a query
+     * @param query Normalized query vector
+     * @param topK Number of results to return
+     * @return Hits sorted by similarity (highest first)
+     */
+    SearchHits search(float[] query, int topK);
+
+    /**
+     * Get the number of live (searchable) slots
+     * @return Slot count
+     */
+    int size();
+
+    /**
+     * Drop every slot. Used together with {@link VectorArena#clear()}.
+     */
+    void clear();
+
+    /**
+     * Approximate heap used by the index itself, not counting the arena's vectors
+     * @return Bytes
+     */
+    default long memoryBytes() {
+        return 0;
+    }
+}
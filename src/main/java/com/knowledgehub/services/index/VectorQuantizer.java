@@ -0,0 +1,84 @@
+package com.knowledgehub.services.index;
+
+/**
+ * Compresses normalized vectors into fixed-size byte codes that can be scored against a query
+ * without decoding them. Scores are approximate; {@link QuantizedVectorIndex} uses them to pick
+ * a shortlist and rescores the shortlist against the full-precision vectors.
+ */
+public interface VectorQuantizer {
+
+    /**
+     * Get the number of bytes one vector is encoded into
+     * @param dimension Vector dimension
+     * @return Code size in bytes
+     */
+    int codeSize(int dimension);
+
+    /**
+     * Get the number of vectors to train on
+     * @return Training sample size, or 0 if the quantizer needs no training
+     */
+    int trainingSize();
+
+    /**
+     * @return Whether vectors can be encoded (always true for quantizers that need no training)
+     */
+    boolean isTrained();
+
+    /**
+     * Learn the encoding from a sample of vectors. May run on a background thread;
+     * nothing is encoded or scored until it has returned. Trains once; train a {@link #untrained()} copy to retrain.
+     * @param sample Normalized vectors, all of the same dimension
+     */
+    void train(float[][] sample);
+
+    /**
+     * Encode a vector
+     * @param vector Normalized vector
+     * @param codes Destination array
+     * @param offset Position of the first code byte in the destination
+     */
+    void encode(float[] vector, byte[] codes, int offset);
+
+    /**
+     * Prepare to score codes against a query
+     * @param query Normalized query vector
+     * @return Scorer for this query; use it on one thread
+     */
+    QueryScorer scorer(float[] query);
+
+    /**
+     * Get the shortlist size, as a multiple of topK, at which rescoring the shortlist exactly finds the same
+     * results as an exact search; coarser codes rank true neighbours lower and need a longer shortlist
+     * @return Default rescore multiplier
+     */
+    int rescoreMultiplier();
+
+    /**
+     * Approximate heap used by trained state (codebooks)
+     * @return Bytes
+     */
+    default long memoryBytes() {
+        return 0;
+    }
+
+    /**
+     * Get a quantizer with the same settings that has learned nothing yet, so training never changes
+     * an instance that is already in use
+     * @return A new untrained quantizer, or this one if it needs no training
+     */
+    VectorQuantizer untrained();
+
+    /**
+     * Approximate dot product between one query and encoded vectors
+     */
+    interface QueryScorer {
+
+        /**
+         * @param codes Array holding the code
+         * @param offset Position of the code's first byte
+         * @return Approximate dot product with the query
+         */
+        float score(byte[] codes, int offset);
+    }
+}
@@ -0,0 +1,649 @@
+package com.knowledgehub.services.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk copy of the vector store, so a restart does not have to re-embed the corpus.
+ *
+ * The snapshot directory holds three files:
+ * <ul>
+ *   <li>vectors.bin - a header followed by every vector as little-endian float32, memory-mapped on load</li>
+ *   <li>documents.bin - per document its id, version, name, type and chunks, in the same order as the vectors</li>
+ *   <li>mutations.log - put and remove records appended since the snapshot was written</li>
+ * </ul>
+ * Every log record is framed by its length and a CRC32, so a write torn by a crash is detected
+ * and cut off on the next start. All files carry the snapshot generation; a log left over from
+ * another generation (e.g. after a crash during a checkpoint) is discarded.
+ *
+ * Appends reach the disk according to the sync interval: forced after every record (0), forced by a
+ * background thread at most that many milliseconds after being written (positive), or left to the
+ * operating system (negative). Both snapshot files are forced before they replace the previous ones,
+ * and the renames are forced (by syncing the directory) before the log is reset.
+ *
+ * Callers serialize mutations; the store itself only guards its log channel.
+ */
+public class VectorSnapshotStore implements AutoCloseable {
+
+    private static final String VECTORS_FILE = "vectors.bin";
+    private static final String DOCUMENTS_FILE = "documents.bin";
+    private static final String LOG_FILE = "mutations.log";
+
+    private static final int VECTORS_MAGIC = 0x4B485643; // "KHVC"
+    private static final int DOCUMENTS_MAGIC = 0x4B484443; // "KHDC"
+    private static final int LOG_MAGIC = 0x4B484C47; // "KHLG"
+    private static final int FORMAT_VERSION = 1;
+
+    // magic, version, generation, dimension, padding, vector count
+    private static final int VECTORS_HEADER_BYTES = 32;
+    // magic, version, generation
+    private static final int LOG_HEADER_BYTES = 16;
+    // length and CRC32 in front of every log record
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    // Vectors are mapped in windows of about 256 MB so huge snapshots don't need one giant mapping
+    private static final long MAP_WINDOW_BYTES = 1L << 28;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+
+    private final Path directory;
+    private final long maxLogBytes;
+    private final long syncIntervalMillis;
+
+    private FileChannel logChannel;
+    private long generation;
+    private boolean checkpointNeeded;
+    // Records appended since the log was last forced to disk
+    private boolean unsynced;
+    private ScheduledExecutorService syncScheduler;
+
+    /**
+     * @param directory Directory holding the snapshot files, or null to disable persistence
+     * @param maxLogBytes Log size after which {@link #shouldCheckpoint()} asks for a new snapshot
+     * @param syncIntervalMillis 0 to force every log record to disk, a positive interval to force them
+     *                           periodically, or a negative value to leave flushing to the operating system
+     */
+    public VectorSnapshotStore(Path directory, long maxLogBytes, long syncIntervalMillis) {
+        this.directory = directory;
+        this.maxLogBytes = maxLogBytes;
+        this.syncIntervalMillis = syncIntervalMillis;
+    }
+
+    /**
+     * A store that persists nothing, for when snapshots are turned off
+     * @return A disabled store
+     */
+    public static VectorSnapshotStore disabled() {
+        return new VectorSnapshotStore(null, Long.MAX_VALUE, -1);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Load the snapshot and replay the mutation log on top of it, then open the log for appends
+     * @param onPut Receives every stored document (a later put of the same id replaces the earlier one)
+     * @param onRemove Receives the id of every removed document
+     * @throws IOException If the snapshot directory or the log cannot be opened
+     */
+    public synchronized void load(Consumer<StoredDocument> onPut, LongConsumer onRemove) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        closeLog();
+
+        generation = 0;
+        Path vectors = directory.resolve(VECTORS_FILE);
+        Path documents = directory.resolve(DOCUMENTS_FILE);
+        if (Files.exists(vectors) && Files.exists(documents)) {
+            try {
+                generation = readSnapshot(vectors, documents, onPut);
+            } catch (IOException | RuntimeException e) {
+                // Whatever was read stays loaded; the caller reconciles the rest against the database
+                System.err.println("Warning: Vector snapshot is unreadable, ignoring the rest of it: " + e.getMessage());
+                checkpointNeeded = true;
+            }
+        }
+        openLog(onPut, onRemove);
+        if (syncIntervalMillis > 0 && syncScheduler == null) {
+            syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "vector-log-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncScheduler.scheduleWithFixedDelay(this::sync, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Append a put record for a document (replacing any earlier version of it on replay)
+     * @param document The document with its chunk vectors
+     */
+    public synchronized void appendPut(StoredDocument document) {
+        if (logChannel == null) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(OP_PUT);
+            writeDocument(out, document, true);
+            out.flush();
+            appendRecord(bytes.toByteArray());
+        } catch (IOException e) {
+            logWriteFailed(e);
+        }
+    }
+
+    /**
+     * Append a remove record for a document
+     * @param documentId The id of the removed document
+     */
+    public synchronized void appendRemove(long documentId) {
+        if (logChannel == null) {
+            return;
+        }
+        try {
+            ByteBuffer payload = ByteBuffer.allocate(1 + Long.BYTES);
+            payload.put(OP_REMOVE).putLong(documentId);
+            appendRecord(payload.array());
+        } catch (IOException e) {
+            logWriteFailed(e);
+        }
+    }
+
+    /**
+     * Force the records appended since the last sync to disk
+     */
+    public synchronized void sync() {
+        if (logChannel == null || !unsynced) {
+            return;
+        }
+        try {
+            logChannel.force(false);
+            unsynced = false;
+        } catch (IOException e) {
+            logWriteFailed(e);
+        }
+    }
+
+    /**
+     * Check whether the log has grown enough (or failed) that a fresh snapshot should be written
+     * @return True if {@link #writeSnapshot(Iterable)} should be called
+     */
+    public synchronized boolean shouldCheckpoint() {
+        if (directory == null) {
+            return false;
+        }
+        try {
+            return checkpointNeeded || logChannel == null || logChannel.size() > maxLogBytes;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Write a new snapshot of the given documents and start an empty log.
+     * The caller must keep the store from changing until this returns, so the snapshot
+     * and the log line up.
+     * @param documents Every document in the store, with its chunk vectors
+     * @throws IOException If the snapshot could not be written; the previous snapshot and log stay in place
+     */
+    public synchronized void writeSnapshot(Iterable<StoredDocument> documents) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        long nextGeneration = generation + 1;
+        Path vectorsTemp = directory.resolve(VECTORS_FILE + ".tmp");
+        Path documentsTemp = directory.resolve(DOCUMENTS_FILE + ".tmp");
+
+        try (FileChannel vectorChannel = FileChannel.open(vectorsTemp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             FileChannel documentChannel = FileChannel.open(documentsTemp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream documentOut = new DataOutputStream(
+                 new BufferedOutputStream(Channels.newOutputStream(documentChannel)))) {
+            documentOut.writeInt(DOCUMENTS_MAGIC);
+            documentOut.writeInt(FORMAT_VERSION);
+            documentOut.writeLong(nextGeneration);
+
+            vectorChannel.position(VECTORS_HEADER_BYTES);
+            int dimension = 0;
+            long vectorCount = 0;
+            ByteBuffer buffer = null;
+            for (StoredDocument document : documents) {
+                documentOut.writeBoolean(true);
+                writeDocument(documentOut, document, false);
+                for (float[] vector : document.getVectors()) {
+                    if (buffer == null) {
+                        dimension = vector.length;
+                        buffer = ByteBuffer.allocate(dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                    } else if (vector.length != dimension) {
+                        throw new IOException("Vector dimension " + vector.length + " does not match " + dimension);
+                    }
+                    buffer.clear();
+                    buffer.asFloatBuffer().put(vector);
+                    writeFully(vectorChannel, buffer);
+                    vectorCount++;
+                }
+            }
+            documentOut.writeBoolean(false);
+            documentOut.flush();
+            documentChannel.force(true);
+
+            ByteBuffer header = ByteBuffer.allocate(VECTORS_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(VECTORS_MAGIC).putInt(FORMAT_VERSION).putLong(nextGeneration)
+                .putInt(dimension).putInt(0).putLong(vectorCount);
+            header.flip();
+            vectorChannel.position(0);
+            writeFully(vectorChannel, header);
+            vectorChannel.force(true);
+        }
+
+        moveIntoPlace(vectorsTemp, directory.resolve(VECTORS_FILE));
+        moveIntoPlace(documentsTemp, directory.resolve(DOCUMENTS_FILE));
+        // The log may only be emptied once the new snapshot is durably in place
+        forceDirectory(directory);
+        generation = nextGeneration;
+        resetLog();
+        checkpointNeeded = false;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (syncScheduler != null) {
+            syncScheduler.shutdownNow();
+            syncScheduler = null;
+        }
+        sync();
+        closeLog();
+    }
+
+    private long readSnapshot(Path vectorsPath, Path documentsPath, Consumer<StoredDocument> onPut) throws IOException {
+        try (FileChannel vectorChannel = FileChannel.open(vectorsPath, StandardOpenOption.READ);
+             DataInputStream documentIn = new DataInputStream(
+                 new BufferedInputStream(Files.newInputStream(documentsPath)))) {
+            ByteBuffer header = ByteBuffer.allocate(VECTORS_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (vectorChannel.read(header, header.position()) < 0) {
+                    throw new EOFException("Vector file header is truncated");
+                }
+            }
+            header.flip();
+            if (header.getInt() != VECTORS_MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IOException("Unknown vector file format");
+            }
+            long vectorGeneration = header.getLong();
+            int dimension = header.getInt();
+            header.getInt();
+            long vectorCount = header.getLong();
+            if (vectorChannel.size() < VECTORS_HEADER_BYTES + vectorCount * dimension * Float.BYTES) {
+                throw new IOException("Vector file is truncated");
+            }
+
+            if (documentIn.readInt() != DOCUMENTS_MAGIC || documentIn.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unknown document file format");
+            }
+            if (documentIn.readLong() != vectorGeneration) {
+                throw new IOException("Vector and document files are from different snapshots");
+            }
+
+            MappedVectors vectors = new MappedVectors(vectorChannel, dimension, vectorCount);
+            while (documentIn.readBoolean()) {
+                StoredDocument document = readDocument(documentIn, null);
+                float[][] documentVectors = document.getVectors();
+                for (int i = 0; i < documentVectors.length; i++) {
+                    documentVectors[i] = vectors.next();
+                }
+                onPut.accept(document);
+            }
+            return vectorGeneration;
+        }
+    }
+
+    private void openLog(Consumer<StoredDocument> onPut, LongConsumer onRemove) throws IOException {
+        logChannel = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES);
+        if (logChannel.size() < LOG_HEADER_BYTES || readFully(logChannel, header, 0) < LOG_HEADER_BYTES) {
+            resetLog();
+            return;
+        }
+        header.flip();
+        if (header.getInt() != LOG_MAGIC || header.getInt() != FORMAT_VERSION || header.getLong() != generation) {
+            // Written against another snapshot; everything in it is already in the snapshot or lost with it
+            resetLog();
+            return;
+        }
+
+        long position = LOG_HEADER_BYTES;
+        long size = logChannel.size();
+        CRC32 crc = new CRC32();
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        while (position + RECORD_HEADER_BYTES <= size) {
+            recordHeader.clear();
+            readFully(logChannel, recordHeader, position);
+            recordHeader.flip();
+            int length = recordHeader.getInt();
+            int checksum = recordHeader.getInt();
+            if (length <= 0 || position + RECORD_HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(logChannel, payload, position + RECORD_HEADER_BYTES);
+            crc.reset();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            applyRecord(payload.array(), onPut, onRemove);
+            position += RECORD_HEADER_BYTES + length;
+        }
+        if (position < size) {
+            System.err.println("Warning: Dropping " + (size - position) + " bytes of incomplete vector log");
+            logChannel.truncate(position);
+        }
+        logChannel.position(position);
+    }
+
+    private void applyRecord(byte[] payload, Consumer<StoredDocument> onPut, LongConsumer onRemove) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        if (op == OP_PUT) {
+            onPut.accept(readDocument(in, in));
+        } else if (op == OP_REMOVE) {
+            onRemove.accept(in.readLong());
+        } else {
+            throw new IOException("Unknown vector log operation: " + op);
+        }
+    }
+
+    private void appendRecord(byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        record.flip();
+        writeFully(logChannel, record);
+        if (syncIntervalMillis == 0) {
+            logChannel.force(false);
+        } else {
+            unsynced = true;
+        }
+    }
+
+    private void resetLog() throws IOException {
+        if (logChannel == null) {
+            logChannel = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        logChannel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES);
+        header.putInt(LOG_MAGIC).putInt(FORMAT_VERSION).putLong(generation);
+        header.flip();
+        logChannel.position(0);
+        writeFully(logChannel, header);
+        logChannel.force(true);
+        unsynced = false;
+    }
+
+    private void logWriteFailed(IOException e) {
+        // The in-memory store is already updated; a fresh snapshot will capture the change
+        System.err.println("Warning: Failed to append to vector log: " + e.getMessage());
+        checkpointNeeded = true;
+    }
+
+    private void closeLog() {
+        if (logChannel != null) {
+            try {
+                logChannel.close();
+            } catch (IOException e) {
+                System.err.println("Warning: Failed to close vector log: " + e.getMessage());
+            }
+            logChannel = null;
+        }
+    }
+
+    /**
+     * Write a document's metadata, and its vectors when the record has to stand on its own (log records)
+     */
+    private static void writeDocument(DataOutput out, StoredDocument document, boolean withVectors) throws IOException {
+        out.writeLong(document.getDocumentId());
+        out.writeLong(document.getVersion());
+        writeString(out, document.getName());
+        writeString(out, document.getType());
+        long[] chunkIds = document.getChunkIds();
+        String[] chunkTexts = document.getChunkTexts();
+        out.writeInt(chunkIds.length);
+        for (int i = 0; i < chunkIds.length; i++) {
+            out.writeLong(chunkIds[i]);
+            writeString(out, chunkTexts[i]);
+        }
+        if (withVectors) {
+            float[][] vectors = document.getVectors();
+            out.writeInt(vectors.length == 0 ? 0 : vectors[0].length);
+            for (float[] vector : vectors) {
+                for (float value : vector) {
+                    out.writeFloat(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a document written by {@link #writeDocument}; vectors are read from vectorIn when given
+     */
+    private static StoredDocument readDocument(DataInput in, DataInput vectorIn) throws IOException {
+        long documentId = in.readLong();
+        long version = in.readLong();
+        String name = readString(in);
+        String type = readString(in);
+        int chunkCount = in.readInt();
+        long[] chunkIds = new long[chunkCount];
+        String[] chunkTexts = new String[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            chunkIds[i] = in.readLong();
+            chunkTexts[i] = readString(in);
+        }
+        float[][] vectors = new float[chunkCount][];
+        if (vectorIn != null) {
+            int dimension = vectorIn.readInt();
+            for (int i = 0; i < chunkCount; i++) {
+                vectors[i] = new float[dimension];
+                for (int d = 0; d < dimension; d++) {
+                    vectors[i][d] = vectorIn.readFloat();
+                }
+            }
+        }
+        return new StoredDocument(documentId, version, name, type, chunkIds, chunkTexts, vectors);
+    }
+
+    // Length-prefixed UTF-8; DataOutput.writeUTF is limited to 64 KB
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Force the directory's entries (renames, new files) to disk. Not every platform can open a directory
+     * for syncing (Windows cannot); there the renames are left to the file system.
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException | UnsupportedOperationException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Sequential reader over the memory-mapped vector file
+     */
+    private static class MappedVectors {
+        private final FileChannel channel;
+        private final int dimension;
+        private final long count;
+        private final long vectorsPerWindow;
+
+        private FloatBuffer window;
+        private long windowStart;
+        private long windowEnd;
+        private long next;
+
+        MappedVectors(FileChannel channel, int dimension, long count) {
+            this.channel = channel;
+            this.dimension = dimension;
+            this.count = count;
+            this.vectorsPerWindow = Math.max(1, MAP_WINDOW_BYTES / ((long) Math.max(1, dimension) * Float.BYTES));
+        }
+
+        float[] next() throws IOException {
+            if (next >= count) {
+                throw new IOException("Document file references more vectors than the vector file holds");
+            }
+            if (window == null || next >= windowEnd) {
+                windowStart = next;
+                windowEnd = Math.min(count, next + vectorsPerWindow);
+                long offset = VECTORS_HEADER_BYTES + windowStart * dimension * Float.BYTES;
+                long length = (windowEnd - windowStart) * dimension * Float.BYTES;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer();
+            }
+            float[] vector = new float[dimension];
+            window.get((int) ((next - windowStart) * dimension), vector);
+            next++;
+            return vector;
+        }
+    }
+
+    /**
+     * A document as persisted: its metadata and one vector per chunk, in chunk order
+     */
+    public static final class StoredDocument {
+        private final long documentId;
+        private final long version;
+        private final String name;
+        private final String type;
+        private final long[] chunkIds;
+        private final String[] chunkTexts;
+        private final float[][] vectors;
+
+        public StoredDocument(long documentId, long version, String name, String type,
+                              long[] chunkIds, String[] chunkTexts, float[][] vectors) {
+            if (chunkIds.length != chunkTexts.length || chunkIds.length != vectors.length) {
+                throw new IllegalArgumentException("Every chunk needs an id, a text and a vector");
+            }
+            this.documentId = documentId;
+            this.version = version;
+            this.name = name;
+            this.type = type;
+            this.chunkIds = chunkIds;
+            this.chunkTexts = chunkTexts;
+            this.vectors = vectors;
+        }
+
+        public long getDocumentId() {
+            return documentId;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long[] getChunkIds() {
+            return chunkIds;
+        }
+
+        public String[] getChunkTexts() {
+            return chunkTexts;
+        }
+
+        public float[][] getVectors() {
+            return vectors;
+        }
+    }
+}
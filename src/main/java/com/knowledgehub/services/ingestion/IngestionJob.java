@@ -0,0 +1,129 @@
+package com.knowledgehub.services.ingestion;
+
+import com.knowledgehub.models.Document;
+import com.knowledgehub.models.DocumentType;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An uploaded file moving through the {@link IngestionPipeline}.
+ * Status fields are read by the job API while pipeline workers update them.
+ */
+public class IngestionJob {
+
+    public enum Status {
+        QUEUED,
+        EXTRACTING,
+        PERSISTING,
+        CHUNKING,
+        EMBEDDING,
+        COMPLETED,
+        // Saved and searchable by keyword, but embedding failed; the pipeline embeds it again later
+        PARTIALLY_INDEXED,
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String fileName;
+    private final DocumentType type;
+    private final Path filePath;
+    private final long size;
+    private final String checksum;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Long documentId;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+
+    // Handed from one stage to the next; cleared once the job finishes
+    String content;
+    Document document;
+    List<String> chunks;
+    // Set by the embedding stage when the document is kept without embeddings
+    String embeddingError;
+
+    IngestionJob(String fileName, DocumentType type, Path filePath, long size, String checksum) {
+        this.fileName = fileName;
+        this.type = type;
+        this.filePath = filePath;
+        this.size = size;
+        this.checksum = checksum;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public DocumentType getType() {
+        return type;
+    }
+
+    public Path getFilePath() {
+        return filePath;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.PARTIALLY_INDEXED || status == Status.FAILED;
+    }
+
+    void setStatus(Status status) {
+        this.status = status;
+    }
+
+    void setDocumentId(Long documentId) {
+        this.documentId = documentId;
+    }
+
+    void complete() {
+        finish(embeddingError == null ? Status.COMPLETED : Status.PARTIALLY_INDEXED, embeddingError);
+    }
+
+    void fail(String error) {
+        finish(Status.FAILED, error);
+    }
+
+    private void finish(Status finalStatus, String error) {
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        this.status = finalStatus;
+        content = null;
+        document = null;
+        chunks = null;
+    }
+}
@@ -0,0 +1,415 @@
+package com.knowledgehub.services.ingestion;
+
+import com.knowledgehub.models.Document;
+import com.knowledgehub.models.DocumentType;
+import com.knowledgehub.models.ManualDocument;
+import com.knowledgehub.models.PolicyDocument;
+import com.knowledgehub.models.ReportDocument;
+import com.knowledgehub.repositories.DocumentRepository;
+import com.knowledgehub.services.DocumentChunker;
+import com.knowledgehub.services.DocumentMetadataCache;
+import com.knowledgehub.services.DocumentNameMatcher;
+import com.knowledgehub.services.EmbeddingService;
+import com.knowledgehub.services.VectorStoreService;
+import com.knowledgehub.services.WordTextExtractor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingests uploaded files off the request thread.
+ * A job passes through four stages - text extraction, persistence, chunking and embedding -
+ * each with its own workers and a bounded queue in front of it. A full queue blocks the stage
+ * feeding it, so a slow embedding API backs the pipeline up instead of piling jobs in memory;
+ * once the first queue is full, new uploads are rejected.
+ * A job that fails while its document is being saved or chunked is rolled back (row, indexed text and file).
+ * A failed embedding call does not undo the upload: the document is already searchable by keyword
+ * from the chunking stage, so it is kept, the job ends as partially indexed, and the embedding is retried
+ * every few minutes (and by warm-up after a restart, since text-only chunks are not in the snapshot).
+ * Metrics: time per stage (knowledgehub.ingestion.stage), upload to completion or failure
+ * (knowledgehub.ingestion.jobs) and rejected uploads (knowledgehub.ingestion.rejected).
+ */
+@Service
+public class IngestionPipeline {
+
+    private final WordTextExtractor textExtractor;
+    private final DocumentRepository documentRepository;
+    private final DocumentChunker documentChunker;
+    private final EmbeddingService embeddingService;
+    private final VectorStoreService vectorStoreService;
+    private final DocumentNameMatcher documentNameMatcher;
+    private final DocumentMetadataCache documentMetadataCache;
+
+    // jobId -> job, kept for jobRetentionMinutes after it finishes so clients can poll the result
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+    private final long jobRetentionMinutes;
+
+    // Saved documents whose embedding failed, retried by embeddingRetry (null with retries off)
+    private final Set<Long> awaitingEmbedding = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService embeddingRetry;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedCounter;
+
+    private final Stage embeddingStage;
+    private final Stage chunkingStage;
+    private final Stage persistenceStage;
+    private final Stage extractionStage;
+
+    public IngestionPipeline(WordTextExtractor textExtractor, DocumentRepository documentRepository,
+                             DocumentChunker documentChunker, EmbeddingService embeddingService,
+                             VectorStoreService vectorStoreService, DocumentNameMatcher documentNameMatcher,
+                             DocumentMetadataCache documentMetadataCache, MeterRegistry meterRegistry,
+                             @Value("${app.ingestion.queue-capacity:100}") int queueCapacity,
+                             @Value("${app.ingestion.extraction-threads:2}") int extractionThreads,
+                             @Value("${app.ingestion.embedding-threads:4}") int embeddingThreads,
+                             @Value("${app.ingestion.job-retention-minutes:60}") long jobRetentionMinutes,
+                             @Value("${app.ingestion.embedding-retry-minutes:10}") long embeddingRetryMinutes) {
+        this.textExtractor = textExtractor;
+        this.documentRepository = documentRepository;
+        this.documentChunker = documentChunker;
+        this.embeddingService = embeddingService;
+        this.vectorStoreService = vectorStoreService;
+        this.documentNameMatcher = documentNameMatcher;
+        this.documentMetadataCache = documentMetadataCache;
+        this.jobRetentionMinutes = jobRetentionMinutes;
+        this.meterRegistry = meterRegistry;
+        this.rejectedCounter = Counter.builder("knowledgehub.ingestion.rejected")
+            .description("Uploads rejected because the ingestion queue was full")
+            .register(meterRegistry);
+
+        // Built back to front so every stage knows where to hand its jobs
+        this.embeddingStage = new Stage("embed", queueCapacity, embeddingThreads,
+            IngestionJob.Status.EMBEDDING, this::embed, null);
+        this.chunkingStage = new Stage("chunk", queueCapacity, 1,
+            IngestionJob.Status.CHUNKING, this::chunk, embeddingStage);
+        this.persistenceStage = new Stage("persist", queueCapacity, 1,
+            IngestionJob.Status.PERSISTING, this::persist, chunkingStage);
+        this.extractionStage = new Stage("extract", queueCapacity, extractionThreads,
+            IngestionJob.Status.EXTRACTING, this::extract, persistenceStage);
+
+        if (embeddingRetryMinutes > 0) {
+            this.embeddingRetry = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ingestion-embedding-retry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            embeddingRetry.scheduleWithFixedDelay(this::retryEmbedding, embeddingRetryMinutes, embeddingRetryMinutes,
+                TimeUnit.MINUTES);
+        } else {
+            this.embeddingRetry = null;
+        }
+    }
+
+    /**
+     * Queue an uploaded file for ingestion
+     * @param filePath Where the upload was stored; a file of the job's own, deleted if the job fails
+     * @param fileName Original file name
+     * @param type Document type
+     * @param size File size in bytes
+     * @param checksum Hex SHA-256 of the file
+     * @return The queued job
+     * @throws RejectedExecutionException If the pipeline is full
+     */
+    public IngestionJob submit(Path filePath, String fileName, DocumentType type, long size, String checksum) {
+        evictFinishedJobs();
+        IngestionJob job = new IngestionJob(fileName, type, filePath, size, checksum);
+        jobs.put(job.getId(), job);
+        if (!extractionStage.offer(job)) {
+            jobs.remove(job.getId());
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("Ingestion queue is full, please retry later");
+        }
+        return job;
+    }
+
+    /**
+     * Look up a job by id
+     * @param jobId The job id returned on upload
+     * @return The job, if it is still retained
+     */
+    public Optional<IngestionJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Get the number of jobs waiting in front of each stage
+     * @return Stage name -> queue depth
+     */
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        for (Stage stage : List.of(extractionStage, persistenceStage, chunkingStage, embeddingStage)) {
+            depths.put(stage.name, stage.queue.size());
+        }
+        return depths;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (embeddingRetry != null) {
+            embeddingRetry.shutdownNow();
+        }
+        for (Stage stage : List.of(extractionStage, persistenceStage, chunkingStage, embeddingStage)) {
+            stage.stop();
+        }
+    }
+
+    private void extract(IngestionJob job) throws Exception {
+        try {
+            job.content = textExtractor.extractText(job.getFilePath(), job.getFileName().toLowerCase());
+        } catch (Exception e) {
+            // The file was stored for this job alone (see UploadFiles.storagePath) and no document points to it yet
+            Files.deleteIfExists(job.getFilePath());
+            throw e;
+        }
+    }
+
+    private void persist(IngestionJob job) {
+        Document doc = createDocument(job.getType());
+        doc.setName(job.getFileName());
+        doc.setContent(job.content);
+        doc.setPath(job.getFilePath().toString());
+        doc.setSize(job.getSize());
+        doc.setChecksum(job.getChecksum());
+        doc.setCreatedAt(LocalDateTime.now());
+        doc.setType();
+
+        Document savedDoc = documentRepository.save(doc);
+        job.setDocumentId(savedDoc.getId());
+        job.document = savedDoc;
+        documentNameMatcher.add(savedDoc.getId(), savedDoc.getName());
+        documentMetadataCache.invalidate(savedDoc.getId());
+        job.content = null;
+    }
+
+    private void chunk(IngestionJob job) {
+        String content = job.document.getContent();
+        job.chunks = content == null ? List.of() : documentChunker.chunk(content);
+        // Searchable by keyword while the chunks wait to be embedded
+        if (!job.chunks.isEmpty() && documentRepository.existsById(job.getDocumentId())) {
+            vectorStoreService.indexText(job.document, job.chunks);
+        }
+    }
+
+    private void embed(IngestionJob job) {
+        if (job.chunks.isEmpty()) {
+            // Documents without text are saved but have nothing to index
+            return;
+        }
+        List<float[]> embeddings;
+        try {
+            embeddings = embeddingService.generateEmbeddingVectors(job.chunks);
+        } catch (RuntimeException e) {
+            // Already searchable by keyword; keep what the user uploaded and embed it once the API recovers
+            System.err.println("Warning: Embedding " + job.getFileName() + " failed, it stays searchable by keyword"
+                + " and is retried later: " + e.getMessage());
+            job.embeddingError = "Embedding failed, searchable by keyword until it is retried: " + e.getMessage();
+            awaitingEmbedding.add(job.getDocumentId());
+            return;
+        }
+        // The document may have been deleted while its chunks were being embedded
+        if (documentRepository.existsById(job.getDocumentId())) {
+            vectorStoreService.addDocument(job.document, job.chunks, embeddings);
+        } else {
+            // Drop the text indexed for it at the chunking stage
+            vectorStoreService.removeDocument(job.getDocumentId());
+        }
+    }
+
+    /**
+     * Embed the documents whose embedding failed during ingestion. Stops at the first failure,
+     * since the API is most likely still unavailable; the rest are tried on the next run.
+     */
+    void retryEmbedding() {
+        for (Long documentId : awaitingEmbedding) {
+            try {
+                // Deleted documents are simply dropped
+                documentRepository.findById(documentId).ifPresent(vectorStoreService::addDocument);
+                awaitingEmbedding.remove(documentId);
+            } catch (RuntimeException e) {
+                System.err.println("Warning: Embedding retry of document " + documentId + " failed: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Saved documents waiting for their embedding to be retried
+     */
+    public int getAwaitingEmbeddingCount() {
+        return awaitingEmbedding.size();
+    }
+
+    /**
+     * Undo the document saved for a job that failed in a later stage, including the job's own upload file
+     */
+    private void rollBack(IngestionJob job) {
+        Long documentId = job.getDocumentId();
+        try {
+            vectorStoreService.removeDocument(documentId);
+            documentRepository.deleteById(documentId);
+            documentNameMatcher.remove(documentId);
+            documentMetadataCache.invalidate(documentId);
+            Files.deleteIfExists(job.getFilePath());
+            job.setDocumentId(null);
+        } catch (Exception e) {
+            System.err.println("Warning: Failed to roll back document " + documentId + " of failed upload "
+                + job.getFileName() + ": " + e.getMessage());
+        }
+        job.document = null;
+    }
+
+    /**
+     * Record how long a finished job took from upload to completion or failure
+     */
+    private void recordFinished(IngestionJob job) {
+        Timer.builder("knowledgehub.ingestion.jobs")
+            .description("Uploads from submission until they are searchable or have failed")
+            .tags("type", job.getType().name(), "outcome", outcome(job.getStatus()))
+            .register(meterRegistry)
+            .record(Duration.between(job.getSubmittedAt(), job.getFinishedAt()));
+    }
+
+    private static String outcome(IngestionJob.Status status) {
+        switch (status) {
+            case COMPLETED:
+                return "completed";
+            case PARTIALLY_INDEXED:
+                return "partially-indexed";
+            default:
+                return "failed";
+        }
+    }
+
+    private Document createDocument(DocumentType type) {
+        switch (type) {
+            case POLICY:
+                return new PolicyDocument();
+            case REPORT:
+                return new ReportDocument();
+            case MANUAL:
+                return new ManualDocument();
+            default:
+                throw new IllegalArgumentException("Unknown document type");
+        }
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobRetentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @FunctionalInterface
+    private interface StageHandler {
+        void handle(IngestionJob job) throws Exception;
+    }
+
+    /**
+     * One pipeline stage: a bounded queue drained by a fixed set of worker threads
+     */
+    private class Stage {
+        final String name;
+        final BlockingQueue<IngestionJob> queue;
+        final List<Thread> workers = new ArrayList<>();
+        final IngestionJob.Status status;
+        final StageHandler handler;
+        final Stage next;
+        final Timer timer;
+        volatile boolean running = true;
+
+        Stage(String name, int capacity, int threads, IngestionJob.Status status, StageHandler handler, Stage next) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+            this.status = status;
+            this.handler = handler;
+            this.next = next;
+            this.timer = Timer.builder("knowledgehub.ingestion.stage")
+                .description("Time a job spends being processed by an ingestion stage, excluding queueing")
+                .tag("stage", name)
+                .register(meterRegistry);
+            for (int i = 0; i < Math.max(1, threads); i++) {
+                Thread worker = new Thread(this::work, "ingestion-" + name + "-" + i);
+                worker.setDaemon(true);
+                worker.start();
+                workers.add(worker);
+            }
+        }
+
+        boolean offer(IngestionJob job) {
+            return running && queue.offer(job);
+        }
+
+        void stop() {
+            running = false;
+            workers.forEach(Thread::interrupt);
+            IngestionJob job;
+            while ((job = queue.poll()) != null) {
+                job.fail("Application is shutting down");
+                recordFinished(job);
+            }
+        }
+
+        private void work() {
+            while (running) {
+                IngestionJob job;
+                try {
+                    job = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                job.setStatus(status);
+                long start = System.nanoTime();
+                try {
+                    handler.handle(job);
+                } catch (Exception e) {
+                    System.err.println("Warning: Ingestion of " + job.getFileName() + " failed while in stage "
+                        + name + ": " + e.getMessage());
+                    if (job.getDocumentId() != null) {
+                        rollBack(job);
+                    }
+                    job.fail(e.getMessage());
+                    recordFinished(job);
+                    continue;
+                } finally {
+                    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                if (next == null) {
+                    job.complete();
+                    recordFinished(job);
+                    continue;
+                }
+                try {
+                    // Blocks while the next stage is full, which is what bounds the pipeline
+                    next.queue.put(job);
+                } catch (InterruptedException e) {
+                    job.fail("Application is shutting down");
+                    recordFinished(job);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
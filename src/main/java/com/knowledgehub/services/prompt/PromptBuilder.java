@@ -0,0 +1,195 @@
+package com.knowledgehub.services.prompt;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Assembles the variable parts of a system prompt within a token budget.
+ * The fixed template and the question are reserved first, then each distinct instruction is added once.
+ * Candidates (retrieved chunks or whole documents) are packed highest score first until the budget is spent;
+ * content that is already selected, or contained in selected content, is skipped, and the first candidate
+ * that does not fit is cut down if enough budget is left for a useful part of it.
+ * Selected candidates are rendered in the order they were added, so the prompt keeps the retrieval order.
+ * Add all instructions and candidates before reading a section. Not thread-safe: build one per prompt.
+ */
+public class PromptBuilder {
+
+    // Allowance for the separators placed between entries when they are joined into the prompt
+    private static final int SEPARATOR_TOKENS = 4;
+
+    // A candidate that does not fit is only cut down when at least this many tokens remain for it
+    private static final int MIN_PARTIAL_TOKENS = 100;
+
+    private final TokenCounter tokenCounter;
+    private final int maxTokens;
+    private int usedTokens;
+
+    private final List<String> instructions = new ArrayList<>();
+    private final Set<String> seenInstructions = new HashSet<>();
+    private final List<Candidate> candidates = new ArrayList<>();
+
+    private boolean packed;
+    private int duplicateCount;
+    private int droppedCount;
+
+    /**
+     * @param tokenCounter Counts tokens with the chat model's encoding
+     * @param maxTokens Budget for the whole prompt, including reserved text
+     */
+    public PromptBuilder(TokenCounter tokenCounter, int maxTokens) {
+        this.tokenCounter = tokenCounter;
+        this.maxTokens = Math.max(1, maxTokens);
+    }
+
+    /**
+     * Charge text that is always sent (the template, the user's question) against the budget
+     * @param text The fixed text
+     * @return This builder
+     */
+    public PromptBuilder reserve(String text) {
+        usedTokens += tokenCounter.count(text);
+        return this;
+    }
+
+    /**
+     * Add an instruction; instructions that differ only in whitespace or case are added once
+     * @param text The instruction
+     * @return This builder
+     */
+    public PromptBuilder instruction(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return this;
+        }
+        if (seenInstructions.add(normalize(text))) {
+            instructions.add(text.trim());
+            usedTokens += tokenCounter.count(text) + SEPARATOR_TOKENS;
+        }
+        return this;
+    }
+
+    /**
+     * Offer content for a section of the prompt
+     * @param section Name of the section it belongs to
+     * @param label Text placed before the content (e.g. its source); never cut, not used for deduplication
+     * @param content The content
+     * @param score Relevance; higher scores are packed first, ties keep the order they were added in
+     * @return This builder
+     */
+    public PromptBuilder candidate(String section, String label, String content, double score) {
+        if (content == null || content.trim().isEmpty()) {
+            return this;
+        }
+        candidates.add(new Candidate(candidates.size(), section, label == null ? "" : label, content, score));
+        return this;
+    }
+
+    /**
+     * @return The distinct instructions, separated by blank lines
+     */
+    public String instructions() {
+        return String.join("\n\n", instructions);
+    }
+
+    /**
+     * @param section Name of the section
+     * @return The selected entries of the section (label and content), in the order they were added
+     */
+    public List<String> section(String section) {
+        pack();
+        List<String> entries = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (candidate.selectedText != null && candidate.section.equals(section)) {
+                entries.add(candidate.selectedText);
+            }
+        }
+        return entries;
+    }
+
+    public int getUsedTokens() {
+        pack();
+        return usedTokens;
+    }
+
+    public int getDuplicateCount() {
+        pack();
+        return duplicateCount;
+    }
+
+    public int getDroppedCount() {
+        pack();
+        return droppedCount;
+    }
+
+    private void pack() {
+        if (packed) {
+            return;
+        }
+        packed = true;
+
+        List<Candidate> byScore = new ArrayList<>(candidates);
+        byScore.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed()
+            .thenComparingInt(c -> c.order));
+
+        List<String> selectedContent = new ArrayList<>();
+        for (Candidate candidate : byScore) {
+            String normalized = normalize(candidate.content);
+            if (isContained(normalized, selectedContent)) {
+                duplicateCount++;
+                continue;
+            }
+
+            int labelTokens = tokenCounter.count(candidate.label) + SEPARATOR_TOKENS;
+            int contentTokens = tokenCounter.count(candidate.content);
+            int remaining = maxTokens - usedTokens - labelTokens;
+            if (contentTokens <= remaining) {
+                candidate.selectedText = candidate.label + candidate.content;
+                usedTokens += labelTokens + contentTokens;
+            } else if (remaining >= MIN_PARTIAL_TOKENS) {
+                String part = tokenCounter.truncate(candidate.content, remaining);
+                candidate.selectedText = candidate.label + part;
+                usedTokens += labelTokens + tokenCounter.count(part);
+            } else {
+                droppedCount++;
+                continue;
+            }
+            selectedContent.add(normalized);
+        }
+    }
+
+    private static boolean isContained(String content, List<String> selectedContent) {
+        for (String selected : selectedContent) {
+            if (selected.contains(content)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Helper class to hold offered content and, once packed, the text selected for the prompt
+     */
+    private static class Candidate {
+        final int order;
+        final String section;
+        final String label;
+        final String content;
+        final double score;
+        String selectedText; // null when not selected
+
+        Candidate(int order, String section, String label, String content, double score) {
+            this.order = order;
+            this.section = section;
+            this.label = label;
+            this.content = content;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.knowledgehub.services.prompt;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts tokens locally with the chat model's byte-pair encoding, so prompts can be sized
+ * without a round trip to the provider. Special-token markers in document text are counted
+ * as ordinary text, the same way they reach the model.
+ */
+@Component
+public class TokenCounter {
+
+    private final Encoding encoding;
+
+    public TokenCounter(@Value("${app.prompt.encoding:o200k_base}") String encodingName) {
+        EncodingType type = EncodingType.fromName(encodingName)
+            .orElseThrow(() -> new IllegalArgumentException("Unknown token encoding: " + encodingName));
+        this.encoding = Encodings.newLazyEncodingRegistry().getEncoding(type);
+    }
+
+    /**
+     * Count the tokens in a text
+     * @param text The text (null counts as empty)
+     * @return Number of tokens
+     */
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return encoding.countTokensOrdinary(text);
+    }
+
+    /**
+     * Cut a text down to at most the given number of tokens, keeping its beginning
+     * @param text The text
+     * @param maxTokens Maximum number of tokens to keep
+     * @return The text itself if it fits, otherwise its longest prefix that does
+     */
+    public String truncate(String text, int maxTokens) {
+        if (text == null || maxTokens <= 0) {
+            return "";
+        }
+        EncodingResult result = encoding.encodeOrdinary(text, maxTokens);
+        return result.isTruncated() ? encoding.decode(result.getTokens()) : text;
+    }
+}
@@ -0,0 +1,164 @@
+package com.knowledgehub.services.trace;
+
+import com.knowledgehub.models.VectorDocument;
+import com.knowledgehub.models.DTO.RequestTraceResponse;
+import com.knowledgehub.models.DTO.RetrievedChunkTrace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Per-request record of how long each stage took (name matching, database lookups, query embedding,
+ * index search, prompt assembly, the model call), for the Server-Timing response header.
+ * A detailed trace also keeps the retrieved chunks with their scores and the prompt's token counts.
+ *
+ * The trace is bound to the thread handling the request: the controller starts it and ends it, and services
+ * record into it through the static methods, which do nothing when no trace is active (e.g. during warm-up).
+ * Work handed to other threads is not traced. A stage that runs more than once accumulates its time;
+ * stages may nest (prompt assembly includes the metadata lookups recorded under db).
+ */
+public class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final boolean detailed;
+
+    // Stage -> accumulated nanoseconds, in the order stages first ran
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+
+    private final List<RetrievedChunkTrace> retrieved = new ArrayList<>();
+    private Integer promptTokens;
+    private Integer promptBudget;
+    private Integer droppedCandidates;
+    private Integer duplicateCandidates;
+
+    private RequestTrace(boolean detailed) {
+        this.detailed = detailed;
+    }
+
+    /**
+     * Start tracing the current thread's request; pair with {@link #end()} in a finally block
+     * @param detailed Also keep retrieved chunks and prompt token counts
+     * @return The new trace
+     */
+    public static RequestTrace start(boolean detailed) {
+        RequestTrace trace = new RequestTrace(detailed);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Stop tracing the current thread
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Run a stage and record its duration in the current trace, if any
+     * @param stage Stage name (a Server-Timing metric name: letters, digits, '-' and '_')
+     * @param work The stage
+     * @return The stage's result
+     */
+    public static <T> T time(String stage, Supplier<T> work) {
+        RequestTrace trace = CURRENT.get();
+        if (trace == null) {
+            return work.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            trace.stageNanos.merge(stage, System.nanoTime() - start, Long::sum);
+        }
+    }
+
+    /**
+     * Record a duration measured by the caller
+     * @param stage Stage name
+     * @param nanos Time spent in the stage
+     */
+    public static void record(String stage, long nanos) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.stageNanos.merge(stage, nanos, Long::sum);
+        }
+    }
+
+    /**
+     * Keep a chunk returned by a search, if a detailed trace is active
+     * @param search Kind of search (vector, lexical, type or document)
+     * @param chunk The chunk
+     * @param score Its score in that search
+     */
+    public static void retrieved(String search, VectorDocument chunk, float score) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null && trace.detailed) {
+            trace.retrieved.add(new RetrievedChunkTrace(search, chunk.getDocumentId(), chunk.getDocumentName(),
+                chunk.getDocumentType(), chunk.getChunkId(), score, false));
+        }
+    }
+
+    /**
+     * Mark the retrieved chunks that were offered to the prompt
+     * @param chunkIds Ids of the selected chunks
+     */
+    public static void selected(Collection<Long> chunkIds) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null && trace.detailed) {
+            for (RetrievedChunkTrace chunk : trace.retrieved) {
+                if (chunkIds.contains(chunk.getChunkId())) {
+                    chunk.setSelected(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keep the token counts of the assembled prompt, if a detailed trace is active
+     * @param used Tokens in the prompt, including the question
+     * @param budget The token budget
+     * @param dropped Candidates left out for lack of budget
+     * @param duplicates Candidates left out as duplicates
+     */
+    public static void prompt(int used, int budget, int dropped, int duplicates) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null && trace.detailed) {
+            trace.promptTokens = used;
+            trace.promptBudget = budget;
+            trace.droppedCandidates = dropped;
+            trace.duplicateCandidates = duplicates;
+        }
+    }
+
+    /**
+     * @return The stage durations as a Server-Timing header value, e.g. "embed;dur=84.2, search;dur=1.3, total;dur=912.0"
+     */
+    public String toServerTiming() {
+        StringBuilder header = new StringBuilder();
+        for (Map.Entry<String, Long> stage : stageNanos.entrySet()) {
+            header.append(stage.getKey()).append(";dur=").append(millis(stage.getValue())).append(", ");
+        }
+        return header.append("total;dur=").append(millis(System.nanoTime() - startNanos)).toString();
+    }
+
+    /**
+     * @return The stage durations, plus retrieval and prompt details for a detailed trace
+     */
+    public RequestTraceResponse toResponse() {
+        Map<String, Double> stageMillis = new LinkedHashMap<>();
+        stageNanos.forEach((stage, nanos) -> stageMillis.put(stage, Double.valueOf(millis(nanos))));
+        return new RequestTraceResponse(Double.parseDouble(millis(System.nanoTime() - startNanos)), stageMillis,
+            new ArrayList<>(retrieved), promptTokens, promptBudget, droppedCandidates, duplicateCandidates);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+}
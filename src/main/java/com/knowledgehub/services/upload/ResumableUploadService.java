@@ -0,0 +1,207 @@
+package com.knowledgehub.services.upload;
+
+import com.knowledgehub.models.DocumentType;
+import com.knowledgehub.services.ingestion.IngestionJob;
+import com.knowledgehub.services.ingestion.IngestionPipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Chunked, resumable uploads for files too large for a single multipart request.
+ * Pieces are appended to a part file under the upload directory and hashed as they arrive;
+ * completing the session moves the file to a name of its own in the upload directory and queues it for ingestion.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final String PART_DIRECTORY = ".partial";
+
+    private final IngestionPipeline ingestionPipeline;
+    private final Path uploadDirectory;
+    private final long maxFileSize;
+    private final long sessionTimeoutMinutes;
+
+    // sessionId -> session; sessions idle for longer than sessionTimeoutMinutes are dropped
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public ResumableUploadService(IngestionPipeline ingestionPipeline,
+                                  @Value("${app.upload.dir:uploads}") String uploadDirectory,
+                                  @Value("${app.upload.resumable.max-file-size-mb:500}") long maxFileSizeMegabytes,
+                                  @Value("${app.upload.resumable.session-timeout-minutes:60}") long sessionTimeoutMinutes) {
+        this.ingestionPipeline = ingestionPipeline;
+        this.uploadDirectory = Paths.get(uploadDirectory);
+        this.maxFileSize = maxFileSizeMegabytes * 1024 * 1024;
+        this.sessionTimeoutMinutes = sessionTimeoutMinutes;
+    }
+
+    /**
+     * Start a resumable upload
+     * @param fileName Name of the Word document
+     * @param type Document type
+     * @param totalSize Size of the whole file in bytes
+     * @return The new session, expecting its first piece at offset 0
+     * @throws IOException If the part file cannot be created
+     */
+    public UploadSession create(String fileName, DocumentType type, long totalSize) throws IOException {
+        String bareName = UploadFiles.requireWordDocument(fileName);
+        if (type == null) {
+            throw new IllegalArgumentException("Document type cannot be null");
+        }
+        if (totalSize <= 0 || totalSize > maxFileSize) {
+            throw new IllegalArgumentException("File size must be between 1 and " + maxFileSize + " bytes");
+        }
+        expireIdleSessions();
+
+        Path partDirectory = uploadDirectory.resolve(PART_DIRECTORY);
+        Files.createDirectories(partDirectory);
+        Path partFile = Files.createTempFile(partDirectory, "upload-", ".part");
+        UploadSession session = new UploadSession(bareName, type, totalSize, partFile);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Look up a session, e.g. to find the offset to resume from
+     * @param sessionId The session id
+     * @return The session, if it exists and has not expired
+     */
+    public Optional<UploadSession> get(String sessionId) {
+        return Optional.ofNullable(sessions.get(sessionId));
+    }
+
+    /**
+     * Append the next piece of the file
+     * @param sessionId The session id
+     * @param offset Offset the piece starts at; must equal the bytes received so far
+     * @param body The piece (streamed, never buffered whole)
+     * @return The session with its new offset
+     * @throws UploadTooLargeException If the piece runs past the declared file size; the session keeps what fit
+     * @throws IOException If the piece could not be stored completely; the session keeps what arrived
+     */
+    public UploadSession append(String sessionId, long offset, InputStream body) throws IOException {
+        UploadSession session = require(sessionId);
+        synchronized (session) {
+            if (offset != session.getReceivedBytes()) {
+                throw new UploadOffsetMismatchException(session);
+            }
+            long remaining = session.getTotalSize() - session.getReceivedBytes();
+            try {
+                long appended = UploadFiles.append(body, session.getPartFile(), session.digest, remaining);
+                session.setReceivedBytes(session.getReceivedBytes() + appended);
+            } catch (IOException e) {
+                // Part of the piece may have been written; resume from what is on disk
+                session.setReceivedBytes(Files.size(session.getPartFile()));
+                session.digestValid = false;
+                throw e;
+            }
+            return session;
+        }
+    }
+
+    /**
+     * Finish an upload and queue the file for ingestion
+     * @param sessionId The session id
+     * @param expectedChecksum Optional hex SHA-256 the client computed; the upload is rejected if it differs
+     * @return The ingestion job
+     * @throws IOException If the file cannot be moved into place
+     */
+    public IngestionJob complete(String sessionId, String expectedChecksum) throws IOException {
+        UploadSession session = require(sessionId);
+        synchronized (session) {
+            if (!session.isComplete()) {
+                throw new UploadOffsetMismatchException(session);
+            }
+            if (!session.digestValid) {
+                session.digest = rehash(session.getPartFile());
+                session.digestValid = true;
+            }
+            String checksum = HexFormat.of().formatHex(session.digest.digest());
+            // digest() reset the running hash, so a retried completion has to hash the file again
+            session.digestValid = false;
+            if (expectedChecksum != null && !expectedChecksum.isBlank()
+                    && !expectedChecksum.trim().equalsIgnoreCase(checksum)) {
+                abort(sessionId);
+                throw new IllegalArgumentException("Checksum mismatch: expected " + expectedChecksum + " but received " + checksum);
+            }
+
+            // A file of its own, so no existing document's file is replaced or moved away
+            Path filePath = UploadFiles.storagePath(uploadDirectory, session.getFileName());
+            UploadFiles.moveIntoPlace(session.getPartFile(), filePath);
+            IngestionJob job;
+            try {
+                job = ingestionPipeline.submit(filePath, session.getFileName(), session.getType(),
+                    session.getTotalSize(), checksum);
+            } catch (RejectedExecutionException e) {
+                // Keep the session so the client can complete it again once the pipeline drains;
+                // the file moved above belongs to this upload only
+                UploadFiles.moveIntoPlace(filePath, session.getPartFile());
+                throw e;
+            }
+            sessions.remove(sessionId);
+            return job;
+        }
+    }
+
+    /**
+     * Abandon an upload and delete what was received
+     * @param sessionId The session id
+     */
+    public void abort(String sessionId) {
+        UploadSession session = sessions.remove(sessionId);
+        if (session != null) {
+            deletePartFile(session);
+        }
+    }
+
+    private UploadSession require(String sessionId) {
+        UploadSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new IllegalArgumentException("Upload session not found with id: " + sessionId);
+        }
+        return session;
+    }
+
+    private MessageDigest rehash(Path file) throws IOException {
+        MessageDigest digest = UploadFiles.sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest;
+    }
+
+    private void expireIdleSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(sessionTimeoutMinutes);
+        sessions.values().removeIf(session -> {
+            if (session.getLastActivityAt().isBefore(cutoff)) {
+                deletePartFile(session);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void deletePartFile(UploadSession session) {
+        try {
+            Files.deleteIfExists(session.getPartFile());
+        } catch (IOException e) {
+            System.err.println("Warning: Failed to delete partial upload " + session.getPartFile() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.knowledgehub.services.upload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Helpers for writing uploads to disk in small buffers, hashing the bytes as they pass,
+ * so an upload is never held on the heap as a whole
+ */
+public final class UploadFiles {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private UploadFiles() {
+    }
+
+    /**
+     * Check that a file name is a Word document and strip any directory part from it
+     * @param fileName The client-supplied file name
+     * @return The bare file name
+     */
+    public static String requireWordDocument(String fileName) {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Filename cannot be null");
+        }
+        String lowerFilename = fileName.toLowerCase();
+        if (!lowerFilename.endsWith(".doc") && !lowerFilename.endsWith(".docx")) {
+            throw new IllegalArgumentException("Only Word documents (.doc, .docx) are allowed");
+        }
+        // Keep uploads inside the upload directory whatever the client sends
+        Path bareName = Paths.get(fileName).getFileName();
+        if (bareName == null) {
+            throw new IllegalArgumentException("Invalid filename: " + fileName);
+        }
+        return bareName.toString();
+    }
+
+    /**
+     * Choose where to store a new upload. Every upload gets a file of its own, prefixed with a random id,
+     * so a new upload never replaces the file of an existing document with the same name and the upload's
+     * file can be deleted if it fails; the name users see is kept on the document.
+     * @param directory The upload directory
+     * @param fileName The bare file name (see {@link #requireWordDocument(String)})
+     * @return A path in the directory that no other upload uses
+     */
+    public static Path storagePath(Path directory, String fileName) {
+        return directory.resolve(UUID.randomUUID() + "-" + fileName);
+    }
+
+    /**
+     * Stream an upload into place, computing its SHA-256 on the way.
+     * The bytes go to a temporary file first, so a failed transfer never leaves a partial target.
+     * @param in The upload stream (not closed)
+     * @param target Final location of the file
+     * @return Hex SHA-256 of the written bytes
+     * @throws IOException If reading or writing fails
+     */
+    public static String writeWithChecksum(InputStream in, Path target) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.WRITE)) {
+                copy(in, out, digest, Long.MAX_VALUE);
+            }
+            moveIntoPlace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Append at most maxBytes from a stream to a file, feeding the same bytes to a digest
+     * @param in The source stream (not closed)
+     * @param file The file to append to
+     * @param digest Running digest of the whole file
+     * @param maxBytes Upper bound of bytes to accept
+     * @return Number of bytes appended
+     * @throws UploadTooLargeException If the stream holds more than maxBytes (the first maxBytes are appended)
+     * @throws IOException If reading or writing fails
+     */
+    public static long append(InputStream in, Path file, MessageDigest digest, long maxBytes) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            return copy(in, out, digest, maxBytes);
+        }
+    }
+
+    /**
+     * Move a finished upload into place, replacing an existing file with the same name
+     * @param source The completed file
+     * @param target Its final location
+     * @throws IOException If the move fails
+     */
+    public static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static long copy(InputStream in, OutputStream out, MessageDigest digest, long maxBytes) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (total + read > maxBytes) {
+                // Keep what fits so the stored offset stays consistent with the digest
+                int fits = (int) (maxBytes - total);
+                out.write(buffer, 0, fits);
+                digest.update(buffer, 0, fits);
+                throw new UploadTooLargeException(maxBytes);
+            }
+            out.write(buffer, 0, read);
+            digest.update(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+}
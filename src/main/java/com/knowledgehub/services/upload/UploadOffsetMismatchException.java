@@ -0,0 +1,20 @@
+package com.knowledgehub.services.upload;
+
+/**
+ * Thrown when a piece does not start where the server's copy of the upload ends,
+ * or when an upload is completed before all of it has arrived
+ */
+public class UploadOffsetMismatchException extends IllegalStateException {
+
+    private final UploadSession session;
+
+    public UploadOffsetMismatchException(UploadSession session) {
+        super("Upload " + session.getId() + " has " + session.getReceivedBytes() + " of "
+            + session.getTotalSize() + " bytes");
+        this.session = session;
+    }
+
+    public UploadSession getSession() {
+        return session;
+    }
+}
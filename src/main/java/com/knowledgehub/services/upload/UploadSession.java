@@ -0,0 +1,77 @@
+package com.knowledgehub.services.upload;
+
+import com.knowledgehub.models.DocumentType;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A resumable upload in progress. The client sends the file in pieces, each starting at the
+ * offset the server has acknowledged, and can ask for that offset again after a failed transfer.
+ */
+public class UploadSession {
+
+    private final String id = UUID.randomUUID().toString();
+    private final String fileName;
+    private final DocumentType type;
+    private final long totalSize;
+    private final Path partFile;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile long receivedBytes;
+    private volatile LocalDateTime lastActivityAt = createdAt;
+
+    // Running SHA-256 of the received bytes; rebuilt from the part file if a write broke off mid-buffer
+    MessageDigest digest = UploadFiles.sha256();
+    boolean digestValid = true;
+
+    UploadSession(String fileName, DocumentType type, long totalSize, Path partFile) {
+        this.fileName = fileName;
+        this.type = type;
+        this.totalSize = totalSize;
+        this.partFile = partFile;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public DocumentType getType() {
+        return type;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getLastActivityAt() {
+        return lastActivityAt;
+    }
+
+    public boolean isComplete() {
+        return receivedBytes == totalSize;
+    }
+
+    Path getPartFile() {
+        return partFile;
+    }
+
+    void setReceivedBytes(long receivedBytes) {
+        this.receivedBytes = receivedBytes;
+        this.lastActivityAt = LocalDateTime.now();
+    }
+}
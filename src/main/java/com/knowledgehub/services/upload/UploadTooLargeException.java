@@ -0,0 +1,14 @@
+package com.knowledgehub.services.upload;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an upload holds more bytes than were declared for it;
+ * whatever fit within the declared size has been stored
+ */
+public class UploadTooLargeException extends IOException {
+
+    public UploadTooLargeException(long maxBytes) {
+        super("Upload is larger than the declared size (only " + maxBytes + " more bytes were expected)");
+    }
+}
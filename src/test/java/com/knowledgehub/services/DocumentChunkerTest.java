@@ -0,0 +1,131 @@
+package com.knowledgehub.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class DocumentChunkerTest {
+
+    private final DocumentChunker chunker = new DocumentChunker(300, 60);
+
+    @Test
+    void blankContentHasNoChunks() {
+        assertThat(chunker.chunk(null)).isEmpty();
+        assertThat(chunker.chunk("  \n \n")).isEmpty();
+    }
+
+    @Test
+    void shortContentIsOneChunk() {
+        assertThat(chunker.chunk("Employees may work remotely two days a week."))
+            .containsExactly("Employees may work remotely two days a week.");
+    }
+
+    @Test
+    void chunksNeverCrossAHeadingAndStartWithIt() {
+        String content = String.join("\n",
+            "1. Remote Work",
+            "Employees may work remotely two days a week.",
+            "2. Expenses",
+            "Travel expenses are reimbursed within thirty days.");
+
+        assertThat(chunker.chunk(content)).containsExactly(
+            "1. Remote Work\nEmployees may work remotely two days a week.",
+            "2. Expenses\nTravel expenses are reimbursed within thirty days.");
+    }
+
+    @Test
+    void nestedHeadingsWithNothingBetweenAreKeptTogether() {
+        List<String> chunks = chunker.chunk("SECURITY POLICY\n2.1 Passwords\nPasswords are rotated every ninety days.");
+
+        assertThat(chunks).containsExactly("SECURITY POLICY\n2.1 Passwords\nPasswords are rotated every ninety days.");
+    }
+
+    @Test
+    void longSectionsAreSplitWithinTheSizeAndOverlap() {
+        StringBuilder content = new StringBuilder("3. Procedures\n");
+        for (int i = 0; i < 20; i++) {
+            content.append("Step ").append(i).append(" of the procedure is described in this sentence. ")
+                .append("It has a second sentence for good measure.\n");
+        }
+
+        List<String> chunks = chunker.chunk(content.toString());
+
+        assertThat(chunks).hasSizeGreaterThan(3);
+        for (int i = 0; i < chunks.size(); i++) {
+            assertThat(chunks.get(i)).startsWith("3. Procedures\n");
+            assertThat(chunks.get(i).length()).isLessThanOrEqualTo(300);
+            if (i > 0) {
+                // The next chunk repeats a whole sentence or paragraph from the end of the previous one
+                String body = chunks.get(i).substring("3. Procedures\n".length());
+                String firstLine = body.split("\n")[0];
+                assertThat(chunks.get(i - 1)).contains(firstLine);
+            }
+        }
+        // Nothing is lost: every step appears in some chunk
+        for (int i = 0; i < 20; i++) {
+            String step = "Step " + i + " of";
+            assertThat(chunks).anyMatch(chunk -> chunk.contains(step));
+        }
+    }
+
+    @Test
+    void overlongParagraphIsSplitAtWordBoundaries() {
+        String paragraph = "word ".repeat(200).trim();
+
+        List<String> chunks = chunker.chunk(paragraph);
+
+        assertThat(chunks).hasSizeGreaterThan(1);
+        for (String chunk : chunks) {
+            assertThat(chunk.length()).isLessThanOrEqualTo(300);
+            assertThat(chunk).doesNotStartWith("ord").doesNotEndWith("wor");
+        }
+    }
+
+    @Test
+    void tableOfContentsIsChunkedAsTextInsteadOfRepeatedAsAHeading() {
+        DocumentChunker defaults = new DocumentChunker(1500, 200);
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 60; i++) {
+            content.append(i).append(". Section Title ").append(i).append('\n');
+        }
+        for (int i = 0; i < 10; i++) {
+            content.append("Paragraph ").append(i).append(" explains one rule of the policy in a sentence.\n");
+        }
+
+        List<String> chunks = defaults.chunk(content.toString());
+
+        for (String chunk : chunks) {
+            assertThat(chunk.length()).isLessThanOrEqualTo(1500);
+        }
+        // The paragraphs share a chunk under the last two headings instead of one chunk each
+        assertThat(chunks).filteredOn(chunk -> chunk.contains("Paragraph ")).singleElement()
+            .satisfies(chunk -> assertThat(chunk).startsWith("59. Section Title 59\n60. Section Title 60\n"));
+        for (int i = 1; i <= 60; i++) {
+            String line = i + ". Section Title " + i + "\n";
+            assertThat(chunks).anyMatch(chunk -> (chunk + "\n").contains(line));
+        }
+    }
+
+    @Test
+    void overlongHeadingIsCutToAQuarterOfTheChunkSize() {
+        String heading = "# " + "Very long heading words ".repeat(10).trim();
+
+        List<String> chunks = chunker.chunk(heading + "\nThe body of the section.");
+
+        assertThat(chunks).singleElement().satisfies(chunk -> {
+            String prefix = chunk.substring(0, chunk.indexOf('\n'));
+            assertThat(prefix.length()).isLessThanOrEqualTo(75);
+            assertThat(heading).startsWith(prefix);
+            assertThat(chunk).endsWith("\nThe body of the section.");
+        });
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThatThrownBy(() -> new DocumentChunker(100, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new DocumentChunker(400, 200)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,95 @@
+package com.knowledgehub.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.knowledgehub.repositories.DocumentRepository;
+import com.knowledgehub.repositories.DocumentRepository.DocumentName;
+
+class DocumentNameMatcherTest {
+
+    private final DocumentRepository repository = mock(DocumentRepository.class);
+
+    @Test
+    void findsNamesWithOrWithoutExtensionIgnoringCase() {
+        DocumentNameMatcher matcher = matcher(name(1, "Travel Policy.docx"), name(2, "Quarterly Report.doc"));
+
+        assertThat(matcher.findDocumentId("What does TRAVEL POLICY.DOCX say about hotels?")).isEqualTo(1L);
+        assertThat(matcher.findDocumentId("summarize the quarterly report please")).isEqualTo(2L);
+        assertThat(matcher.findDocumentId("what is the leave policy?")).isNull();
+    }
+
+    @Test
+    void overlappingNamesAreAllFoundAndTheLowestIdWins() {
+        // Classic Aho-Corasick case: "she" and "hers" both end inside "ushers", found through failure links
+        DocumentNameMatcher matcher = matcher(name(7, "hers"), name(3, "she"), name(5, "his"));
+        assertThat(matcher.findDocumentId("ushers")).isEqualTo(3L);
+
+        matcher = matcher(name(2, "Annual Report.docx"), name(9, "Report.docx"));
+        assertThat(matcher.findDocumentId("the annual report numbers")).isEqualTo(2L);
+        assertThat(matcher.findDocumentId("the report numbers")).isEqualTo(9L);
+
+        matcher = matcher(name(9, "Annual Report.docx"), name(2, "Report.docx"));
+        assertThat(matcher.findDocumentId("the annual report numbers")).isEqualTo(2L);
+    }
+
+    @Test
+    void shortNamesWithoutExtensionDoNotMatch() {
+        DocumentNameMatcher matcher = matcher(name(1, "faq.docx"));
+
+        assertThat(matcher.findDocumentId("is there a faq about expenses?")).isNull();
+        assertThat(matcher.findDocumentId("open faq.docx")).isEqualTo(1L);
+    }
+
+    @Test
+    void blankMessagesMatchNothing() {
+        DocumentNameMatcher matcher = matcher(name(1, "Travel Policy.docx"));
+
+        assertThat(matcher.findDocumentId(null)).isNull();
+        assertThat(matcher.findDocumentId("   ")).isNull();
+    }
+
+    @Test
+    void savedAndDeletedDocumentsAreTrackedWithoutReloading() {
+        DocumentNameMatcher matcher = matcher(name(1, "Travel Policy.docx"));
+        assertThat(matcher.findDocumentId("onboarding guide")).isNull();
+
+        matcher.add(4L, "Onboarding Guide.docx");
+        assertThat(matcher.findDocumentId("where is the onboarding guide")).isEqualTo(4L);
+
+        matcher.add(4L, "Starter Guide.docx");
+        assertThat(matcher.findDocumentId("where is the onboarding guide")).isNull();
+        assertThat(matcher.findDocumentId("where is the starter guide")).isEqualTo(4L);
+
+        matcher.remove(1L);
+        assertThat(matcher.findDocumentId("travel policy")).isNull();
+        verify(repository, times(1)).findAllNames();
+    }
+
+    private DocumentNameMatcher matcher(DocumentName... names) {
+        when(repository.findAllNames()).thenReturn(new ArrayList<>(List.of(names)));
+        return new DocumentNameMatcher(repository);
+    }
+
+    private static DocumentName name(long id, String name) {
+        return new DocumentName() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.knowledgehub.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.knowledgehub.models.DocumentType;
+import com.knowledgehub.services.ingestion.IngestionJob;
+import com.knowledgehub.services.ingestion.IngestionPipeline;
+
+class DocumentServiceTest {
+
+    @TempDir
+    Path uploadDirectory;
+
+    private final IngestionPipeline pipeline = mock(IngestionPipeline.class);
+    private final List<Path> submittedPaths = new ArrayList<>();
+    private DocumentService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DocumentService();
+        ReflectionTestUtils.setField(service, "ingestionPipeline", pipeline);
+        ReflectionTestUtils.setField(service, "uploadDirectory", uploadDirectory.toString());
+    }
+
+    @Test
+    void uploadsWithTheSameNameGetTheirOwnFiles() throws IOException {
+        when(pipeline.submit(any(), eq("Handbook.docx"), any(), anyLong(), anyString())).thenAnswer(invocation -> {
+            submittedPaths.add(invocation.getArgument(0));
+            return mock(IngestionJob.class);
+        });
+
+        service.saveDocument(file("first"), DocumentType.POLICY);
+        service.saveDocument(file("second"), DocumentType.POLICY);
+
+        assertThat(submittedPaths).hasSize(2).doesNotHaveDuplicates();
+        assertThat(Files.readString(submittedPaths.get(0))).isEqualTo("first");
+        assertThat(Files.readString(submittedPaths.get(1))).isEqualTo("second");
+        assertThat(submittedPaths.get(0).getFileName().toString()).endsWith("-Handbook.docx");
+    }
+
+    @Test
+    void rejectedUploadDeletesOnlyItsOwnFile() throws IOException {
+        Path existing = Files.writeString(uploadDirectory.resolve("Handbook.docx"), "older upload");
+        when(pipeline.submit(any(), any(), any(), anyLong(), anyString())).thenAnswer(invocation -> {
+            submittedPaths.add(invocation.getArgument(0));
+            throw new RejectedExecutionException("Ingestion queue is full");
+        });
+
+        assertThatThrownBy(() -> service.saveDocument(file("new upload"), DocumentType.POLICY))
+            .isInstanceOf(RejectedExecutionException.class);
+
+        assertThat(Files.exists(submittedPaths.get(0))).isFalse();
+        assertThat(Files.readString(existing)).isEqualTo("older upload");
+    }
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile("file", "Handbook.docx", "application/msword",
+            content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,103 @@
+package com.knowledgehub.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.knowledgehub.models.Document;
+import com.knowledgehub.models.PolicyDocument;
+import com.knowledgehub.models.VectorDocument;
+import com.knowledgehub.services.index.Bm25Index;
+import com.knowledgehub.services.index.BruteForceVectorIndex;
+import com.knowledgehub.services.index.ExactSearchEngine;
+import com.knowledgehub.services.index.PartitionedVectorIndex;
+import com.knowledgehub.services.index.VectorArena;
+import com.knowledgehub.services.index.VectorSnapshotStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VectorStoreServiceTest {
+
+    private static final String QUESTION = "How many remote work days are allowed?";
+
+    private final EmbeddingService embeddingService = mock(EmbeddingService.class);
+    private final VectorArena arena = new VectorArena();
+    private final ExactSearchEngine exactSearch = new ExactSearchEngine(1, Integer.MAX_VALUE);
+
+    @AfterEach
+    void tearDown() {
+        exactSearch.close();
+    }
+
+    @Test
+    void lexicalModeNeverEmbedsTheQuery() {
+        VectorStoreService service = service("lexical");
+        service.indexText(document(1L, "Remote Work Policy"),
+            List.of("Employees may work remotely two days a week.", "Expenses are reimbursed monthly."));
+        service.indexText(document(2L, "Travel Policy"), List.of("Remote offices are booked through travel."));
+
+        VectorStoreService.RelevantChunks relevant = service.findRelevantChunksWithTypeQuotas(QUESTION, 5);
+        assertThat(relevant.getChunks()).isNotEmpty();
+        assertThat(relevant.getQueryVector()).isNull();
+
+        List<VectorDocument> inDocument = service.findSimilarChunksInDocument(QUESTION, 1L, 3);
+        assertThat(inDocument).extracting(VectorDocument::getDocumentId).containsOnly(1L);
+        assertThat(inDocument.get(0).getContent()).contains("remotely");
+        verifyNoInteractions(embeddingService);
+    }
+
+    @Test
+    void failedQueryEmbeddingFallsBackToKeywordsWithoutAnotherCall() {
+        VectorStoreService service = service("vector");
+        service.addDocument(document(1L, "Remote Work Policy"),
+            List.of("Employees may work remotely two days a week."), List.of(new float[] { 1f, 0f }));
+        when(embeddingService.generateQueryVector(anyString()))
+            .thenThrow(new IllegalStateException("Embedding API unavailable"));
+
+        VectorStoreService.RelevantChunks relevant = service.findRelevantChunksWithTypeQuotas(QUESTION, 5);
+
+        assertThat(relevant.getChunks()).extracting(VectorDocument::getDocumentId).containsExactly(1L);
+        assertThat(relevant.getQueryVector()).isNull();
+        verify(embeddingService, times(1)).generateQueryVector(anyString());
+    }
+
+    @Test
+    void vectorSearchHandsBackTheQueryEmbedding() {
+        VectorStoreService service = service("vector");
+        service.addDocument(document(1L, "Remote Work Policy"),
+            List.of("Employees may work remotely two days a week."), List.of(new float[] { 1f, 0f }));
+        when(embeddingService.generateQueryVector(anyString())).thenReturn(new float[] { 3f, 4f });
+
+        VectorStoreService.RelevantChunks relevant = service.findRelevantChunksWithTypeQuotas(QUESTION, 5);
+
+        assertThat(relevant.getChunks()).extracting(VectorDocument::getDocumentId).containsExactly(1L);
+        assertThat(relevant.getQueryVector()).containsExactly(0.6f, 0.8f);
+        verify(embeddingService, times(1)).generateQueryVector(anyString());
+    }
+
+    private VectorStoreService service(String retrievalMode) {
+        return new VectorStoreService(embeddingService, new DocumentChunker(300, 60), arena,
+            new PartitionedVectorIndex(() -> new BruteForceVectorIndex(arena, exactSearch)),
+            mock(VectorSnapshotStore.class), mock(ApplicationEventPublisher.class), new Bm25Index(1.2f, 0.75f),
+            new SimpleMeterRegistry(), retrievalMode, 20, 60, 1, 0.25f);
+    }
+
+    private static Document document(Long id, String name) {
+        Document document = new PolicyDocument();
+        document.setId(id);
+        document.setName(name);
+        document.setUpdatedAt(LocalDateTime.now());
+        return document;
+    }
+}
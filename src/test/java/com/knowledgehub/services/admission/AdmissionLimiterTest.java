@@ -0,0 +1,164 @@
+package com.knowledgehub.services.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AdmissionLimiterTest {
+
+    private static final long LONG_WAIT = TimeUnit.SECONDS.toNanos(10);
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    void requestsOverTheLimitAreRejectedWithoutAQueue() throws InterruptedException {
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 2, 0, 0, false);
+        AdmissionLimiter.Permit first = limiter.acquire("a", LONG_WAIT);
+        AdmissionLimiter.Permit second = limiter.acquire("b", LONG_WAIT);
+
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(limiter.acquire("c", LONG_WAIT)).isNull();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+
+        first.release(true);
+        first.release(true);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.acquire("c", LONG_WAIT)).isNotNull();
+    }
+
+    @Test
+    void waiterTimesOutAndLeavesTheQueue() throws InterruptedException {
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 1, 4, 4, false);
+        limiter.acquire("a", LONG_WAIT);
+
+        assertThat(limiter.acquire("b", TimeUnit.MILLISECONDS.toNanos(20))).isNull();
+        assertThat(limiter.getQueued()).isZero();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void freedSlotsGoToUsersInTurn() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 1, 10, 10, false);
+        AdmissionLimiter.Permit running = limiter.acquire("busy", LONG_WAIT);
+
+        // The busy user queues three requests before the quiet user queues one
+        List<String> order = new ArrayList<>();
+        List<Future<?>> waiters = new ArrayList<>();
+        for (String user : List.of("busy", "busy", "busy", "quiet")) {
+            waiters.add(threads.submit(() -> {
+                AdmissionLimiter.Permit permit = limiter.acquire(user, LONG_WAIT);
+                synchronized (order) {
+                    order.add(user);
+                }
+                permit.release(true);
+                return null;
+            }));
+            awaitQueued(limiter, waiters.size());
+        }
+
+        running.release(true);
+        for (Future<?> waiter : waiters) {
+            waiter.get(10, TimeUnit.SECONDS);
+        }
+        assertThat(order).containsExactly("busy", "quiet", "busy", "busy");
+    }
+
+    @Test
+    void perUserQueueShareIsCapped() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 1, 10, 1, false);
+        limiter.acquire("a", LONG_WAIT);
+        threads.submit(() -> limiter.acquire("b", LONG_WAIT));
+        awaitQueued(limiter, 1);
+
+        assertThat(limiter.acquire("b", LONG_WAIT)).isNull();
+        assertThat(limiter.getQueued()).isEqualTo(1);
+    }
+
+    @Test
+    void waiterInterruptedAfterItsGrantPassesTheSlotOn() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 1, 4, 4, false);
+        AdmissionLimiter.Permit running = limiter.acquire("a", LONG_WAIT);
+        AtomicReference<Thread> interruptedThread = new AtomicReference<>();
+        Future<AdmissionLimiter.Permit> interrupted = threads.submit(() -> {
+            interruptedThread.set(Thread.currentThread());
+            return limiter.acquire("b", LONG_WAIT);
+        });
+        awaitQueued(limiter, 1);
+        Future<AdmissionLimiter.Permit> next = threads.submit(() -> limiter.acquire("c", LONG_WAIT));
+        awaitQueued(limiter, 2);
+
+        // Hold the limiter's lock so the interrupted waiter cannot wake up before its slot is granted
+        ReentrantLock lock = lockOf(limiter);
+        lock.lock();
+        try {
+            interruptedThread.get().interrupt();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!lock.hasQueuedThread(interruptedThread.get())) {
+                assertThat(System.nanoTime()).isLessThan(deadline);
+                Thread.onSpinWait();
+            }
+            running.release(true);
+        } finally {
+            lock.unlock();
+        }
+
+        assertThatThrownBy(() -> interrupted.get(10, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(InterruptedException.class);
+        AdmissionLimiter.Permit passedOn = next.get(10, TimeUnit.SECONDS);
+        assertThat(passedOn).isNotNull();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        passedOn.release(true);
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getQueued()).isZero();
+    }
+
+    @Test
+    void failuresShrinkTheAdaptiveLimitDownToTheMinimum() throws InterruptedException {
+        AdmissionLimiter limiter = new AdmissionLimiter(2, 10, 0, 0, true);
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire("a", LONG_WAIT).release(false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getRetryAfterSeconds()).isBetween(1L, 60L);
+    }
+
+    @Test
+    void invalidLimitsAreRejected() {
+        assertThatThrownBy(() -> new AdmissionLimiter(0, 4, 1, 1, false))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdmissionLimiter(5, 4, 1, 1, false))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ReentrantLock lockOf(AdmissionLimiter limiter) throws ReflectiveOperationException {
+        Field field = AdmissionLimiter.class.getDeclaredField("lock");
+        field.setAccessible(true);
+        return (ReentrantLock) field.get(limiter);
+    }
+
+    private static void awaitQueued(AdmissionLimiter limiter, int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (limiter.getQueued() < queued) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+}
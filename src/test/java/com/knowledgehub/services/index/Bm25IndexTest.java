@@ -0,0 +1,169 @@
+package com.knowledgehub.services.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class Bm25IndexTest {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final Map<Long, String> PASSAGES = new LinkedHashMap<>();
+
+    static {
+        PASSAGES.put(1L, "Employees may work remotely up to three days a week.");
+        PASSAGES.put(2L, "Remote work requires a secure VPN connection and a company laptop.");
+        PASSAGES.put(3L, "Travel expenses are reimbursed within thirty days of submitting receipts.");
+        PASSAGES.put(4L, "The expense policy covers travel, meals and hotel stays for business trips. "
+            + "Hotel stays above the nightly cap need approval from a manager before travel is booked.");
+        PASSAGES.put(5L, "Security incidents must be reported to the security team within one hour.");
+    }
+
+    @Test
+    void tokenizerLowercasesSplitsAndDropsStopWords() {
+        assertThat(Bm25Index.tokenize("What is the VPN-policy for Q3 2024?"))
+            .containsExactly("vpn", "policy", "q3", "2024");
+        assertThat(Bm25Index.tokenize("Caf\u00C9 na\u00EFve")).containsExactly("caf\u00E9", "na\u00EFve");
+        assertThat(Bm25Index.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void scoresMatchTheOkapiFormula() {
+        Bm25Index index = index(PASSAGES);
+        String query = "hotel travel security";
+
+        SearchHits hits = index.search(query, 10);
+        Map<Long, Double> expected = reference(PASSAGES, query);
+        assertThat(hits.size()).isEqualTo(expected.size());
+        for (int rank = 0; rank < hits.size(); rank++) {
+            assertThat((double) hits.score(rank)).isCloseTo(expected.get(hits.id(rank)), within(1e-4));
+            if (rank > 0) {
+                assertThat(hits.score(rank)).isLessThanOrEqualTo(hits.score(rank - 1));
+            }
+        }
+    }
+
+    @Test
+    void rareTermsOutweighCommonOnesAndFrequencyCounts() {
+        Bm25Index index = index(PASSAGES);
+
+        // "vpn" occurs in one passage, "days" in two
+        SearchHits hits = index.search("vpn days", 5);
+        assertThat(hits.id(0)).isEqualTo(2L);
+
+        // Passage 4 mentions hotel twice, passage 3 not at all
+        assertThat(index.search("hotel", 5).id(0)).isEqualTo(4L);
+        assertThat(ids(index.search("hotel", 5))).doesNotContain(3L);
+    }
+
+    @Test
+    void shorterPassagesWinWithEqualTermFrequency() {
+        Map<Long, String> passages = new LinkedHashMap<>();
+        passages.put(1L, "badge access");
+        passages.put(2L, "badge renewal forms, parking permits, locker keys and visitor registration");
+        passages.put(3L, "unrelated text about holidays");
+        Bm25Index index = index(passages);
+
+        SearchHits hits = index.search("badge", 5);
+        assertThat(ids(hits)).containsExactly(1L, 2L);
+        assertThat(hits.score(0)).isGreaterThan(hits.score(1));
+    }
+
+    @Test
+    void onlyPassagesSharingATermAreReturnedUpToTopK() {
+        Bm25Index index = index(PASSAGES);
+
+        assertThat(index.search("travel", 1).size()).isEqualTo(1);
+        assertThat(ids(index.search("travel", 10))).containsExactlyInAnyOrder(3L, 4L);
+        assertThat(index.search("the and of", 10).isEmpty()).isTrue();
+        assertThat(index.search("quantum", 10).isEmpty()).isTrue();
+        assertThat(index.search("travel", 0).isEmpty()).isTrue();
+    }
+
+    @Test
+    void replacedAndRemovedPassagesStopMatchingAndSlotsAreReused() {
+        Bm25Index index = index(PASSAGES);
+
+        index.add(3L, "Mileage is paid per kilometre driven.");
+        assertThat(ids(index.search("receipts", 10))).isEmpty();
+        assertThat(ids(index.search("mileage", 10))).containsExactly(3L);
+
+        index.remove(5L);
+        index.remove(42L);
+        assertThat(index.search("security", 10).isEmpty()).isTrue();
+        assertThat(index.size()).isEqualTo(4);
+
+        // Scores follow the remaining passages only
+        Map<Long, String> remaining = new LinkedHashMap<>(PASSAGES);
+        remaining.put(3L, "Mileage is paid per kilometre driven.");
+        remaining.remove(5L);
+        SearchHits hits = index.search("travel hotel", 10);
+        Map<Long, Double> expected = reference(remaining, "travel hotel");
+        for (int rank = 0; rank < hits.size(); rank++) {
+            assertThat((double) hits.score(rank)).isCloseTo(expected.get(hits.id(rank)), within(1e-4));
+        }
+
+        for (long id = 100; id < 140; id++) {
+            index.add(id, "filler passage number " + id);
+        }
+        assertThat(index.size()).isEqualTo(44);
+        assertThat(ids(index.search("filler", 100))).hasSize(40);
+
+        index.clear();
+        assertThat(index.size()).isZero();
+        assertThat(index.search("travel", 10).isEmpty()).isTrue();
+    }
+
+    @Test
+    void invalidParametersAreRejected() {
+        assertThatThrownBy(() -> new Bm25Index(-1f, 0.5f)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Bm25Index(1.2f, 1.5f)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Bm25Index index(Map<Long, String> passages) {
+        Bm25Index index = new Bm25Index(K1, B);
+        passages.forEach(index::add);
+        return index;
+    }
+
+    private static List<Long> ids(SearchHits hits) {
+        Long[] ids = new Long[hits.size()];
+        for (int rank = 0; rank < hits.size(); rank++) {
+            ids[rank] = hits.id(rank);
+        }
+        return List.of(ids);
+    }
+
+    /**
+     * Straightforward BM25 over the raw passages, to check the index against
+     */
+    private static Map<Long, Double> reference(Map<Long, String> passages, String query) {
+        double averageLength = passages.values().stream()
+            .mapToInt(text -> Bm25Index.tokenize(text).size()).average().orElse(1);
+        Map<Long, Double> scores = new LinkedHashMap<>();
+        for (String term : new LinkedHashSet<>(Bm25Index.tokenize(query))) {
+            long documentFrequency = passages.values().stream()
+                .filter(text -> Bm25Index.tokenize(text).contains(term)).count();
+            double idf = Math.log(1 + (passages.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            for (Map.Entry<Long, String> passage : passages.entrySet()) {
+                List<String> terms = Bm25Index.tokenize(passage.getValue());
+                int frequency = Collections.frequency(terms, term);
+                if (frequency == 0) {
+                    continue;
+                }
+                double norm = K1 * (1 - B + B * terms.size() / averageLength);
+                scores.merge(passage.getKey(), idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+            }
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,131 @@
+package com.knowledgehub.services.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class HnswVectorIndexTest {
+
+    private static final int DIMENSION = 32;
+    private static final int TOP_K = 10;
+
+    private final ExactSearchEngine exactSearch = new ExactSearchEngine(1, Integer.MAX_VALUE);
+
+    @Test
+    void searchFindsMostOfTheExactNeighbours() {
+        VectorArena arena = new VectorArena();
+        float[][] vectors = VectorTestData.clustered(5000, DIMENSION, 50, 1);
+        int[] slots = VectorTestData.fill(arena, vectors);
+        HnswVectorIndex hnsw = new HnswVectorIndex(arena, 16, 200, 64, 0, 0.2, Runnable::run);
+        for (int slot : slots) {
+            hnsw.add(slot);
+        }
+
+        float[][] queries = VectorTestData.clustered(100, DIMENSION, 50, 2);
+        double recall = 0;
+        for (float[] query : queries) {
+            recall += VectorTestData.recall(exactSearch.search(arena, slots, slots.length, query, TOP_K),
+                hnsw.search(query, TOP_K));
+        }
+        assertThat(recall / queries.length).isGreaterThanOrEqualTo(0.95);
+        assertThat(hnsw.size()).isEqualTo(vectors.length);
+    }
+
+    @Test
+    void smallIndexIsSearchedExactly() {
+        VectorArena arena = new VectorArena();
+        float[][] vectors = VectorTestData.clustered(200, DIMENSION, 5, 3);
+        int[] slots = VectorTestData.fill(arena, vectors);
+        HnswVectorIndex hnsw = new HnswVectorIndex(arena, 4, 8, 4, 1000, 0.2, Runnable::run);
+        for (int slot : slots) {
+            hnsw.add(slot);
+        }
+
+        float[] query = vectors[17];
+        SearchHits exact = exactSearch.search(arena, slots, slots.length, query, TOP_K);
+        SearchHits hits = hnsw.search(query, TOP_K);
+        assertThat(VectorTestData.recall(exact, hits)).isEqualTo(1.0);
+        assertThat(hits.id(0)).isEqualTo(17L);
+    }
+
+    @Test
+    void removedVectorsAreNeverReturnedAndCompactionReleasesThem() {
+        VectorArena arena = new VectorArena();
+        float[][] vectors = VectorTestData.clustered(3000, DIMENSION, 30, 4);
+        int[] slots = VectorTestData.fill(arena, vectors);
+        HnswVectorIndex hnsw = new HnswVectorIndex(arena, 16, 100, 64, 0, 0.2, Runnable::run);
+        for (int slot : slots) {
+            hnsw.add(slot);
+        }
+
+        Set<Long> removed = new HashSet<>();
+        for (int id = 0; id < vectors.length; id += 3) {
+            hnsw.remove(arena.remove(id));
+            removed.add((long) id);
+        }
+        // Crossing the ratio compacted the graph (synchronously with this executor)
+        assertThat(hnsw.tombstoneCount()).isLessThan((int) (0.2 * vectors.length));
+        assertThat(hnsw.size()).isEqualTo(vectors.length - removed.size());
+
+        for (int id = 0; id < vectors.length; id += 7) {
+            SearchHits hits = hnsw.search(vectors[id], TOP_K);
+            assertThat(hits.size()).isEqualTo(TOP_K);
+            for (int rank = 0; rank < hits.size(); rank++) {
+                assertThat(removed).doesNotContain(hits.id(rank));
+            }
+        }
+    }
+
+    @Test
+    void compactionInTheBackgroundKeepsConcurrentChanges() throws Exception {
+        VectorArena arena = new VectorArena();
+        float[][] vectors = VectorTestData.clustered(4000, DIMENSION, 40, 5);
+        ExecutorService maintenance = Executors.newSingleThreadExecutor();
+        HnswVectorIndex hnsw = new HnswVectorIndex(arena, 16, 100, 64, 0, 0.1, maintenance);
+        for (int id = 0; id < 2000; id++) {
+            hnsw.add(arena.put(id, vectors[id]));
+        }
+
+        AtomicReference<Throwable> searchFailure = new AtomicReference<>();
+        Thread searcher = new Thread(() -> {
+            try {
+                for (int i = 0; i < 2000; i++) {
+                    hnsw.search(vectors[i], TOP_K);
+                }
+            } catch (Throwable e) {
+                searchFailure.set(e);
+            }
+        });
+        searcher.start();
+        // Removals trigger compactions while new vectors keep arriving
+        for (int id = 0; id < 2000; id++) {
+            if (id % 2 == 0) {
+                hnsw.remove(arena.remove(id));
+            }
+            hnsw.add(arena.put(2000 + id, vectors[2000 + id]));
+        }
+        searcher.join();
+        maintenance.shutdown();
+        assertThat(maintenance.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(searchFailure.get()).isNull();
+        assertThat(hnsw.size()).isEqualTo(3000);
+        for (int id = 2000; id < 4000; id += 50) {
+            SearchHits hits = hnsw.search(vectors[id], 1);
+            assertThat(hits.id(0)).isEqualTo((long) id);
+        }
+        for (int id = 0; id < 2000; id += 2) {
+            SearchHits hits = hnsw.search(vectors[id], TOP_K);
+            for (int rank = 0; rank < hits.size(); rank++) {
+                assertThat(hits.id(rank)).isNotEqualTo((long) id);
+            }
+        }
+    }
+}
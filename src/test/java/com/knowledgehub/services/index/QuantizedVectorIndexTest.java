@@ -0,0 +1,156 @@
+package com.knowledgehub.services.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class QuantizedVectorIndexTest {
+
+    private static final int DIMENSION = 32;
+    private static final int TOP_K = 10;
+
+    private final ExactSearchEngine exactSearch = new ExactSearchEngine(1, Integer.MAX_VALUE);
+
+    @Test
+    void scalarCodesScoreCloseToTheExactDotProduct() {
+        ScalarQuantizer quantizer = new ScalarQuantizer();
+        float[][] vectors = VectorTestData.clustered(50, DIMENSION, 5, 1);
+        byte[] codes = new byte[quantizer.codeSize(DIMENSION) * vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            quantizer.encode(vectors[i], codes, i * quantizer.codeSize(DIMENSION));
+        }
+
+        VectorQuantizer.QueryScorer scorer = quantizer.scorer(vectors[0]);
+        for (int i = 0; i < vectors.length; i++) {
+            assertThat((double) scorer.score(codes, i * quantizer.codeSize(DIMENSION)))
+                .isCloseTo(dot(vectors[0], vectors[i]), within(0.02));
+        }
+        assertThat(quantizer.untrained()).isSameAs(quantizer);
+    }
+
+    @Test
+    void productCodesApproximateTheDotProductOnceTrained() {
+        ProductQuantizer quantizer = new ProductQuantizer(4, 1024);
+        float[][] vectors = VectorTestData.clustered(1024, DIMENSION, 20, 2);
+        assertThat(quantizer.isTrained()).isFalse();
+        quantizer.train(vectors);
+        assertThat(quantizer.isTrained()).isTrue();
+
+        int codeSize = quantizer.codeSize(DIMENSION);
+        assertThat(codeSize).isEqualTo(DIMENSION / 4);
+        byte[] codes = new byte[codeSize];
+        VectorQuantizer.QueryScorer scorer = quantizer.scorer(vectors[0]);
+        double error = 0;
+        for (float[] vector : vectors) {
+            quantizer.encode(vector, codes, 0);
+            error += Math.abs(scorer.score(codes, 0) - dot(vectors[0], vector));
+        }
+        assertThat(error / vectors.length).isLessThan(0.05);
+
+        VectorQuantizer copy = quantizer.untrained();
+        assertThat(copy).isNotSameAs(quantizer);
+        assertThat(copy.isTrained()).isFalse();
+        assertThat(quantizer.isTrained()).isTrue();
+    }
+
+    @Test
+    void defaultShortlistMatchesExactSearch() {
+        for (VectorQuantizer quantizer : List.of(new ScalarQuantizer(), new ProductQuantizer(4, 1024))) {
+            VectorArena arena = new VectorArena();
+            float[][] vectors = VectorTestData.clustered(5000, DIMENSION, 50, 3);
+            int[] slots = VectorTestData.fill(arena, vectors);
+            QuantizedVectorIndex index = new QuantizedVectorIndex(arena, exactSearch, quantizer, 0, Runnable::run);
+            for (int slot : slots) {
+                index.add(slot);
+            }
+            assertThat(index.isQuantized()).isTrue();
+
+            float[][] queries = VectorTestData.clustered(100, DIMENSION, 50, 4);
+            double recall = 0;
+            for (float[] query : queries) {
+                recall += VectorTestData.recall(exactSearch.search(arena, slots, slots.length, query, TOP_K),
+                    index.search(query, TOP_K));
+            }
+            assertThat(recall / queries.length).as(quantizer.getClass().getSimpleName())
+                .isGreaterThanOrEqualTo(0.99);
+        }
+    }
+
+    @Test
+    void searchIsExactUntilTrainingHasRunAndRemovedVectorsAreNotReturned() {
+        VectorArena arena = new VectorArena();
+        float[][] vectors = VectorTestData.clustered(2000, DIMENSION, 20, 5);
+        int[] slots = VectorTestData.fill(arena, vectors);
+        List<Runnable> pending = new ArrayList<>();
+        QuantizedVectorIndex index = new QuantizedVectorIndex(arena, exactSearch, new ProductQuantizer(4, 1024), 0,
+            pending::add);
+        for (int slot : slots) {
+            index.add(slot);
+        }
+
+        // Training was handed to the executor once but has not run yet
+        assertThat(pending).hasSize(1);
+        assertThat(index.isQuantized()).isFalse();
+        SearchHits exact = exactSearch.search(arena, slots, slots.length, vectors[7], TOP_K);
+        assertThat(VectorTestData.recall(exact, index.search(vectors[7], TOP_K))).isEqualTo(1.0);
+
+        pending.get(0).run();
+        assertThat(index.isQuantized()).isTrue();
+        assertThat(index.search(vectors[7], TOP_K).id(0)).isEqualTo(7L);
+
+        index.remove(slots[7]);
+        assertThat(index.size()).isEqualTo(vectors.length - 1);
+        SearchHits hits = index.search(vectors[7], TOP_K);
+        for (int rank = 0; rank < hits.size(); rank++) {
+            assertThat(hits.id(rank)).isNotEqualTo(7L);
+        }
+    }
+
+    @Test
+    void trainingThatFinishesAfterClearIsDiscarded() {
+        VectorArena arena = new VectorArena();
+        float[][] vectors = VectorTestData.clustered(1024, DIMENSION, 20, 6);
+        List<Runnable> pending = new ArrayList<>();
+        QuantizedVectorIndex index = new QuantizedVectorIndex(arena, exactSearch, new ProductQuantizer(4, 1024), 0,
+            pending::add);
+        for (int slot : VectorTestData.fill(arena, vectors)) {
+            index.add(slot);
+        }
+        assertThat(pending).hasSize(1);
+
+        index.clear();
+        arena.clear();
+        pending.get(0).run();
+        assertThat(index.isQuantized()).isFalse();
+        assertThat(index.size()).isZero();
+
+        // Refilling trains afresh on the new vectors
+        float[][] refill = VectorTestData.clustered(1024, DIMENSION, 20, 7);
+        for (int slot : VectorTestData.fill(arena, refill)) {
+            index.add(slot);
+        }
+        assertThat(pending).hasSize(2);
+        pending.get(1).run();
+        assertThat(index.isQuantized()).isTrue();
+        assertThat(index.search(refill[3], TOP_K).id(0)).isEqualTo(3L);
+    }
+
+    @Test
+    void negativeRescoreMultiplierIsRejected() {
+        assertThatThrownBy(() -> new QuantizedVectorIndex(new VectorArena(), exactSearch, new ScalarQuantizer(), -1,
+            Runnable::run)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double dot = 0;
+        for (int d = 0; d < a.length; d++) {
+            dot += a[d] * b[d];
+        }
+        return dot;
+    }
+}
@@ -0,0 +1,185 @@
+package com.knowledgehub.services.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.knowledgehub.services.index.VectorSnapshotStore.StoredDocument;
+
+class VectorSnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void snapshotAndLogAreRestoredTogether() throws IOException {
+        try (VectorSnapshotStore store = new VectorSnapshotStore(directory, Long.MAX_VALUE, 0)) {
+            store.load(document -> { }, id -> { });
+            store.writeSnapshot(List.of(document(1, 10, 2), document(2, 20, 3)));
+            store.appendPut(document(3, 30, 1));
+            store.appendPut(document(1, 11, 1));
+            store.appendRemove(2);
+        }
+
+        Restored restored = load(directory);
+        assertThat(restored.documents).containsOnlyKeys(1L, 3L);
+        assertThat(restored.documents.get(1L).getVersion()).isEqualTo(11L);
+        assertThat(restored.documents.get(3L).getChunkTexts()).containsExactly("chunk 3-0");
+        assertThat(restored.documents.get(3L).getVectors()[0]).containsExactly(vector(3, 0));
+        assertThat(restored.removed).containsExactly(2L);
+    }
+
+    @Test
+    void snapshotVectorsKeepTheirChunkOrder() throws IOException {
+        try (VectorSnapshotStore store = new VectorSnapshotStore(directory, Long.MAX_VALUE, 0)) {
+            store.load(document -> { }, id -> { });
+            store.writeSnapshot(List.of(document(1, 10, 2), document(2, 20, 3)));
+        }
+
+        Restored restored = load(directory);
+        StoredDocument second = restored.documents.get(2L);
+        assertThat(second.getChunkIds()).containsExactly(200L, 201L, 202L);
+        for (int chunk = 0; chunk < 3; chunk++) {
+            assertThat(second.getVectors()[chunk]).containsExactly(vector(2, chunk));
+        }
+    }
+
+    @Test
+    void tornLogTailIsDroppedAndTheLogStaysWritable() throws IOException {
+        try (VectorSnapshotStore store = new VectorSnapshotStore(directory, Long.MAX_VALUE, 0)) {
+            store.load(document -> { }, id -> { });
+            store.appendPut(document(1, 10, 2));
+            store.appendPut(document(2, 20, 2));
+        }
+        Path log = directory.resolve("mutations.log");
+        long intact = Files.size(log);
+        try (VectorSnapshotStore store = new VectorSnapshotStore(directory, Long.MAX_VALUE, 0)) {
+            store.load(document -> { }, id -> { });
+            store.appendPut(document(3, 30, 2));
+        }
+        // Cut the last record in half, as a crash in the middle of the write would
+        long torn = intact + (Files.size(log) - intact) / 2;
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(torn);
+        }
+
+        Restored restored = load(directory);
+        assertThat(restored.documents).containsOnlyKeys(1L, 2L);
+        assertThat(Files.size(log)).isEqualTo(intact);
+
+        try (VectorSnapshotStore store = new VectorSnapshotStore(directory, Long.MAX_VALUE, 0)) {
+            store.load(document -> { }, id -> { });
+            store.appendRemove(1);
+        }
+        assertThat(load(directory).documents).containsOnlyKeys(2L);
+    }
+
+    @Test
+    void corruptedRecordEndsTheReplay() throws IOException {
+        try (VectorSnapshotStore store = new VectorSnapshotStore(directory, Long.MAX_VALUE, 0)) {
+            store.load(document -> { }, id -> { });
+            store.appendPut(document(1, 10, 1));
+            store.appendPut(document(2, 20, 1));
+        }
+        Path log = directory.resolve("mutations.log");
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[bytes.length - 1] ^= 0x5A;
+        Files.write(log, bytes);
+
+        assertThat(load(directory).documents).containsOnlyKeys(1L);
+    }
+
+    @Test
+    void logFromAnotherSnapshotIsDiscarded() throws IOException {
+        try (VectorSnapshotStore store = new VectorSnapshotStore(directory, Long.MAX_VALUE, 0)) {
+            store.load(document -> { }, id -> { });
+            store.writeSnapshot(List.of(document(1, 10, 1)));
+            store.appendPut(document(2, 20, 1));
+        }
+        Path log = directory.resolve("mutations.log");
+        Path staleLog = Files.copy(log, directory.resolve("stale.log"));
+        try (VectorSnapshotStore store = new VectorSnapshotStore(directory, Long.MAX_VALUE, 0)) {
+            store.load(document -> { }, id -> { });
+            store.writeSnapshot(List.of(document(1, 10, 1)));
+        }
+        // As if a crash hit after the new snapshot was in place but before the log was reset
+        Files.move(staleLog, log, StandardCopyOption.REPLACE_EXISTING);
+
+        assertThat(load(directory).documents).containsOnlyKeys(1L);
+    }
+
+    @Test
+    void checkpointIsRequestedOnceTheLogOutgrowsItsLimit() throws IOException {
+        try (VectorSnapshotStore store = new VectorSnapshotStore(directory, 256, -1)) {
+            store.load(document -> { }, id -> { });
+            assertThat(store.shouldCheckpoint()).isFalse();
+            store.appendPut(document(1, 10, 16));
+            assertThat(store.shouldCheckpoint()).isTrue();
+
+            store.writeSnapshot(List.of(document(1, 10, 16)));
+            assertThat(store.shouldCheckpoint()).isFalse();
+        }
+    }
+
+    @Test
+    void disabledStorePersistsNothing() throws IOException {
+        try (VectorSnapshotStore store = VectorSnapshotStore.disabled()) {
+            store.load(document -> { }, id -> { });
+            store.appendPut(document(1, 10, 1));
+            assertThat(store.isEnabled()).isFalse();
+            assertThat(store.shouldCheckpoint()).isFalse();
+        }
+    }
+
+    private static Restored load(Path directory) throws IOException {
+        Restored restored = new Restored();
+        try (VectorSnapshotStore store = new VectorSnapshotStore(directory, Long.MAX_VALUE, 0)) {
+            store.load(restored::put, restored::remove);
+        }
+        return restored;
+    }
+
+    private static StoredDocument document(long id, long version, int chunks) {
+        long[] chunkIds = new long[chunks];
+        String[] chunkTexts = new String[chunks];
+        float[][] vectors = new float[chunks][];
+        for (int i = 0; i < chunks; i++) {
+            chunkIds[i] = id * 100 + i;
+            chunkTexts[i] = "chunk " + id + "-" + i;
+            vectors[i] = vector(id, i);
+        }
+        return new StoredDocument(id, version, "document " + id, "POLICY", chunkIds, chunkTexts, vectors);
+    }
+
+    private static float[] vector(long id, int chunk) {
+        return new float[] { id, chunk, id * 0.5f, -chunk };
+    }
+
+    private static class Restored {
+        private final Map<Long, StoredDocument> documents = new LinkedHashMap<>();
+        private final Set<Long> removed = new HashSet<>();
+
+        private void put(StoredDocument document) {
+            documents.put(document.getDocumentId(), document);
+            removed.remove(document.getDocumentId());
+        }
+
+        private void remove(long documentId) {
+            documents.remove(documentId);
+            removed.add(documentId);
+        }
+    }
+}
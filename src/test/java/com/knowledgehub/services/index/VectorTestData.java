@@ -0,0 +1,71 @@
+package com.knowledgehub.services.index;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Synthetic embeddings for index tests: points scattered around random cluster centres,
+ * which is closer to real embeddings than uniform noise
+ */
+final class VectorTestData {
+
+    private VectorTestData() {
+    }
+
+    static float[][] clustered(int count, int dimension, int clusters, long seed) {
+        Random random = new Random(seed);
+        float[][] centres = new float[clusters][];
+        for (int c = 0; c < clusters; c++) {
+            centres[c] = gaussian(random, dimension, 1.0f);
+        }
+        float[][] vectors = new float[count][];
+        for (int i = 0; i < count; i++) {
+            float[] centre = centres[random.nextInt(clusters)];
+            float[] noise = gaussian(random, dimension, 0.35f);
+            float[] vector = new float[dimension];
+            for (int d = 0; d < dimension; d++) {
+                vector[d] = centre[d] + noise[d];
+            }
+            vectors[i] = VectorArena.normalize(vector);
+        }
+        return vectors;
+    }
+
+    /**
+     * Fill an arena with the vectors, using their position as the id
+     * @return Slot of each vector
+     */
+    static int[] fill(VectorArena arena, float[][] vectors) {
+        int[] slots = new int[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            slots[i] = arena.put(i, vectors[i]);
+        }
+        return slots;
+    }
+
+    /**
+     * Fraction of the exact top-K ids that the approximate hits contain
+     */
+    static double recall(SearchHits exact, SearchHits approximate) {
+        Set<Long> expected = new HashSet<>();
+        for (int rank = 0; rank < exact.size(); rank++) {
+            expected.add(exact.id(rank));
+        }
+        int found = 0;
+        for (int rank = 0; rank < approximate.size(); rank++) {
+            if (expected.contains(approximate.id(rank))) {
+                found++;
+            }
+        }
+        return expected.isEmpty() ? 1.0 : (double) found / expected.size();
+    }
+
+    private static float[] gaussian(Random random, int dimension, float scale) {
+        float[] vector = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            vector[d] = (float) random.nextGaussian() * scale;
+        }
+        return vector;
+    }
+}
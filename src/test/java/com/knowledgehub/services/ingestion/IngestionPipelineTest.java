@@ -0,0 +1,204 @@
+package com.knowledgehub.services.ingestion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.knowledgehub.models.Document;
+import com.knowledgehub.models.DocumentType;
+import com.knowledgehub.repositories.DocumentRepository;
+import com.knowledgehub.services.DocumentChunker;
+import com.knowledgehub.services.DocumentMetadataCache;
+import com.knowledgehub.services.DocumentNameMatcher;
+import com.knowledgehub.services.EmbeddingService;
+import com.knowledgehub.services.VectorStoreService;
+import com.knowledgehub.services.WordTextExtractor;
+import com.knowledgehub.services.upload.UploadFiles;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngestionPipelineTest {
+
+    private static final String TEXT = "1. Remote Work\nEmployees may work remotely two days a week.";
+
+    @TempDir
+    Path uploadDirectory;
+
+    private final WordTextExtractor textExtractor = mock(WordTextExtractor.class);
+    private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+    private final EmbeddingService embeddingService = mock(EmbeddingService.class);
+    private final VectorStoreService vectorStoreService = mock(VectorStoreService.class);
+    private final DocumentNameMatcher documentNameMatcher = mock(DocumentNameMatcher.class);
+    private final DocumentMetadataCache documentMetadataCache = mock(DocumentMetadataCache.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private IngestionPipeline pipeline;
+    private Path otherDocumentFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(documentRepository.save(any())).thenAnswer(invocation -> {
+            Document document = invocation.getArgument(0);
+            document.setId(42L);
+            return document;
+        });
+        when(documentRepository.existsById(42L)).thenReturn(true);
+        // An older document uploaded under the same display name
+        otherDocumentFile = Files.writeString(uploadDirectory.resolve("Handbook.docx"), "older upload");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void uploadIsStoredIndexedAndEmbedded() throws Exception {
+        pipeline = pipeline(10);
+        when(textExtractor.extractText(any(), anyString())).thenReturn(TEXT);
+
+        IngestionJob job = pipeline.submit(upload(), "Handbook.docx", DocumentType.POLICY, 12, "abc");
+
+        awaitFinished(job);
+        assertThat(job.getStatus()).isEqualTo(IngestionJob.Status.COMPLETED);
+        assertThat(job.getDocumentId()).isEqualTo(42L);
+        verify(vectorStoreService).indexText(any(), anyList());
+        verify(vectorStoreService).addDocument(any(), anyList(), any());
+        assertThat(Files.exists(job.getFilePath())).isTrue();
+        assertThat(Files.readString(otherDocumentFile)).isEqualTo("older upload");
+    }
+
+    @Test
+    void uploadsOverTheQueueCapacityAreRejected() throws Exception {
+        pipeline = pipeline(1);
+        CountDownLatch extracting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(textExtractor.extractText(any(), anyString())).thenAnswer(invocation -> {
+            extracting.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return TEXT;
+        });
+
+        IngestionJob running = pipeline.submit(upload(), "Handbook.docx", DocumentType.POLICY, 12, "abc");
+        assertThat(extracting.await(10, TimeUnit.SECONDS)).isTrue();
+        IngestionJob queued = pipeline.submit(upload(), "Handbook.docx", DocumentType.POLICY, 12, "abc");
+
+        assertThatThrownBy(() -> pipeline.submit(upload(), "Handbook.docx", DocumentType.POLICY, 12, "abc"))
+            .isInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.counter("knowledgehub.ingestion.rejected").count()).isEqualTo(1.0);
+
+        release.countDown();
+        awaitFinished(running);
+        awaitFinished(queued);
+        assertThat(queued.getStatus()).isEqualTo(IngestionJob.Status.COMPLETED);
+    }
+
+    @Test
+    void failedExtractionDeletesOnlyTheJobsOwnFile() throws Exception {
+        pipeline = pipeline(10);
+        when(textExtractor.extractText(any(), anyString())).thenThrow(new IOException("Not a Word document"));
+
+        IngestionJob job = pipeline.submit(upload(), "Handbook.docx", DocumentType.POLICY, 12, "abc");
+
+        awaitFinished(job);
+        assertThat(job.getStatus()).isEqualTo(IngestionJob.Status.FAILED);
+        assertThat(job.getError()).isEqualTo("Not a Word document");
+        assertThat(Files.exists(job.getFilePath())).isFalse();
+        assertThat(Files.readString(otherDocumentFile)).isEqualTo("older upload");
+        verify(documentRepository, never()).save(any());
+    }
+
+    @Test
+    void failureAfterPersistingRollsTheDocumentBack() throws Exception {
+        pipeline = pipeline(10);
+        when(textExtractor.extractText(any(), anyString())).thenReturn(TEXT);
+        doThrow(new IllegalStateException("Keyword index unavailable"))
+            .when(vectorStoreService).indexText(any(), anyList());
+
+        IngestionJob job = pipeline.submit(upload(), "Handbook.docx", DocumentType.POLICY, 12, "abc");
+
+        awaitFinished(job);
+        assertThat(job.getStatus()).isEqualTo(IngestionJob.Status.FAILED);
+        assertThat(job.getDocumentId()).isNull();
+        verify(vectorStoreService).removeDocument(42L);
+        verify(documentRepository).deleteById(42L);
+        verify(documentNameMatcher).remove(42L);
+        assertThat(Files.exists(job.getFilePath())).isFalse();
+        assertThat(Files.readString(otherDocumentFile)).isEqualTo("older upload");
+        verify(embeddingService, never()).generateEmbeddingVectors(anyList());
+    }
+
+    @Test
+    void failedEmbeddingKeepsTheDocumentAndIsRetried() throws Exception {
+        pipeline = pipeline(10);
+        when(textExtractor.extractText(any(), anyString())).thenReturn(TEXT);
+        when(embeddingService.generateEmbeddingVectors(anyList()))
+            .thenThrow(new IllegalStateException("Embedding API unavailable"));
+
+        IngestionJob job = pipeline.submit(upload(), "Handbook.docx", DocumentType.POLICY, 12, "abc");
+
+        awaitFinished(job);
+        assertThat(job.getStatus()).isEqualTo(IngestionJob.Status.PARTIALLY_INDEXED);
+        assertThat(job.getError()).contains("Embedding API unavailable");
+        assertThat(job.getDocumentId()).isEqualTo(42L);
+        assertThat(Files.exists(job.getFilePath())).isTrue();
+        verify(vectorStoreService).indexText(any(), anyList());
+        verify(documentRepository, never()).deleteById(any());
+        verify(vectorStoreService, never()).removeDocument(any());
+        assertThat(pipeline.getAwaitingEmbeddingCount()).isEqualTo(1);
+
+        // Still failing: the document stays queued for the next retry
+        Document saved = mock(Document.class);
+        when(documentRepository.findById(42L)).thenReturn(Optional.of(saved));
+        doThrow(new IllegalStateException("Embedding API unavailable")).when(vectorStoreService).addDocument(saved);
+        pipeline.retryEmbedding();
+        assertThat(pipeline.getAwaitingEmbeddingCount()).isEqualTo(1);
+
+        doNothing().when(vectorStoreService).addDocument(saved);
+        pipeline.retryEmbedding();
+        verify(vectorStoreService, times(2)).addDocument(saved);
+        assertThat(pipeline.getAwaitingEmbeddingCount()).isZero();
+    }
+
+    private IngestionPipeline pipeline(int queueCapacity) {
+        return new IngestionPipeline(textExtractor, documentRepository, new DocumentChunker(300, 60),
+            embeddingService, vectorStoreService, documentNameMatcher, documentMetadataCache, meterRegistry,
+            queueCapacity, 1, 1, 60, 0);
+    }
+
+    private Path upload() throws IOException {
+        return Files.writeString(UploadFiles.storagePath(uploadDirectory, "Handbook.docx"), "new upload");
+    }
+
+    private static void awaitFinished(IngestionJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!job.isFinished()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
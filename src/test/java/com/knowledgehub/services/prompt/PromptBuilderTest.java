@@ -0,0 +1,106 @@
+package com.knowledgehub.services.prompt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PromptBuilderTest {
+
+    private final TokenCounter tokenCounter = new TokenCounter("o200k_base");
+
+    @Test
+    void instructionsAreAddedOnceAndCharged() {
+        PromptBuilder prompt = new PromptBuilder(tokenCounter, 1000)
+            .instruction("Answer only from the documents.")
+            .instruction("  answer ONLY from the   documents.  ")
+            .instruction("Cite the document name.")
+            .instruction("   ");
+
+        assertThat(prompt.instructions()).isEqualTo("Answer only from the documents.\n\nCite the document name.");
+        assertThat(prompt.getUsedTokens()).isEqualTo(tokenCounter.count("Answer only from the documents.")
+            + tokenCounter.count("Cite the document name.") + 8);
+    }
+
+    @Test
+    void highestScoresArePackedFirstButRenderedInRetrievalOrder() {
+        String low = words("alpha", 60);
+        String high = words("bravo", 60);
+        String middle = words("charlie", 60);
+        int budget = tokenCounter.count(high) + tokenCounter.count(middle) + 40;
+        PromptBuilder prompt = new PromptBuilder(tokenCounter, budget)
+            .candidate("context", "[1] ", low, 0.2)
+            .candidate("context", "[2] ", high, 0.9)
+            .candidate("context", "[3] ", middle, 0.5);
+
+        assertThat(prompt.section("context")).containsExactly("[2] " + high, "[3] " + middle);
+        assertThat(prompt.getDroppedCount()).isEqualTo(1);
+        assertThat(prompt.getUsedTokens()).isLessThanOrEqualTo(budget);
+    }
+
+    @Test
+    void duplicateAndContainedContentIsSkipped() {
+        String policy = "Employees may book business class on flights longer than eight hours.";
+        PromptBuilder prompt = new PromptBuilder(tokenCounter, 1000)
+            .candidate("context", "[1] ", "Travel rules. " + policy + " Hotels are capped.", 0.9)
+            .candidate("context", "[2] ", policy.toUpperCase(), 0.8)
+            .candidate("context", "[3] ", "Hotels   are capped.", 0.7)
+            .candidate("context", "[4] ", "Meals are reimbursed.", 0.6);
+
+        assertThat(prompt.section("context")).hasSize(2)
+            .last().isEqualTo("[4] Meals are reimbursed.");
+        assertThat(prompt.getDuplicateCount()).isEqualTo(2);
+    }
+
+    @Test
+    void firstCandidateThatDoesNotFitIsCutWhenEnoughBudgetIsLeft() {
+        String first = words("delta", 100);
+        String second = words("echo", 500);
+        PromptBuilder prompt = new PromptBuilder(tokenCounter, tokenCounter.count(first) + 300)
+            .candidate("context", "", first, 0.9)
+            .candidate("context", "", second, 0.8);
+
+        List<String> context = prompt.section("context");
+        assertThat(context).hasSize(2);
+        assertThat(context.get(0)).isEqualTo(first);
+        assertThat(second).startsWith(context.get(1));
+        assertThat(context.get(1).length()).isLessThan(second.length());
+        assertThat(prompt.getUsedTokens()).isLessThanOrEqualTo(tokenCounter.count(first) + 300);
+    }
+
+    @Test
+    void candidateIsDroppedWhenTooLittleBudgetIsLeftToCutIt() {
+        String first = words("foxtrot", 100);
+        PromptBuilder prompt = new PromptBuilder(tokenCounter, tokenCounter.count(first) + 60)
+            .candidate("context", "", first, 0.9)
+            .candidate("context", "", words("golf", 200), 0.8);
+
+        assertThat(prompt.section("context")).containsExactly(first);
+        assertThat(prompt.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reservedTextAndSectionsShareOneBudget() {
+        String question = words("hotel", 50);
+        String document = words("india", 80);
+        String chunk = words("juliet", 80);
+        int budget = tokenCounter.count(question) + tokenCounter.count(document) + 20;
+        PromptBuilder prompt = new PromptBuilder(tokenCounter, budget)
+            .reserve(question)
+            .candidate("documents", "", document, 1.0)
+            .candidate("context", "", chunk, 0.5);
+
+        assertThat(prompt.section("documents")).containsExactly(document);
+        assertThat(prompt.section("context")).isEmpty();
+        assertThat(prompt.getUsedTokens()).isLessThanOrEqualTo(budget);
+    }
+
+    private static String words(String word, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(word).append(i).append(' ');
+        }
+        return text.toString().trim();
+    }
+}
@@ -0,0 +1,191 @@
+package com.knowledgehub.services.upload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import com.knowledgehub.models.DocumentType;
+import com.knowledgehub.services.ingestion.IngestionJob;
+import com.knowledgehub.services.ingestion.IngestionPipeline;
+
+class ResumableUploadServiceTest {
+
+    private static final byte[] FILE = content(200_000);
+
+    @TempDir
+    Path uploadDirectory;
+
+    private IngestionPipeline pipeline;
+    private ResumableUploadService service;
+    private final IngestionJob job = mock(IngestionJob.class);
+
+    @BeforeEach
+    void setUp() {
+        pipeline = mock(IngestionPipeline.class);
+        when(pipeline.submit(any(), any(), any(), anyLong(), any())).thenReturn(job);
+        service = new ResumableUploadService(pipeline, uploadDirectory.toString(), 1, 60);
+    }
+
+    @Test
+    void piecesAreAssembledAndQueuedWithTheirChecksum() throws IOException {
+        UploadSession session = service.create("handbook.docx", DocumentType.MANUAL, FILE.length);
+        service.append(session.getId(), 0, piece(0, 70_000));
+        service.append(session.getId(), 70_000, piece(70_000, FILE.length));
+
+        assertThat(service.complete(session.getId(), sha256(FILE))).isSameAs(job);
+
+        Path stored = submittedPath();
+        assertThat(stored.getParent()).isEqualTo(uploadDirectory);
+        assertThat(stored.getFileName().toString()).endsWith("-handbook.docx");
+        assertThat(Files.readAllBytes(stored)).isEqualTo(FILE);
+        verify(pipeline).submit(eq(stored), eq("handbook.docx"), eq(DocumentType.MANUAL), eq((long) FILE.length),
+            eq(sha256(FILE)));
+        assertThat(service.get(session.getId())).isEmpty();
+        assertThat(Files.exists(session.getPartFile())).isFalse();
+    }
+
+    @Test
+    void pieceAtTheWrongOffsetIsRefused() throws IOException {
+        UploadSession session = service.create("handbook.docx", DocumentType.MANUAL, FILE.length);
+        service.append(session.getId(), 0, piece(0, 1000));
+
+        assertThatThrownBy(() -> service.append(session.getId(), 500, piece(500, 2000)))
+            .isInstanceOf(UploadOffsetMismatchException.class);
+        assertThat(service.get(session.getId())).get()
+            .extracting(UploadSession::getReceivedBytes).isEqualTo(1000L);
+    }
+
+    @Test
+    void incompleteUploadCannotBeCompleted() throws IOException {
+        UploadSession session = service.create("handbook.docx", DocumentType.MANUAL, FILE.length);
+        service.append(session.getId(), 0, piece(0, 1000));
+
+        assertThatThrownBy(() -> service.complete(session.getId(), null))
+            .isInstanceOf(UploadOffsetMismatchException.class);
+        verify(pipeline, never()).submit(any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void pieceRunningPastTheDeclaredSizeKeepsWhatFits() throws IOException {
+        UploadSession session = service.create("handbook.docx", DocumentType.MANUAL, FILE.length);
+        service.append(session.getId(), 0, piece(0, 150_000));
+        byte[] oversized = Arrays.copyOf(Arrays.copyOfRange(FILE, 150_000, FILE.length), 80_000);
+
+        assertThatThrownBy(() -> service.append(session.getId(), 150_000, new ByteArrayInputStream(oversized)))
+            .isInstanceOf(UploadTooLargeException.class);
+        assertThat(session.getReceivedBytes()).isEqualTo(FILE.length);
+
+        service.complete(session.getId(), sha256(FILE));
+        assertThat(Files.readAllBytes(submittedPath())).isEqualTo(FILE);
+    }
+
+    @Test
+    void checksumMismatchAbortsTheUpload() throws IOException {
+        UploadSession session = service.create("handbook.docx", DocumentType.MANUAL, FILE.length);
+        service.append(session.getId(), 0, piece(0, FILE.length));
+
+        assertThatThrownBy(() -> service.complete(session.getId(), sha256(new byte[] { 1 })))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Checksum mismatch");
+        assertThat(service.get(session.getId())).isEmpty();
+        assertThat(Files.exists(session.getPartFile())).isFalse();
+        try (Stream<Path> files = Files.list(uploadDirectory)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    void rejectedCompletionCanBeRetriedWithTheSameChecksum() throws IOException {
+        when(pipeline.submit(any(), any(), any(), anyLong(), any()))
+            .thenThrow(new RejectedExecutionException("Ingestion queue is full"))
+            .thenReturn(job);
+        UploadSession session = service.create("handbook.docx", DocumentType.MANUAL, FILE.length);
+        service.append(session.getId(), 0, piece(0, FILE.length));
+
+        assertThatThrownBy(() -> service.complete(session.getId(), sha256(FILE)))
+            .isInstanceOf(RejectedExecutionException.class);
+        assertThat(service.get(session.getId())).isPresent();
+        assertThat(Files.readAllBytes(session.getPartFile())).isEqualTo(FILE);
+
+        assertThat(service.complete(session.getId(), sha256(FILE))).isSameAs(job);
+        verify(pipeline, times(2)).submit(any(), any(), any(), anyLong(), eq(sha256(FILE)));
+    }
+
+    @Test
+    void existingDocumentWithTheSameNameKeepsItsFile() throws IOException {
+        Path existing = Files.write(uploadDirectory.resolve("handbook.docx"), new byte[] { 1, 2, 3 });
+        when(pipeline.submit(any(), any(), any(), anyLong(), any()))
+            .thenThrow(new RejectedExecutionException("Ingestion queue is full"))
+            .thenReturn(job);
+        UploadSession session = service.create("handbook.docx", DocumentType.MANUAL, FILE.length);
+        service.append(session.getId(), 0, piece(0, FILE.length));
+
+        assertThatThrownBy(() -> service.complete(session.getId(), sha256(FILE)))
+            .isInstanceOf(RejectedExecutionException.class);
+        assertThat(Files.readAllBytes(existing)).containsExactly(1, 2, 3);
+
+        service.complete(session.getId(), sha256(FILE));
+        assertThat(Files.readAllBytes(existing)).containsExactly(1, 2, 3);
+        assertThat(submittedPath()).isNotEqualTo(existing);
+        assertThat(Files.readAllBytes(submittedPath())).isEqualTo(FILE);
+    }
+
+    @Test
+    void invalidUploadsAreRefusedUpFront() {
+        assertThatThrownBy(() -> service.create("notes.txt", DocumentType.MANUAL, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.create("handbook.docx", DocumentType.MANUAL, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.create("handbook.docx", DocumentType.MANUAL, 2L * 1024 * 1024))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.append("missing", 0, piece(0, 10)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Path of the file handed to the pipeline by the last completion
+     */
+    private Path submittedPath() {
+        ArgumentCaptor<Path> path = ArgumentCaptor.forClass(Path.class);
+        verify(pipeline, atLeastOnce()).submit(path.capture(), any(), any(), anyLong(), any());
+        return path.getValue();
+    }
+
+    private static ByteArrayInputStream piece(int from, int to) {
+        return new ByteArrayInputStream(Arrays.copyOfRange(FILE, from, to));
+    }
+
+    private static byte[] content(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i * 31 + (i >> 8));
+        }
+        return bytes;
+    }
+
+    private static String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(UploadFiles.sha256().digest(bytes));
+    }
+}